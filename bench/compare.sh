@@ -0,0 +1,10 @@
+#!/bin/sh
+# Compares two JMH result files and exits with 1 if anything got more than 10% slower.
+#
+# Usage: bench/compare.sh <baseline.json> <current.json> [tolerance %]
+#   bench/compare.sh results/baseline.json results/latest.json
+set -e
+
+cd "$(dirname "$0")"
+[ -f target/benchmarks.jar ] || mvn -B -q package -DskipTests
+java -cp target/benchmarks.jar bench.Compare "$@"
@@ -0,0 +1,19 @@
+#!/bin/sh
+# Builds the JMH benchmarks and runs them with the GC (allocation) profiler.
+#
+# Usage: bench/run.sh [name] [extra JMH options...]
+#   bench/run.sh                     -> results/latest.{txt,json}
+#   bench/run.sh baseline            -> results/baseline.{txt,json} (commit these)
+#   bench/run.sh quick -p size=1000 TranslatorBenchmark.encode
+#
+# Compare a run against the committed baseline with:
+#   bench/compare.sh results/baseline.json results/latest.json
+set -e
+
+cd "$(dirname "$0")"
+NAME=${1:-latest}
+[ $# -gt 0 ] && shift
+
+mvn -B -q package -DskipTests
+mkdir -p results
+java -jar target/benchmarks.jar -prof gc -rf json -rff "results/$NAME.json" "$@" | tee "results/$NAME.txt"
@@ -0,0 +1,59 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sample generation in {@code MorseAudioPlayer}: rendering a message to PCM (which copies
+ * cached tones) and synthesizing the dit/dah tones themselves. No sound device is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AudioBenchmark {
+
+    // More unit durations than MorseWaveforms caches, so every synthesize() call is a miss.
+    private static final int SYNTHESIS_SPEEDS = 32;
+
+    /** Length of the rendered message in plain-text characters. */
+    @Param({"10", "1000"})
+    public int messageLength;
+
+    private Object player;
+    private String morse;
+    private int speed;
+
+    @Setup
+    public void setUp() throws Throwable {
+        player = (Object) Targets.NEW_PLAYER.invokeExact(60);
+        morse = Targets.lettersToMorseCode(Inputs.text(Mix.LETTERS, messageLength));
+    }
+
+    /** Full PCM rendering of a message at the player's default speed. */
+    @Benchmark
+    public ByteBuffer render() throws Throwable {
+        return (ByteBuffer) Targets.RENDER.invokeExact(player, morse);
+    }
+
+    /** Synthesis of one set of dit/dah tones (independent of the message length). */
+    @Benchmark
+    public Object synthesize() throws Throwable {
+        speed = (speed + 1) % SYNTHESIS_SPEEDS;
+        return (Object) Targets.WAVEFORMS.invokeExact(40 + speed, 700, 44100f);
+    }
+}
@@ -0,0 +1,196 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files and fails if any benchmark got slower.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar bench.Compare <baseline.json> <current.json> [tolerance %]}
+ *
+ * Every benchmark (with its parameters) present in both files is listed with its change.
+ * Scores are times per call, so a higher score is a slowdown. The exit code is 1 if any
+ * slowdown exceeds the tolerance (10% by default), which lets a CI job stop a regression.
+ */
+public final class Compare {
+
+    private static final double DEFAULT_TOLERANCE_PERCENT = 10;
+
+    private Compare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: bench.Compare <baseline.json> <current.json> [tolerance %]");
+            System.exit(2);
+            return;
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE_PERCENT;
+        Map<String, Double> baseline = scores(args[0]);
+        Map<String, Double> current = scores(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            Double before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            double change = (entry.getValue() - before) / before * 100;
+            boolean regressed = change > tolerance;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-70s %14.3f -> %14.3f  %+7.1f%%%s%n", entry.getKey(), before,
+                    entry.getValue(), change, regressed ? "  REGRESSION" : "");
+        }
+        System.out.printf(Locale.ROOT, "%d regression(s) above %.1f%%%n", regressions, tolerance);
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    /** Reads "benchmark [params]" -> primary score from a JMH JSON result file. */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Double> scores(String file) throws IOException {
+        String json = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (Object result : (List<Object>) new JsonReader(json).value()) {
+            Map<String, Object> run = (Map<String, Object>) result;
+            StringBuilder name = new StringBuilder((String) run.get("benchmark"));
+            Object params = run.get("params");
+            if (params != null) {
+                name.append(' ').append(params);
+            }
+            Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+            scores.put(name.toString(), (Double) metric.get("score"));
+        }
+        return scores;
+    }
+
+    /** Minimal JSON reader: objects, arrays, strings, numbers, booleans and null. */
+    private static final class JsonReader {
+        private final String json;
+        private int position;
+
+        JsonReader(String json) {
+            this.json = json;
+        }
+
+        Object value() {
+            skipBlanks();
+            char c = json.charAt(position);
+            switch (c) {
+                case '{':
+                    return object();
+                case '[':
+                    return array();
+                case '"':
+                    return string();
+                default:
+                    int start = position;
+                    while (position < json.length() && ",}] \t\r\n".indexOf(json.charAt(position)) < 0) {
+                        position++;
+                    }
+                    String literal = json.substring(start, position);
+                    switch (literal) {
+                        case "true":
+                            return Boolean.TRUE;
+                        case "false":
+                            return Boolean.FALSE;
+                        case "null":
+                            return null;
+                        default:
+                            return Double.valueOf(literal); // JMH also writes "NaN", which this accepts
+                    }
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            position++; // '{'
+            skipBlanks();
+            if (json.charAt(position) == '}') {
+                position++;
+                return object;
+            }
+            while (true) {
+                skipBlanks();
+                String key = string();
+                skipBlanks();
+                position++; // ':'
+                object.put(key, value());
+                skipBlanks();
+                if (json.charAt(position++) == '}') {
+                    return object;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> array = new ArrayList<>();
+            position++; // '['
+            skipBlanks();
+            if (json.charAt(position) == ']') {
+                position++;
+                return array;
+            }
+            while (true) {
+                array.add(value());
+                skipBlanks();
+                if (json.charAt(position++) == ']') {
+                    return array;
+                }
+            }
+        }
+
+        private String string() {
+            StringBuilder string = new StringBuilder();
+            position++; // opening quote
+            while (true) {
+                char c = json.charAt(position++);
+                if (c == '"') {
+                    return string.toString();
+                }
+                if (c == '\\') {
+                    char escaped = json.charAt(position++);
+                    switch (escaped) {
+                        case 'n':
+                            string.append('\n');
+                            break;
+                        case 't':
+                            string.append('\t');
+                            break;
+                        case 'r':
+                            string.append('\r');
+                            break;
+                        case 'b':
+                            string.append('\b');
+                            break;
+                        case 'f':
+                            string.append('\f');
+                            break;
+                        case 'u':
+                            string.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                            position += 4;
+                            break;
+                        default:
+                            string.append(escaped);
+                    }
+                } else {
+                    string.append(c);
+                }
+            }
+        }
+
+        private void skipBlanks() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+    }
+}
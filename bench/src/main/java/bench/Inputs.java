@@ -0,0 +1,70 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * Deterministic benchmark inputs. The same seed is used for every run, so results
+ * from different commits are measured on exactly the same text.
+ */
+final class Inputs {
+
+    private static final long SEED = 0x5EED_2D2L;
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final String PUNCTUATION = ".,?'!/()&:;=+-_\"$@";
+    private static final String UNKNOWN = "#%*<>[]{}~^|\\`éü";
+    // Symbols that are not in the table or are malformed, so they decode to '?'.
+    private static final String[] BAD_SYMBOLS = {"........", "--------", ".-x", "...---...-", "#"};
+
+    private Inputs() {
+    }
+
+    /** Plain text of exactly {@code size} chars for the given mix. */
+    static String text(Mix mix, int size) {
+        Random random = new Random(SEED);
+        StringBuilder text = new StringBuilder(size);
+        int wordLength = 0;
+        while (text.length() < size) {
+            int maxWord = mix == Mix.SEPARATORS ? 2 : 7;
+            if (wordLength > 0 && random.nextInt(maxWord) == 0) {
+                int spaces = mix == Mix.SEPARATORS ? 1 + random.nextInt(4) : 1;
+                for (int i = 0; i < spaces; i++) {
+                    text.append(' ');
+                }
+                wordLength = 0;
+                continue;
+            }
+            String pool = LETTERS;
+            if (mix == Mix.PUNCTUATION && random.nextBoolean()) {
+                pool = PUNCTUATION;
+            } else if (mix == Mix.UNKNOWN && random.nextBoolean()) {
+                pool = UNKNOWN;
+            }
+            text.append(pool.charAt(random.nextInt(pool.length())));
+            wordLength++;
+        }
+        text.setLength(size);
+        return text.toString();
+    }
+
+    /** Morse code of about {@code size} chars for the given mix. */
+    static String morse(Mix mix, int size) throws Throwable {
+        Random random = new Random(SEED);
+        // Encoding the text gives well-formed Morse; roughly 4 Morse chars per text char.
+        String morse = Targets.lettersToMorseCode(text(mix == Mix.UNKNOWN ? Mix.LETTERS : mix, size / 4 + 16));
+        StringBuilder code = new StringBuilder(size + 16);
+        for (String symbol : morse.split(" ", -1)) {
+            if (code.length() >= size) {
+                break;
+            }
+            if (code.length() > 0) {
+                code.append(mix == Mix.SEPARATORS && random.nextInt(3) == 0 ? " / / " : " ");
+            }
+            if (mix == Mix.UNKNOWN && random.nextBoolean()) {
+                symbol = BAD_SYMBOLS[random.nextInt(BAD_SYMBOLS.length)];
+            }
+            code.append(symbol);
+        }
+        code.setLength(Math.min(code.length(), size));
+        return code.toString();
+    }
+}
@@ -0,0 +1,13 @@
+package bench;
+
+/** The kinds of text the translator sees, from the friendliest to the most awkward. */
+public enum Mix {
+    /** Words of upper- and lower-case letters and digits, separated by single spaces. */
+    LETTERS,
+    /** About half of the characters are mapped punctuation (longer Morse codes). */
+    PUNCTUATION,
+    /** About half of the characters are unmapped (ignored when encoding, '?' when decoding). */
+    UNKNOWN,
+    /** Short words with runs of spaces (and "/" separators when decoding). */
+    SEPARATORS
+}
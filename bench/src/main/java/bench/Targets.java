@@ -0,0 +1,56 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+
+/**
+ * Handles to the translator's public API.
+ *
+ * JMH refuses benchmarks in the default package, and Java does not let a named package
+ * import classes from the default package, which is where the translator lives. The
+ * benchmarks therefore call it through these method handles. They are {@code static final},
+ * so the JIT treats them as constants and inlines the target like a direct call.
+ */
+final class Targets {
+
+    static final MethodHandle LETTERS_TO_MORSE;   // (String) -> String
+    static final MethodHandle MORSE_TO_LETTERS;   // (String) -> String
+    static final MethodHandle NEW_PLAYER;         // (int unitDurationMs) -> Object
+    static final MethodHandle RENDER;             // (Object player, String morse) -> ByteBuffer
+    static final MethodHandle WAVEFORMS;          // (int unitMs, int freqHz, float rate) -> Object
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> translator = Class.forName("MorseCodeTranslator");
+            Class<?> player = Class.forName("MorseAudioPlayer");
+            Class<?> waveforms = Class.forName("MorseWaveforms");
+            MethodType stringToString = MethodType.methodType(String.class, String.class);
+
+            LETTERS_TO_MORSE = lookup.findStatic(translator, "lettersToMorseCode", stringToString);
+            MORSE_TO_LETTERS = lookup.findStatic(translator, "morseCodeToLetters", stringToString);
+            NEW_PLAYER = lookup.findConstructor(player, MethodType.methodType(void.class, int.class))
+                    .asType(MethodType.methodType(Object.class, int.class));
+            RENDER = lookup.findVirtual(player, "renderMorseCode", MethodType.methodType(ByteBuffer.class, String.class))
+                    .asType(MethodType.methodType(ByteBuffer.class, Object.class, String.class));
+            WAVEFORMS = lookup.findStatic(waveforms, "get",
+                    MethodType.methodType(waveforms, int.class, int.class, float.class))
+                    .asType(MethodType.methodType(Object.class, int.class, int.class, float.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Targets() {
+    }
+
+    static String lettersToMorseCode(String text) throws Throwable {
+        return (String) LETTERS_TO_MORSE.invokeExact(text);
+    }
+
+    static String morseCodeToLetters(String morse) throws Throwable {
+        return (String) MORSE_TO_LETTERS.invokeExact(morse);
+    }
+}
@@ -0,0 +1,56 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@code MorseCodeTranslator.lettersToMorseCode} and {@code morseCodeToLetters}
+ * across input sizes (10 B to 10 MB) and character mixes (see {@link Mix}).
+ *
+ * Scores are in microseconds per call; divide the size by the score to get chars/us.
+ * Run with {@code -prof gc} to see the bytes allocated per call as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class TranslatorBenchmark {
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int size;
+
+    @Param({"LETTERS", "PUNCTUATION", "UNKNOWN", "SEPARATORS"})
+    public Mix mix;
+
+    private String text;
+    private String morse;
+
+    @Setup
+    public void setUp() throws Throwable {
+        text = Inputs.text(mix, size);
+        morse = Inputs.morse(mix, size);
+    }
+
+    @Benchmark
+    public String encode() throws Throwable {
+        return Targets.lettersToMorseCode(text);
+    }
+
+    @Benchmark
+    public String decode() throws Throwable {
+        return Targets.morseCodeToLetters(morse);
+    }
+}
@@ -8,7 +8,7 @@ mkdir out
 
 echo.
 echo --- Compiling Java source files ---
-javac -d out src/*.java
+javac -encoding UTF-8 -d out src/*.java
 
 if %ERRORLEVEL% NEQ 0 (
     echo.
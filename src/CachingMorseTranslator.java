@@ -0,0 +1,72 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A caching front end for {@link MorseCodeTranslator}.
+ * Repeated inputs (call signs, {@code SOS}, canned status messages) are translated once and
+ * then served from a {@link MorseCache}, bounded by size in bytes and optionally by age.
+ * The results are identical to the uncached methods.
+ *
+ * Encoding and decoding use separate caches with half of the byte limit each, so their
+ * hit rates can be watched separately. Instances are thread-safe.
+ */
+public class CachingMorseTranslator {
+
+    // Approximate bytes per cached entry besides the chars: map entry, cache entry and two String objects.
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final MorseAlphabet alphabet;
+    private final MorseCache<String, String> encodeCache;
+    private final MorseCache<String, String> decodeCache;
+
+    /**
+     * Creates a translator for the ITU alphabet whose entries never expire.
+     * @param maxBytes The approximate memory the cached translations may use.
+     */
+    public CachingMorseTranslator(long maxBytes) {
+        this(MorseAlphabet.ITU, maxBytes, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a translator.
+     *
+     * @param alphabet The alphabet to translate with.
+     * @param maxBytes The approximate memory the cached translations may use.
+     * @param ttl      How long a translation is kept; 0 to keep it until evicted.
+     * @param unit     The unit of {@code ttl}.
+     */
+    public CachingMorseTranslator(MorseAlphabet alphabet, long maxBytes, long ttl, TimeUnit unit) {
+        this.alphabet = alphabet;
+        this.encodeCache = new MorseCache<>(maxBytes / 2, ttl, unit, CachingMorseTranslator::weigh);
+        this.decodeCache = new MorseCache<>(maxBytes / 2, ttl, unit, CachingMorseTranslator::weigh);
+    }
+
+    /** Same as {@link MorseCodeTranslator#lettersToMorseCode(String, MorseAlphabet)}, cached. */
+    public String lettersToMorseCode(String text) {
+        if (text == null || text.isEmpty()) {
+            return ""; // Like the uncached method; null cannot be a cache key
+        }
+        return encodeCache.get(text, input -> MorseCodeTranslator.lettersToMorseCode(input, alphabet));
+    }
+
+    /** Same as {@link MorseCodeTranslator#morseCodeToLetters(String, MorseAlphabet)}, cached. */
+    public String morseCodeToLetters(String code) {
+        if (code == null || code.isEmpty()) {
+            return "";
+        }
+        return decodeCache.get(code, input -> MorseCodeTranslator.morseCodeToLetters(input, alphabet));
+    }
+
+    /** The cache of encoded text, e.g. for its hit rate. */
+    public MorseCache<String, String> getEncodeCache() {
+        return encodeCache;
+    }
+
+    /** The cache of decoded Morse code, e.g. for its hit rate. */
+    public MorseCache<String, String> getDecodeCache() {
+        return decodeCache;
+    }
+
+    private static long weigh(String input, String output) {
+        return ENTRY_OVERHEAD_BYTES + 2L * (input.length() + output.length());
+    }
+}
@@ -0,0 +1,529 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+/**
+ * An immutable Morse alphabet: which symbols exist and what their Morse codes are.
+ *
+ * Alphabets are defined as text, one symbol per line followed by its code:
+ * <pre>
+ *   # International Morse code (excerpt)
+ *   A    .-
+ *   B    -...
+ *   &lt;SK&gt; ...-.-       # prosign: a token of several characters, sent as one symbol
+ *   \u30AC    .-.. ..      # several codes: encoded as two symbols (\u30AB and the voicing mark)
+ * </pre>
+ * Blank lines and lines starting with '#' are ignored, and so is anything after a '#' that
+ * follows the code. A symbol is a single character or a token of several characters (e.g.
+ * a prosign in angle brackets). When several symbols share a code, the first one defined
+ * is what the code decodes to; the others can still be encoded (e.g. Cyrillic \u0401 as \u0415).
+ *
+ * Each alphabet is compiled once into the structures the engines use: a decode tree in
+ * heap order (see {@link MorseDecoder}), built when the alphabet is created, and per
+ * case-folding rule a two-level encode table indexed by char value (see {@link MorseEncoder}),
+ * compiled page by page as chars from each page are first encoded. Translating with any
+ * alphabet therefore costs the same as translating with {@link #ITU}.
+ *
+ * American Morse is not provided: its codes contain spaces inside a character and dashes
+ * of several lengths, which the dot/dash text form used here cannot express.
+ */
+public final class MorseAlphabet {
+
+    /** Longest code an alphabet may define. Longer input symbols decode to '?'. */
+    public static final int MAX_CODE_LENGTH = 12;
+
+    // The encode tables are split into 256 pages of 256 chars, compiled one page at a time.
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_COUNT = (Character.MAX_VALUE + 1) / PAGE_SIZE;
+    private static final Locale TURKIC = new Locale("tr");
+
+    // --- Built-in Alphabets ---
+
+    /** International (ITU) Morse code: Latin letters, digits and common punctuation. */
+    public static final MorseAlphabet ITU = builtIn("ITU", ituDefinition());
+
+    /** ITU Morse code plus procedural signs written as {@code <SK>}, {@code <AR>}, {@code <SOS>}... */
+    public static final MorseAlphabet PROSIGNS = builtIn("Prosigns", concat(prosignDefinition(), ituDefinition()));
+
+    /** Russian Cyrillic letters, with ITU digits and punctuation. */
+    public static final MorseAlphabet CYRILLIC = builtIn("Cyrillic", concat(cyrillicDefinition(), ituSigns()));
+
+    /** Greek letters, with ITU digits and punctuation. */
+    public static final MorseAlphabet GREEK = builtIn("Greek", concat(greekDefinition(), ituSigns()));
+
+    /** Japanese Wabun code: katakana (hiragana is encoded as katakana) and ITU digits. */
+    public static final MorseAlphabet WABUN = builtIn("Wabun", concat(wabunDefinition(), ituDigits()));
+
+    private static final MorseAlphabet[] BUILT_IN = {ITU, PROSIGNS, CYRILLIC, GREEK, WABUN};
+
+    // --- Definition ---
+    private final String name;
+    private final Map<String, String> codes;        // Symbol -> code(s), in definition order
+
+    // --- Compiled Structures ---
+    private final char[] decodeChars;               // Tree node -> single-char symbol, or 0
+    private final String[] decodeStrings;           // Tree node -> multi-char symbol, or null (null if there are none)
+    private final Map<Character, String> charCodes; // Single-char symbol -> code(s)
+    private final Map<String, String> tokenCodes;   // Upper-cased token -> code
+    private final Set<String> tokenPrefixes;        // Every proper prefix of the upper-cased tokens
+    private final String tokenStarts;               // First chars of all tokens (upper and lower case), or null
+    private final int maxTokenLength;
+    private final EncodeTable defaultTable = new EncodeTable(Locale.ROOT); // Folding case like most locales
+    private final EncodeTable turkicTable = new EncodeTable(TURKIC);       // Folding case like Turkish and Azeri
+
+    private MorseAlphabet(String name, Map<String, String> codes) {
+        this.name = name;
+        this.codes = Collections.unmodifiableMap(codes);
+
+        int maxLength = 0;
+        Map<Character, String> charCodes = new HashMap<>();
+        Map<String, String> tokenCodes = new HashMap<>();
+        for (Map.Entry<String, String> entry : codes.entrySet()) {
+            String symbol = entry.getKey();
+            if (symbol.length() == 1) {
+                charCodes.put(symbol.charAt(0), entry.getValue());
+            } else {
+                tokenCodes.put(upperCase(symbol), entry.getValue());
+            }
+            if (entry.getValue().indexOf(' ') < 0) {
+                maxLength = Math.max(maxLength, entry.getValue().length());
+            }
+        }
+        this.charCodes = charCodes;
+        this.tokenCodes = tokenCodes;
+
+        // Decode tree: the first symbol defined for a code wins.
+        this.decodeChars = new char[1 << (maxLength + 1)];
+        String[] decodeStrings = new String[decodeChars.length];
+        boolean[] taken = new boolean[decodeChars.length];
+        boolean hasStrings = false;
+        for (Map.Entry<String, String> entry : codes.entrySet()) {
+            String code = entry.getValue();
+            if (code.indexOf(' ') >= 0) {
+                continue; // Several codes: can be encoded, but not decoded as one symbol.
+            }
+            int node = 1;
+            for (int i = 0; i < code.length(); i++) {
+                node = (node << 1) | (code.charAt(i) == '-' ? 1 : 0);
+            }
+            if (taken[node]) {
+                continue;
+            }
+            taken[node] = true;
+            String symbol = entry.getKey();
+            if (symbol.length() == 1) {
+                decodeChars[node] = symbol.charAt(0);
+            } else {
+                decodeStrings[node] = symbol;
+                hasStrings = true;
+            }
+        }
+        this.decodeStrings = hasStrings ? decodeStrings : null;
+
+        // Tokens: matched by the encoder whenever one of their first chars shows up.
+        Set<String> prefixes = new HashSet<>();
+        StringBuilder starts = new StringBuilder();
+        int longestToken = 0;
+        for (String token : tokenCodes.keySet()) {
+            for (int i = 1; i < token.length(); i++) {
+                prefixes.add(token.substring(0, i));
+            }
+            addStart(starts, token.charAt(0));
+            addStart(starts, Character.toLowerCase(token.charAt(0)));
+            longestToken = Math.max(longestToken, token.length());
+        }
+        this.tokenPrefixes = prefixes;
+        this.tokenStarts = starts.length() > 0 ? starts.toString() : null;
+        this.maxTokenLength = longestToken;
+    }
+
+    // --- Creating Alphabets ---
+
+    /**
+     * Reads an alphabet definition (see the class description for the format).
+     *
+     * @param name       A name for the alphabet, e.g. for display.
+     * @param definition The definition text; it is read completely but not closed.
+     * @return The compiled alphabet.
+     * @throws IOException              If reading fails.
+     * @throws IllegalArgumentException If a line is malformed, a code is invalid or longer
+     *                                  than {@link #MAX_CODE_LENGTH}, or a symbol is defined twice.
+     */
+    public static MorseAlphabet parse(String name, Reader definition) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(definition);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        return new MorseAlphabet(name, parseLines(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Loads an alphabet from a UTF-8 definition file. Its name is the file name
+     * without extension (e.g. "ukrainian" for {@code ukrainian.morse}).
+     *
+     * @param file The definition file.
+     * @return The compiled alphabet.
+     * @throws IOException              If the file cannot be read.
+     * @throws IllegalArgumentException If the definition is malformed (see {@link #parse(String, Reader)}).
+     */
+    public static MorseAlphabet load(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String name = dot > 0 ? fileName.substring(0, dot) : fileName;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(name, reader);
+        }
+    }
+
+    /**
+     * Returns a built-in alphabet by name, ignoring case
+     * ("ITU", "Prosigns", "Cyrillic", "Greek" or "Wabun").
+     *
+     * @throws IllegalArgumentException If there is no built-in alphabet with that name.
+     */
+    public static MorseAlphabet forName(String name) {
+        for (MorseAlphabet alphabet : BUILT_IN) {
+            if (alphabet.name.equalsIgnoreCase(name)) {
+                return alphabet;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Morse alphabet: " + name);
+    }
+
+    // --- Accessors ---
+
+    public String getName() {
+        return name;
+    }
+
+    /** Every symbol and its code(s), in definition order (read-only). */
+    public Map<String, String> getCodes() {
+        return codes;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    // --- Compiled Structures (used by the engines) ---
+
+    /** Encode table for the given case-folding locale. */
+    EncodeTable encodeTable(Locale locale) {
+        String language = locale.getLanguage();
+        return language.equals("tr") || language.equals("az") ? turkicTable : defaultTable;
+    }
+
+    /** Single-char symbol at each decode tree node, or 0 (shared array, must not be modified). */
+    char[] decodeChars() {
+        return decodeChars;
+    }
+
+    /** Multi-char symbol at each decode tree node, or null if the alphabet has no tokens at all. */
+    String[] decodeStrings() {
+        return decodeStrings;
+    }
+
+    /** First chars of the alphabet's tokens, or null if it has none. */
+    String tokenStarts() {
+        return tokenStarts;
+    }
+
+    int maxTokenLength() {
+        return maxTokenLength;
+    }
+
+    /** Code of a token already upper-cased with {@link #upperCase(CharSequence)}, or null. */
+    String tokenCode(String upperCaseToken) {
+        return tokenCodes.get(upperCaseToken);
+    }
+
+    /** True if some token starts with (but is longer than) the given upper-cased text. */
+    boolean isTokenPrefix(String upperCaseText) {
+        return tokenPrefixes.contains(upperCaseText);
+    }
+
+    /**
+     * Upper-cases a token char by char, so it keeps its length (unlike
+     * {@code String.toUpperCase}, which turns '\u00DF' into "SS").
+     */
+    static String upperCase(CharSequence text) {
+        char[] upper = new char[text.length()];
+        for (int i = 0; i < upper.length; i++) {
+            upper[i] = Character.toUpperCase(text.charAt(i));
+        }
+        return new String(upper);
+    }
+
+    // --- Compilation ---
+
+    /**
+     * Returns the code for one char: the codes of its upper-case form, or its own code if
+     * that form is not mapped (so alphabets may also define lower-case symbols).
+     */
+    private String compileChar(char character, Locale locale) {
+        // Only mapped chars and chars with a case mapping can end up with a code; skipping
+        // the rest avoids a String per char (the upper-case forms of lower- and title-case
+        // letters include every multi-letter expansion such as '\u00DF' -> "SS").
+        if (!charCodes.containsKey(character) && !charCodes.containsKey(Character.toUpperCase(character))
+                && !Character.isLowerCase(character) && !Character.isTitleCase(character)) {
+            return null;
+        }
+        String code = joinCodes(String.valueOf(character).toUpperCase(locale));
+        return code != null ? code : charCodes.get(character);
+    }
+
+    /**
+     * Joins the codes of an upper-case form. Chars that upper-case to several letters
+     * (e.g. '\u00DF' to "SS") map to the codes of all of them, separated by a single space.
+     */
+    private String joinCodes(String upper) {
+        if (upper.length() == 1) {
+            return charCodes.get(upper.charAt(0));
+        }
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < upper.length(); i++) {
+            String code = charCodes.get(upper.charAt(i));
+            if (code != null) {
+                if (joined.length() > 0) {
+                    joined.append(' ');
+                }
+                joined.append(code);
+            }
+        }
+        return joined.length() > 0 ? joined.toString() : null;
+    }
+
+    private static void addStart(StringBuilder starts, char start) {
+        if (starts.indexOf(String.valueOf(start)) < 0) {
+            starts.append(start);
+        }
+    }
+
+    /** Parses definition lines into symbol -> code(s). */
+    private static Map<String, String> parseLines(String[] lines) {
+        Map<String, String> codes = new LinkedHashMap<>();
+        for (int number = 1; number <= lines.length; number++) {
+            String line = lines[number - 1].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            StringTokenizer parts = new StringTokenizer(line);
+            String symbol = parts.nextToken();
+            StringBuilder code = new StringBuilder();
+            while (parts.hasMoreTokens()) {
+                String part = parts.nextToken();
+                if (part.startsWith("#")) {
+                    break; // Trailing comment
+                }
+                if (part.length() > MAX_CODE_LENGTH || !isCode(part)) {
+                    throw new IllegalArgumentException("Line " + number + ": invalid Morse code '" + part + "'");
+                }
+                if (code.length() > 0) {
+                    code.append(' ');
+                }
+                code.append(part);
+            }
+            if (code.length() == 0) {
+                throw new IllegalArgumentException("Line " + number + ": missing Morse code for '" + symbol + "'");
+            }
+            if (codes.put(symbol, code.toString()) != null) {
+                throw new IllegalArgumentException("Line " + number + ": '" + symbol + "' is defined twice");
+            }
+        }
+        return codes;
+    }
+
+    private static boolean isCode(String part) {
+        for (int i = 0; i < part.length(); i++) {
+            if (part.charAt(i) != '.' && part.charAt(i) != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MorseAlphabet builtIn(String name, String[] definition) {
+        return new MorseAlphabet(name, parseLines(definition));
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] lines = new String[first.length + second.length];
+        System.arraycopy(first, 0, lines, 0, first.length);
+        System.arraycopy(second, 0, lines, first.length, second.length);
+        return lines;
+    }
+
+    /**
+     * The encode table for one case-folding rule: {@code pages()[c >>> 8][c & 0xFF]} is the
+     * Morse code of char {@code c}, or null if {@code c} is not encoded.
+     *
+     * The table is split into 256 pages of 256 chars, and a page is only compiled the first
+     * time one of its chars is encoded: page 0 (ASCII and Latin-1) covers almost all input,
+     * so the other 255 pages usually never need to be built. A page that is still missing
+     * is null in {@code pages()}; the engines then call {@link #page(int)}.
+     */
+    final class EncodeTable {
+        private final Locale locale;
+        // Replaced (never modified) when a page is added, so readers always see complete pages.
+        private volatile String[][] pages = new String[PAGE_COUNT][];
+
+        private EncodeTable(Locale locale) {
+            this.locale = locale;
+        }
+
+        /** The pages compiled so far (shared arrays: callers must not modify them). */
+        String[][] pages() {
+            return pages;
+        }
+
+        /** Returns a page, compiling it if needed. */
+        synchronized String[] page(int index) {
+            String[] page = pages[index];
+            if (page == null) {
+                page = new String[PAGE_SIZE];
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    page[i] = compileChar((char) ((index << PAGE_BITS) | i), locale);
+                }
+                String[][] updated = pages.clone();
+                updated[index] = page;
+                pages = updated;
+            }
+            return page;
+        }
+    }
+
+    // --- Built-in Definitions ---
+
+    private static String[] ituDefinition() {
+        return concat(new String[] {
+                // Letters
+                "A .-", "B -...", "C -.-.", "D -..", "E .", "F ..-.", "G --.", "H ....", "I ..",
+                "J .---", "K -.-", "L .-..", "M --", "N -.", "O ---", "P .--.", "Q --.-", "R .-.",
+                "S ...", "T -", "U ..-", "V ...-", "W .--", "X -..-", "Y -.--", "Z --..",
+        }, ituSigns());
+    }
+
+    /** ITU digits and punctuation, shared by the alphabets that have their own letters. */
+    private static String[] ituSigns() {
+        return concat(ituDigits(), new String[] {
+                ". .-.-.-     # Period",
+                ", --..--     # Comma",
+                "? ..--..     # Question Mark",
+                "' .----.     # Apostrophe",
+                "! -.-.--     # Exclamation Mark",
+                "/ -..-.      # Slash",
+                "( -.--.      # Opening Parenthesis",
+                ") -.--.-     # Closing Parenthesis",
+                "& .-...      # Ampersand",
+                ": ---...     # Colon",
+                "; -.-.-.     # Semicolon",
+                "= -...-      # Equals sign",
+                "+ .-.-.      # Plus sign",
+                "- -....-     # Hyphen/Dash",
+                "_ ..--.-     # Underscore",
+                "\" .-..-.    # Quotation Mark",
+                "$ ...-..-    # Dollar sign",
+                "@ .--.-.     # At sign",
+        });
+    }
+
+    private static String[] ituDigits() {
+        return new String[] {
+                "0 -----", "1 .----", "2 ..---", "3 ...--", "4 ....-",
+                "5 .....", "6 -....", "7 --...", "8 ---..", "9 ----.",
+        };
+    }
+
+    /** Procedural signs. They come before the ITU signs, so "-...-" decodes to "<BT>", not "=". */
+    private static String[] prosignDefinition() {
+        return new String[] {
+                "<AA> .-.-         # New line",
+                "<AR> .-.-.        # End of message",
+                "<AS> .-...        # Wait",
+                "<BK> -...-.-      # Break",
+                "<BT> -...-        # New paragraph",
+                "<CL> -.-..-..     # Closing down",
+                "<CT> -.-.-        # Start of transmission",
+                "<DO> -..---       # Change to Wabun code",
+                "<HH> ........     # Error",
+                "<KN> -.--.        # Invitation to a named station",
+                "<SK> ...-.-       # End of contact",
+                "<SN> ...-.        # Understood",
+                "<SOS> ...---...   # Distress",
+        };
+    }
+
+    private static String[] cyrillicDefinition() {
+        return new String[] {
+                "\u0410 .-", "\u0411 -...", "\u0412 .--", "\u0413 --.", "\u0414 -..", "\u0415 .", "\u0416 ...-",
+                "\u0417 --..", "\u0418 ..", "\u0419 .---", "\u041A -.-", "\u041B .-..", "\u041C --",
+                "\u041D -.", "\u041E ---", "\u041F .--.", "\u0420 .-.", "\u0421 ...", "\u0422 -", "\u0423 ..-",
+                "\u0424 ..-.", "\u0425 ....", "\u0426 -.-.", "\u0427 ---.", "\u0428 ----", "\u0429 --.-",
+                "\u042A --.--", "\u042B -.--", "\u042C -..-", "\u042D ..-..", "\u042E ..--", "\u042F .-.-",
+                "\u0401 .          # Sent as \u0415",
+        };
+    }
+
+    private static String[] greekDefinition() {
+        return new String[] {
+                "\u0391 .-", "\u0392 -...", "\u0393 --.", "\u0394 -..", "\u0395 .", "\u0396 --..",
+                "\u0397 ....", "\u0398 -.-.", "\u0399 ..", "\u039A -.-", "\u039B .-..", "\u039C --",
+                "\u039D -.", "\u039E -..-", "\u039F ---", "\u03A0 .--.", "\u03A1 .-.", "\u03A3 ...", "\u03A4 -",
+                "\u03A5 -.--", "\u03A6 ..-.", "\u03A7 ----", "\u03A8 --.-", "\u03A9 .--",
+        };
+    }
+
+    private static String[] wabunDefinition() {
+        String[] katakana = {
+                "\u30A4 .-", "\u30ED .-.-", "\u30CF -...", "\u30CB -.-.", "\u30DB -..", "\u30D8 .",
+                "\u30C8 ..-..", "\u30C1 ..-.", "\u30EA --.", "\u30CC ....", "\u30EB -.--.", "\u30F2 .---",
+                "\u30EF -.-", "\u30AB .-..", "\u30E8 --", "\u30BF -.", "\u30EC ---", "\u30BD ---.",
+                "\u30C4 .--.", "\u30CD --.-", "\u30CA .-.", "\u30E9 ...", "\u30E0 -", "\u30A6 ..-",
+                "\u30F0 .-..-", "\u30CE ..--", "\u30AA .-...", "\u30AF ...-", "\u30E4 .--", "\u30DE -..-",
+                "\u30B1 -.--", "\u30D5 --..", "\u30B3 ----", "\u30A8 -.---", "\u30C6 .-.--", "\u30A2 --.--",
+                "\u30B5 -.-.-", "\u30AD -.-..", "\u30E6 -..--", "\u30E1 -...-", "\u30DF ..-.-", "\u30B7 --.-.",
+                "\u30F1 .--..", "\u30D2 --..-", "\u30E2 -..-.", "\u30BB .---.", "\u30B9 ---.-", "\u30F3 .-.-.",
+                "\u309B ..        # Dakuten (voiced mark)",
+                "\u309C ..--.     # Handakuten (semi-voiced mark)",
+                "\u30FC .--.-     # Long vowel mark",
+                "\u3001 .-.-.-    # Comma",
+                "\u300D .-.-..    # Closing bracket",
+                "\uFF08 -.--.-",
+                "\uFF09 .-..-.",
+                // Voiced and semi-voiced kana are sent as the plain kana followed by the mark.
+                "\u30AC .-.. ..", "\u30AE -.-.. ..", "\u30B0 ...- ..", "\u30B2 -.-- ..", "\u30B4 ---- ..",
+                "\u30B6 -.-.- ..", "\u30B8 --.-. ..", "\u30BA ---.- ..", "\u30BC .---. ..", "\u30BE ---. ..",
+                "\u30C0 -. ..", "\u30C2 ..-. ..", "\u30C5 .--. ..", "\u30C7 .-.-- ..", "\u30C9 ..-.. ..",
+                "\u30D0 -... ..", "\u30D3 --..- ..", "\u30D6 --.. ..", "\u30D9 . ..", "\u30DC -.. ..",
+                "\u30D1 -... ..--.", "\u30D4 --..- ..--.", "\u30D7 --.. ..--.", "\u30DA . ..--.",
+                "\u30DD -.. ..--.",
+        };
+        // Hiragana is sent like the matching katakana (U+3041-U+3096 map to U+30A1-U+30F6).
+        List<String> lines = new ArrayList<>();
+        Collections.addAll(lines, katakana);
+        for (String line : katakana) {
+            char symbol = line.charAt(0);
+            if (symbol >= '\u30A1' && symbol <= '\u30F6') {
+                lines.add(String.valueOf((char) (symbol - 0x60)).concat(line.substring(1)));
+            }
+        }
+        return lines.toArray(new String[0]);
+    }
+}
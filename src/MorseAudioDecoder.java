@@ -0,0 +1,180 @@
+/**
+ * Decodes Morse code audio back into text (the inverse of {@link MorseAudioPlayer}).
+ *
+ * The decoder works incrementally on 16-bit signed little-endian mono PCM, in the same
+ * format the player produces, and goes through these stages as samples arrive:
+ * 1. Tone detection: a Goertzel filter tuned to the tone frequency measures the tone's
+ *    power over short blocks of samples (about 4 ms each).
+ * 2. Keying: the power is compared against a threshold that follows the signal's peak
+ *    level, giving key-down and key-up edges.
+ * 3. Timing: the length of each mark (tone) and gap (silence) is classified against an
+ *    adaptive estimate of the dit and dah lengths, so the decoder follows changes in speed.
+ * 4. Text: dots, dashes and gaps are written as Morse code text and fed through a
+ *    {@link MorseDecoder}, just like {@link MorseCodeTranslator#morseCodeToLetters(String)}.
+ * Stages 3 and 4 are a {@link MorseKeyerDecoder}, the same one that decodes a manual key.
+ */
+public class MorseAudioDecoder {
+
+    // --- Detection Settings ---
+    private static final double BLOCK_SECONDS = 0.004;   // Length of one Goertzel block
+    private static final double KEY_DOWN_RATIO = 0.25;   // Power (relative to peak) that counts as key down
+    private static final double KEY_UP_RATIO = 0.10;     // Power (relative to peak) that counts as key up
+    private static final double PEAK_DECAY = 0.9995;     // Per-block decay of the peak level (half-life ~5 s)
+    private static final double MIN_AMPLITUDE = 0.005;   // Tones quieter than this (vs full scale) are ignored
+
+    private final int blockSize;       // Samples per Goertzel block
+    private final double blockMs;      // Duration of one block in milliseconds
+    private final double coefficient;  // Goertzel coefficient 2*cos(2*pi*f/fs)
+    private final double minPower;     // Power of a block at MIN_AMPLITUDE
+
+    // --- Goertzel State ---
+    private double s1;
+    private double s2;
+    private int blockFill;             // Samples accumulated in the current block
+    private int pendingLowByte = -1;   // Low byte of a sample split across two calls
+
+    // --- Keying State ---
+    private double peakPower;
+    private boolean keyDown;
+    private int runBlocks;             // Length of the current mark or gap in blocks
+    private boolean seenMark;          // Leading silence before the first mark is ignored
+
+    // --- Output ---
+    private final MorseKeyerDecoder keyer; // Timing classification and text
+    private boolean finished;
+
+    /**
+     * Creates a decoder for audio as produced by {@link MorseAudioPlayer}:
+     * 44.1 kHz, a 700 Hz tone, and an initial speed guess of 60 ms per unit.
+     */
+    public MorseAudioDecoder() {
+        this(44100, 700, 60);
+    }
+
+    /**
+     * Creates a decoder for the given audio settings.
+     *
+     * @param sampleRate     The sample rate of the audio in samples per second.
+     * @param frequencyHz    The frequency of the Morse tone in Hz.
+     * @param initialUnitMs  A first guess of the unit length; the decoder adapts from there.
+     */
+    public MorseAudioDecoder(float sampleRate, int frequencyHz, int initialUnitMs) {
+        this.blockSize = Math.max(1, (int) Math.round(sampleRate * BLOCK_SECONDS));
+        this.blockMs = blockSize * 1000.0 / sampleRate;
+        this.coefficient = 2 * Math.cos(2 * Math.PI * frequencyHz / sampleRate);
+        double minMagnitude = MIN_AMPLITUDE * blockSize / 2;
+        this.minPower = minMagnitude * minMagnitude;
+        this.keyer = new MorseKeyerDecoder(initialUnitMs, MorseAlphabet.ITU, null);
+    }
+
+    /**
+     * Decodes a complete PCM recording.
+     * @param pcm 16-bit signed little-endian mono samples at 44.1 kHz with a 700 Hz tone.
+     * @return The decoded text.
+     */
+    public static String decode(byte[] pcm) {
+        MorseAudioDecoder decoder = new MorseAudioDecoder();
+        decoder.accept(pcm, 0, pcm.length);
+        decoder.finish();
+        return decoder.getText();
+    }
+
+    /**
+     * Feeds the next piece of audio to the decoder. Pieces may have any length,
+     * even an odd number of bytes.
+     *
+     * @param pcm    16-bit signed little-endian mono samples.
+     * @param offset Index of the first byte to read.
+     * @param length Number of bytes to read.
+     */
+    public void accept(byte[] pcm, int offset, int length) {
+        if (finished) {
+            throw new IllegalStateException("Decoder already finished");
+        }
+        int i = offset;
+        int end = offset + length;
+        if (pendingLowByte >= 0 && i < end) {
+            addSample((short) ((pcm[i++] << 8) | pendingLowByte));
+            pendingLowByte = -1;
+        }
+        for (; i + 1 < end; i += 2) {
+            addSample((short) ((pcm[i + 1] << 8) | (pcm[i] & 0xFF)));
+        }
+        if (i < end) {
+            pendingLowByte = pcm[i] & 0xFF;
+        }
+    }
+
+    /**
+     * Signals the end of the audio: the last mark and symbol are flushed.
+     * No more audio can be fed afterwards.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        if (keyDown) {
+            keyer.mark(runBlocks * blockMs);
+        }
+        keyer.finish();
+        finished = true;
+    }
+
+    /** The Morse code decoded so far (e.g. "... --- ..."). */
+    public String getMorse() {
+        return keyer.getMorse();
+    }
+
+    /** The text decoded so far. The last character appears once its gap (or the end) is seen. */
+    public String getText() {
+        return keyer.getText();
+    }
+
+    /** Current estimate of the unit length in milliseconds. */
+    public double getUnitMs() {
+        return keyer.getUnitMs();
+    }
+
+    // --- Stage 1: Goertzel tone detection ---
+
+    private void addSample(short sample) {
+        double s0 = sample / 32768.0 + coefficient * s1 - s2;
+        s2 = s1;
+        s1 = s0;
+        if (++blockFill == blockSize) {
+            double power = s1 * s1 + s2 * s2 - coefficient * s1 * s2;
+            s1 = 0;
+            s2 = 0;
+            blockFill = 0;
+            addBlock(power);
+        }
+    }
+
+    // --- Stage 2: key-down / key-up edges ---
+
+    private void addBlock(double power) {
+        peakPower = Math.max(peakPower * PEAK_DECAY, power);
+        boolean down;
+        if (peakPower < minPower) {
+            down = false;
+        } else if (keyDown) {
+            down = power > peakPower * KEY_UP_RATIO; // Hysteresis: stay down until clearly off
+        } else {
+            down = power > peakPower * KEY_DOWN_RATIO;
+        }
+
+        if (down == keyDown) {
+            runBlocks++;
+            return;
+        }
+        double durationMs = runBlocks * blockMs;
+        if (keyDown) {
+            seenMark = true;
+            keyer.mark(durationMs);
+        } else if (seenMark) {
+            keyer.gap(durationMs);
+        }
+        keyDown = down;
+        runBlocks = 1;
+    }
+}
@@ -1,16 +1,23 @@
 import javax.sound.sampled.*;
-import javax.swing.JOptionPane; /* Used for showing errors if audio line is unavailable */
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
 
 public class MorseAudioPlayer {
 
     // --- Audio Configuration ---
-    private static final float SAMPLE_RATE = 44100; // Standard audio sample rate (samples per second)
+    // The sample rate, tone frequency and amplitude come from the MorseSynthesizer.
     private static final int BITS_PER_SAMPLE = 16;  // 16-bit audio
     private static final int CHANNELS = 1;          // Mono audio
     private static final boolean SIGNED = true;     // Signed PCM audio
     private static final boolean BIG_ENDIAN = false; // Little-endian (standard for Java's AudioSystem default)
 
-    private static final int FREQUENCY_HZ = 700;    // The frequency of the Morse tone (700 Hz is a common choice)
+    // --- Streaming Configuration ---
+    private static final int BLOCK_MS = 20;          // Playback is streamed to the line in blocks of this length
+    private static final int LINE_BUFFER_BLOCKS = 4; // Size of the audio line's own buffer, in blocks
 
     // --- Morse Timing Units ---
     // All Morse timings are relative to a 'unit' duration.
@@ -19,102 +26,51 @@ public class MorseAudioPlayer {
     // - Inter-element gap (between dot/dash within a character): 1 unit
     // - Inter-character gap (between characters within a word): 3 units
     // - Inter-word gap (between words): 7 units
+    // Farnsworth spacing and weighting adjust these; see MorseTimeline.Timing.
 
-    private final int unitDurationMs; // The base unit duration in milliseconds (controls playback speed)
+    private final MorseWaveforms waveforms; // Precomputed dit/dah tones for this timing
+    private volatile MorseCache<String, ByteBuffer> renderCache; // Rendered messages, or null if not cached
 
     /**
      * Constructor for the MorseAudioPlayer.
+     * Plays a 700 Hz tone at 70% of full scale, sampled at 44.1 kHz, with 5 ms rise and fall
+     * (see {@link MorseSynthesizer#DEFAULT}).
      * @param unitDurationMs The duration of one Morse 'unit' in milliseconds.
      * A smaller value means faster Morse code.
      */
     public MorseAudioPlayer(int unitDurationMs) {
-        this.unitDurationMs = unitDurationMs;
+        this(unitDurationMs, MorseSynthesizer.DEFAULT);
     }
 
     /**
-     * Generates and plays a sine wave tone for a given duration.
-     * @param durationMs The duration of the tone in milliseconds.
+     * Constructor for a MorseAudioPlayer with its own tone.
+     * @param unitDurationMs The duration of one Morse 'unit' in milliseconds.
+     * @param synthesizer    The frequency, amplitude, sample rate and rise time of the tone.
      */
-    private void playTone(int durationMs) {
-        if (durationMs <= 0) return; // Don't play tones of zero or negative duration
-
-        int numSamples = (int) (durationMs * SAMPLE_RATE / 1000);
-        byte[] buffer = new byte[numSamples * (BITS_PER_SAMPLE / 8)]; // Each sample is 2 bytes for 16-bit audio
-
-        // Generate sine wave samples
-        for (int i = 0; i < numSamples; i++) {
-            double angle = 2.0 * Math.PI * FREQUENCY_HZ * i / SAMPLE_RATE;
-            // Scale to 16-bit signed short range, use 0.7 amplitude to avoid clipping
-            short sample = (short) (Short.MAX_VALUE * Math.sin(angle) * 0.7); 
-            
-            // Convert short to 2 bytes (little-endian)
-            buffer[i * 2] = (byte) (sample & 0xFF);         // Lower byte
-            buffer[i * 2 + 1] = (byte) ((sample >> 8) & 0xFF); // Upper byte
-        }
-
-        try {
-            // Define the audio format
-            AudioFormat format = new AudioFormat(SAMPLE_RATE, BITS_PER_SAMPLE, CHANNELS, SIGNED, BIG_ENDIAN);
-            // Get a data line for playback
-            DataLine.Info info = new DataLine.Info(SourceDataLine.class, format);
-            SourceDataLine line = (SourceDataLine) AudioSystem.getLine(info);
-            
-            line.open(format); // Open the line with the specified format
-            line.start();      // Start playback
-            line.write(buffer, 0, buffer.length); // Write the audio data
-            line.drain();      // Wait for all data to be played
-            line.stop();       // Stop the line
-            line.close();      // Close the line to release resources
-        } catch (LineUnavailableException e) {
-            // Handle cases where audio line is not available (e.g., no sound card, in use)
-            System.err.println("Audio line unavailable: " + e.getMessage());
-            // In a GUI application, it's better to show a dialog
-            JOptionPane.showMessageDialog(null, 
-                "Error: Audio playback is not available. Please check your sound device.", 
-                "Audio Playback Error", JOptionPane.ERROR_MESSAGE);
-        } catch (IllegalArgumentException e) {
-            System.err.println("Illegal argument for audio: " + e.getMessage());
-        }
+    public MorseAudioPlayer(int unitDurationMs, MorseSynthesizer synthesizer) {
+        this(new MorseTimeline.Timing(unitDurationMs), synthesizer);
     }
 
     /**
-     * Plays silence (pauses execution) for a given duration.
-     * @param durationMs The duration of the silence in milliseconds.
+     * Constructor for a MorseAudioPlayer with its own timing and tone, e.g. Farnsworth
+     * spacing: {@code new MorseAudioPlayer(MorseTimeline.Timing.ofWpm(20, 10, 0), MorseSynthesizer.DEFAULT)}.
+     * @param timing      The durations of elements and gaps.
+     * @param synthesizer The frequency, amplitude, sample rate and rise time of the tone.
      */
-    private void playSilence(int durationMs) {
-        if (durationMs <= 0) return; // Don't sleep for non-positive durations
-        try {
-            Thread.sleep(durationMs); // Pause the current thread
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Restore the interrupted status
-            System.err.println("Morse audio playback interrupted.");
-        }
+    public MorseAudioPlayer(MorseTimeline.Timing timing, MorseSynthesizer synthesizer) {
+        this.waveforms = MorseWaveforms.get(timing, synthesizer);
     }
 
-    // --- Morse Symbol Playback Methods ---
-
-    /** Plays a Morse dot (Dit) followed by inter-element silence. */
-    private void playDit() {
-        playTone(unitDurationMs);       // Tone for 1 unit
-        playSilence(unitDurationMs);    // Silence for 1 unit (inter-element gap)
-    }
-
-    /** Plays a Morse dash (Dah) followed by inter-element silence. */
-    private void playDah() {
-        playTone(unitDurationMs * 3);   // Tone for 3 units
-        playSilence(unitDurationMs);    // Silence for 1 unit (inter-element gap)
-    }
-
-    /** Plays the additional silence required for an inter-character gap (total 3 units). */
-    private void playInterCharacterSpace() {
-        // We already played 1 unit of silence after the last tone, so add 2 more.
-        playSilence(unitDurationMs * 2); 
-    }
-
-    /** Plays the additional silence required for an inter-word gap (total 7 units). */
-    private void playInterWordSpace() {
-        // We already played 1 unit of silence after the last tone, so add 6 more.
-        playSilence(unitDurationMs * 6);
+    /**
+     * Returns the timeline this player would play for a Morse code string, in samples at its
+     * sample rate. Use it to drive other outputs with the same timing as the audio, e.g. a
+     * keying line: {@code player.timelineOf(morse).key(pin)}.
+     *
+     * @param morseCode The Morse code string.
+     * @return The key-down and key-up durations of the message.
+     */
+    public MorseTimeline timelineOf(String morseCode) {
+        return MorseTimeline.fromMorseCode(morseCode, waveforms.getTiming(), waveforms.getSampleRate());
     }
 
     /**
@@ -124,53 +80,157 @@ public class MorseAudioPlayer {
      * with appropriate timing. Pauses for inter-element, inter-character,
      * and inter-word gaps are included.
      *
+     * The whole message is played as one continuous PCM stream on a single audio line,
+     * with silences written as zero samples, so the timing is sample-accurate.
+     * This blocks until the message has been played; interrupting the thread stops it.
+     * Use {@link #startPlayback(String, MorsePlayback.Listener)} to control playback instead.
+     *
      * @param morseCode The Morse code string to play (e.g., ".... . .-.. .-.. --- / .-- --- .-. .-.. -..").
+     * @throws IllegalStateException If no audio line is available.
      */
     public void playMorseCode(String morseCode) {
         if (morseCode == null || morseCode.isEmpty()) {
             return;
         }
+        openPlayback(morseCode, null).run();
+    }
 
-        // Clean up leading/trailing spaces and normalize multiple word separators
-        String cleanedMorse = morseCode.trim().replaceAll(" +", " ").replaceAll(" */ *", " / ").trim();
-        if (cleanedMorse.isEmpty()) { // Check if it's empty after cleaning
-            return;
+    /**
+     * Starts playing the given Morse code string on a background thread and returns at once.
+     * The returned session can pause, resume, stop and seek playback, and the listener is
+     * told when each symbol is heard (e.g. to blink a light along with the audio).
+     *
+     * @param morseCode The Morse code string to play.
+     * @param listener  Receives progress events on the playback thread, or null.
+     * @return The running session; it is already finished if there is nothing to play.
+     * @throws IllegalStateException If no audio line is available.
+     */
+    public MorsePlayback startPlayback(String morseCode, MorsePlayback.Listener listener) {
+        MorsePlayback playback = openPlayback(morseCode, listener);
+        Thread thread = new Thread(playback::run, "morse-playback");
+        thread.setDaemon(true);
+        thread.start();
+        return playback;
+    }
+
+    /** Opens a line for a message and wraps both in a session that has not started yet. */
+    private MorsePlayback openPlayback(String morseCode, MorsePlayback.Listener listener) {
+        MorsePcmStream pcm = new MorsePcmStream(morseCode, waveforms);
+        if (pcm.length() == 0) { // Nothing to play after cleaning
+            return new MorsePlayback(pcm, null, 0, waveforms.bytesFor(1000), listener);
+        }
+
+        AudioFormat format = audioFormat();
+        int blockBytes = waveforms.bytesFor(BLOCK_MS);
+        SourceDataLine line;
+        try {
+            // Open the line once for the whole message
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, blockBytes * LINE_BUFFER_BLOCKS);
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            // No sound card, line in use, or no line supporting the format. Report it to the
+            // caller (the GUI shows a dialog) rather than opening one here, which would hang
+            // headless JVMs.
+            throw new IllegalStateException("Audio playback is not available. Please check your sound device.", e);
+        }
+        return new MorsePlayback(pcm, line, blockBytes, waveforms.bytesFor(1000), listener);
+    }
+
+    // --- Offline Rendering (no sound device needed) ---
+
+    /**
+     * Renders the given Morse code string into PCM samples without playing it.
+     * The timing is exactly the same as {@link #playMorseCode(String)} uses.
+     * With a render cache (see {@link #enableRenderCache(long, long, TimeUnit)}), repeated
+     * messages are only rendered once and the buffer returned is read-only.
+     *
+     * @param morseCode The Morse code string to render.
+     * @return A buffer of 16-bit signed little-endian mono samples at the synthesizer's sample rate.
+     * @throws IllegalArgumentException If the audio would not fit in a single buffer
+     *                                  (use {@link #renderToWav(String, OutputStream)} instead).
+     */
+    public ByteBuffer renderMorseCode(String morseCode) {
+        MorseCache<String, ByteBuffer> cache = renderCache;
+        if (cache == null) {
+            return render(morseCode);
         }
+        // Each caller gets its own position and limit over the shared samples.
+        return cache.get(morseCode, this::render).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
 
-        // Split the entire Morse string into words using " / " as the delimiter
-        String[] words = cleanedMorse.split(" / ");
-
-        for (int i = 0; i < words.length; i++) {
-            String word = words[i]; 
-
-            if (!word.isEmpty()) { // Only process non-empty word segments
-                // Split each word into individual Morse characters using a single space as delimiter
-                String[] chars = word.split(" "); 
-                for (int j = 0; j < chars.length; j++) {
-                    String morseChar = chars[j];
-                    if (!morseChar.isEmpty()) { // Only process non-empty Morse character sequences
-                        // Play each dot or dash within the character
-                        for (char symbol : morseChar.toCharArray()) {
-                            if (symbol == '.') {
-                                playDit();
-                            } else if (symbol == '-') {
-                                playDah();
-                            }
-                            // Any other symbol encountered is ignored for playback (e.g., '?')
-                        }
-                    }
-                    // Add inter-character space if not the last character in the current word
-                    if (j < chars.length - 1) { 
-                        playInterCharacterSpace(); 
-                    }
-                }
-            }
-
-            // Add inter-word space if not the last word in the overall message
-            if (i < words.length - 1) { 
-                playInterWordSpace(); 
-            }
+    /**
+     * Caches the PCM returned by {@link #renderMorseCode(String)}, keyed by the Morse code.
+     * Worth it when the same messages (call signs, canned phrases) are rendered again and
+     * again: rendering costs far more than looking a message up.
+     *
+     * @param maxBytes The PCM bytes the cache may hold; the least recently used messages are evicted.
+     *                 Messages longer than 1/16 of it are not cached (one second of audio is 88 KB).
+     * @param ttl      How long a rendered message is kept; 0 to keep it until evicted.
+     * @param unit     The unit of {@code ttl}.
+     * @return The new cache, e.g. to read its hit rate.
+     */
+    public MorseCache<String, ByteBuffer> enableRenderCache(long maxBytes, long ttl, TimeUnit unit) {
+        MorseCache<String, ByteBuffer> cache = new MorseCache<>(maxBytes, ttl, unit,
+                (morse, pcm) -> pcm.capacity() + 2L * morse.length());
+        renderCache = cache;
+        return cache;
+    }
+
+    private ByteBuffer render(String morseCode) {
+        MorsePcmStream pcm = new MorsePcmStream(morseCode, waveforms);
+        if (pcm.length() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Morse message is too long to render into memory; render it to a WAV stream instead");
         }
+        if (MorseMetrics.ENABLED) {
+            MorseMetrics.samplesRendered(pcm.length() / MorseWaveforms.BYTES_PER_SAMPLE);
+        }
+        byte[] samples = new byte[(int) pcm.length()];
+        int offset = 0;
+        int read;
+        while (offset < samples.length && (read = pcm.read(samples, offset, samples.length - offset)) != -1) {
+            offset += read;
+        }
+        return ByteBuffer.wrap(samples).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Renders the given Morse code string as a WAV file written to {@code out}.
+     * The samples are streamed straight from the precomputed tones, so memory use does not
+     * depend on the length of the message. The stream is not closed.
+     *
+     * @param morseCode The Morse code string to render.
+     * @param out       The destination for the WAV data.
+     * @throws IOException If writing fails.
+     */
+    public void renderToWav(String morseCode, OutputStream out) throws IOException {
+        AudioSystem.write(wavStream(morseCode), AudioFileFormat.Type.WAVE, out);
+        out.flush();
+    }
+
+    /**
+     * Renders the given Morse code string as a WAV file on disk.
+     *
+     * @param morseCode The Morse code string to render.
+     * @param file      The WAV file to create or overwrite.
+     * @throws IOException If writing fails.
+     */
+    public void renderToWav(String morseCode, Path file) throws IOException {
+        AudioSystem.write(wavStream(morseCode), AudioFileFormat.Type.WAVE, file.toFile());
+    }
+
+    /** Wraps the PCM stream for a message with its format and length. */
+    private AudioInputStream wavStream(String morseCode) {
+        MorsePcmStream pcm = new MorsePcmStream(morseCode, waveforms);
+        if (MorseMetrics.ENABLED) {
+            MorseMetrics.samplesRendered(pcm.length() / MorseWaveforms.BYTES_PER_SAMPLE);
+        }
+        AudioFormat format = audioFormat();
+        return new AudioInputStream(pcm, format, pcm.length() / format.getFrameSize());
+    }
+
+    /** The format of everything this player plays and renders. */
+    private AudioFormat audioFormat() {
+        return new AudioFormat(waveforms.getSampleRate(), BITS_PER_SAMPLE, CHANNELS, SIGNED, BIG_ENDIAN);
     }
 
     // Optional: Main method for testing MorseAudioPlayer independently
@@ -0,0 +1,534 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A compact binary form of Morse code, for storing and moving large amounts of traffic.
+ *
+ * Every element and gap takes 2 bits, four to a byte, first in the high bits:
+ * <pre>
+ *   00  dot        01  dash
+ *   10  letter gap 11  word gap
+ * </pre>
+ * So ".- / -..." is stored in 2 bytes instead of 10 characters. Letter gaps cost as much as
+ * elements and a word gap replaces the three characters of " / ", which makes the binary
+ * form a little more than 4 times smaller than the text form. The last byte is padded with
+ * letter gaps, which, like gaps at the start or two gaps in a row, mean nothing.
+ *
+ * The data follows a header (see {@link Header}) holding the alphabet the code was
+ * written with (its name, plus its full definition unless it is built in) and the timing
+ * it is meant to be sent at. There is no length field: the data runs to the end of the file.
+ *
+ * When the text form is packed, any whitespace (space, tab, line break) is a letter gap,
+ * and a run of blanks containing a '/' is a word gap. What comes back is the canonical form
+ * {@link MorseCodeTranslator#lettersToMorseCode(String)} writes (codes separated by one
+ * space, words by " / "), so that form survives a round trip unchanged, and so does what it
+ * decodes to. Other text may decode differently once packed:
+ * {@link MorseCodeTranslator#morseCodeToLetters(String)} only splits symbols at spaces and
+ * '/', and reads a tab or line break inside a symbol as making it unknown. ".\t-" decodes
+ * to "?" but packs as ". -", which decodes to "ET". Decoding to plain text drives the
+ * {@link MorseDecoder} tree walk directly from the 2-bit codes, skipping the four times
+ * longer text form entirely.
+ *
+ * {@link Writer} and {@link Reader} stream the format; {@link #fromMorseCode}, {@link #fromText},
+ * {@link #toMorseCode} and {@link #toText} convert whole messages.
+ */
+public final class MorseBinary {
+
+    // --- Codes ---
+    static final int DOT = 0;
+    static final int DASH = 1;
+    static final int LETTER_GAP = 2;
+    static final int WORD_GAP = 3;
+    private static final int NO_GAP = -1;
+
+    // --- File Layout ---
+    private static final byte[] MAGIC = {'M', 'R', 'S', 'B'};
+    private static final int VERSION = 1;
+    private static final int FLAG_DEFINITION = 1;  // The alphabet's definition follows its name
+    private static final int BUFFER_BYTES = 8192;
+
+    // --- Decoding Tables ---
+    // Each byte value split into runs: RUNS[b][0] is the run of elements before its first gap,
+    // and each further entry a gap followed by the elements after it. A run of elements is
+    // (count << 4) | bits, the first element in the highest bit and 1 for a dash; a gap entry
+    // adds its code shifted left by 8. Reading a byte then costs a lookup and a step per run.
+    private static final int[][] RUNS = new int[256][];
+    // The text of each run of elements, indexed by (count << 4) | bits
+    private static final String[] ELEMENTS = new String[5 << 4];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            int[] runs = new int[5];
+            int size = 1;
+            for (int shift = 6; shift >= 0; shift -= 2) {
+                int code = (b >>> shift) & 3;
+                if (code >= LETTER_GAP) {
+                    runs[size++] = code << 8;
+                } else {
+                    int run = runs[size - 1];
+                    int count = ((run >>> 4) & 15) + 1;
+                    runs[size - 1] = (run & ~0xFF) | (count << 4) | (((run & 15) << 1) | code);
+                }
+            }
+            RUNS[b] = Arrays.copyOf(runs, size);
+        }
+        for (int count = 0; count <= 4; count++) {
+            for (int bits = 0; bits < 1 << count; bits++) {
+                char[] text = new char[count];
+                for (int i = 0; i < count; i++) {
+                    text[i] = ((bits >>> (count - 1 - i)) & 1) == 0 ? '.' : '-';
+                }
+                ELEMENTS[(count << 4) | bits] = new String(text);
+            }
+        }
+    }
+
+    private MorseBinary() {
+    }
+
+    // --- Whole Messages ---
+
+    /** Converts Morse code text to the binary form, with the default header. */
+    public static byte[] fromMorseCode(String morse) {
+        return fromMorseCode(morse, Header.DEFAULT);
+    }
+
+    /**
+     * Converts Morse code text to the binary form.
+     * @throws IllegalArgumentException If the text holds anything but '.', '-', '/' and whitespace.
+     */
+    public static byte[] fromMorseCode(String morse, Header header) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(morse.length() / 4 + 64);
+        try (Writer writer = new Writer(bytes, header)) {
+            writer.writeMorse(morse);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Cannot happen: the stream is in memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Encodes plain text straight into the binary form, with the default header (ITU). */
+    public static byte[] fromText(String text) {
+        return fromText(text, Header.DEFAULT);
+    }
+
+    /** Encodes plain text straight into the binary form, with the header's alphabet. */
+    public static byte[] fromText(String text, Header header) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() + 64);
+        try (Writer writer = new Writer(bytes, header)) {
+            writer.writeText(text);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Cannot happen: the stream is in memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Converts the binary form back to Morse code text.
+     * @throws IllegalArgumentException If the data does not start with a valid header.
+     */
+    public static String toMorseCode(byte[] data) {
+        StringBuilder out = new StringBuilder(data.length * 4);
+        try (Reader reader = new Reader(new ByteArrayInputStream(data))) {
+            while (reader.readMorse(out)) {
+                // Keep reading
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not valid Morse binary data: " + e.getMessage(), e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Decodes the binary form to plain text with the alphabet named in its header.
+     * @throws IllegalArgumentException If the data does not start with a valid header.
+     */
+    public static String toText(byte[] data) {
+        StringBuilder out = new StringBuilder(data.length * 2);
+        try (Reader reader = new Reader(new ByteArrayInputStream(data))) {
+            while (reader.readText(out)) {
+                // Keep reading
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not valid Morse binary data: " + e.getMessage(), e);
+        }
+        return out.toString();
+    }
+
+    // --- Header ---
+
+    /**
+     * What a file says about its content: the alphabet, and the speed and pitch it is meant
+     * to be sent at. Stored big-endian as:
+     * <pre>
+     *   "MRSB"               magic
+     *   u8   version         1
+     *   u8   flags           bit 0: the alphabet's definition follows its name
+     *   u16  wpm             character speed ("PARIS" timing)
+     *   u16  effective wpm   overall speed; lower than wpm for Farnsworth spacing
+     *   u16  frequency       tone pitch in Hz
+     *   u16 + UTF-8          alphabet name
+     *   u32 + UTF-8          alphabet definition (see {@link MorseAlphabet}), if flagged
+     * </pre>
+     */
+    public static final class Header {
+
+        /** ITU alphabet, 20 WPM (60 ms units, what the GUI plays), default pitch. */
+        public static final Header DEFAULT = new Header(MorseAlphabet.ITU, 20, 20, MorseSynthesizer.DEFAULT_FREQUENCY_HZ);
+
+        private final MorseAlphabet alphabet;
+        private final int wpm;
+        private final int effectiveWpm;
+        private final int frequencyHz;
+
+        /**
+         * @param alphabet     The alphabet the code is written in.
+         * @param wpm          The character speed in words per minute (1 to 1200).
+         * @param effectiveWpm The overall speed, at most {@code wpm} (lower means Farnsworth spacing).
+         * @param frequencyHz  The tone pitch in Hz (1 to 65535).
+         */
+        public Header(MorseAlphabet alphabet, int wpm, int effectiveWpm, int frequencyHz) {
+            if (alphabet == null) {
+                throw new IllegalArgumentException("Alphabet must not be null");
+            }
+            if (wpm < 1 || wpm > 1200 || effectiveWpm < 1 || effectiveWpm > wpm) {
+                throw new IllegalArgumentException("Speed must be between 1 and 1200 WPM, effective speed at most that");
+            }
+            if (frequencyHz < 1 || frequencyHz > 0xFFFF) {
+                throw new IllegalArgumentException("Frequency must be between 1 and 65535 Hz");
+            }
+            this.alphabet = alphabet;
+            this.wpm = wpm;
+            this.effectiveWpm = effectiveWpm;
+            this.frequencyHz = frequencyHz;
+        }
+
+        public MorseAlphabet getAlphabet() {
+            return alphabet;
+        }
+
+        public int getWpm() {
+            return wpm;
+        }
+
+        public int getEffectiveWpm() {
+            return effectiveWpm;
+        }
+
+        public int getFrequencyHz() {
+            return frequencyHz;
+        }
+
+        /** Returns the duration of one unit (a dot) at the character speed, in milliseconds. */
+        public int getUnitMs() {
+            return Math.round(1200f / wpm);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            String definition = isBuiltIn(alphabet) ? null : definition(alphabet);
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(definition != null ? FLAG_DEFINITION : 0);
+            out.writeShort(wpm);
+            out.writeShort(effectiveWpm);
+            out.writeShort(frequencyHz);
+            out.writeUTF(alphabet.getName());
+            if (definition != null) {
+                byte[] bytes = definition.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        static Header read(DataInputStream in) throws IOException {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new IOException("Not a Morse binary file");
+                }
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported Morse binary version " + version);
+            }
+            int flags = in.readUnsignedByte();
+            int wpm = in.readUnsignedShort();
+            int effectiveWpm = in.readUnsignedShort();
+            int frequencyHz = in.readUnsignedShort();
+            String name = in.readUTF();
+            MorseAlphabet alphabet;
+            try {
+                if ((flags & FLAG_DEFINITION) != 0) {
+                    int length = in.readInt();
+                    if (length < 0 || length > 1 << 24) {
+                        throw new IOException("Invalid alphabet definition length " + length);
+                    }
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    alphabet = MorseAlphabet.parse(name, new StringReader(new String(bytes, StandardCharsets.UTF_8)));
+                } else {
+                    alphabet = MorseAlphabet.forName(name);
+                }
+                return new Header(alphabet, wpm, effectiveWpm, frequencyHz);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid Morse binary header: " + e.getMessage(), e);
+            }
+        }
+
+        private static boolean isBuiltIn(MorseAlphabet alphabet) {
+            try {
+                return MorseAlphabet.forName(alphabet.getName()) == alphabet;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        /** Writes an alphabet back out in the definition format {@link MorseAlphabet#parse} reads. */
+        private static String definition(MorseAlphabet alphabet) {
+            StringBuilder definition = new StringBuilder();
+            for (Map.Entry<String, String> entry : alphabet.getCodes().entrySet()) {
+                definition.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+            }
+            return definition.toString();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "MorseBinary.Header[%s, %d/%d WPM, %d Hz]",
+                    alphabet.getName(), wpm, effectiveWpm, frequencyHz);
+        }
+    }
+
+    // --- Streaming ---
+
+    /**
+     * Writes the binary form to a stream: the header first, then Morse code or plain text
+     * in as many pieces as needed. Gaps and symbols may be split across pieces. Closing the
+     * writer pads the last byte and closes the stream.
+     */
+    public static final class Writer implements Closeable, Flushable {
+        private final OutputStream out;
+        private final MorseEncoder encoder;
+        private final StringBuilder encoded = new StringBuilder();
+        private final byte[] buffer = new byte[BUFFER_BYTES];
+        private int buffered;          // Bytes waiting in the buffer
+        private int current;           // Codes of the byte being filled, in its low bits
+        private int codes;             // Number of codes in it
+        private int gap = NO_GAP;      // Strongest gap seen since the last element
+        private boolean started;       // An element has been written
+        private boolean closed;
+
+        /**
+         * Starts a binary stream by writing the header.
+         * @throws IOException If writing the header fails.
+         */
+        public Writer(OutputStream out, Header header) throws IOException {
+            this.out = out;
+            this.encoder = new MorseEncoder(header.getAlphabet());
+            header.write(new DataOutputStream(out));
+        }
+
+        /**
+         * Appends Morse code text.
+         * @throws IllegalArgumentException If the text holds anything but '.', '-', '/' and whitespace.
+         */
+        public void writeMorse(CharSequence morse) throws IOException {
+            writeMorse(morse, 0, morse.length());
+        }
+
+        /** Appends {@code morse[start, end)}; see {@link #writeMorse(CharSequence)}. */
+        public void writeMorse(CharSequence morse, int start, int end) throws IOException {
+            for (int i = start; i < end; i++) {
+                char c = morse.charAt(i);
+                if (c == '.' || c == '-') {
+                    if (gap != NO_GAP && started) {
+                        code(gap);
+                    }
+                    gap = NO_GAP;
+                    code(c == '.' ? DOT : DASH);
+                    started = true;
+                } else if (c == '/') {
+                    gap = WORD_GAP;
+                } else if (c <= ' ') {
+                    gap = Math.max(gap, LETTER_GAP);
+                } else {
+                    throw new IllegalArgumentException("Not Morse code: '" + c + "' at index " + i);
+                }
+            }
+        }
+
+        /**
+         * Encodes plain text with the header's alphabet and appends it. Words cut across
+         * pieces are joined as if the text had come in one piece.
+         */
+        public void writeText(CharSequence text) throws IOException {
+            encoder.encode(text, encoded);
+            writeMorse(encoded);
+            encoded.setLength(0);
+        }
+
+        /** Writes all complete bytes to the stream and flushes it. */
+        @Override
+        public void flush() throws IOException {
+            out.write(buffer, 0, buffered);
+            buffered = 0;
+            out.flush();
+        }
+
+        /** Writes what the encoder still holds, pads the last byte, and closes the stream. */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            encoder.finish(encoded);
+            writeMorse(encoded);
+            while (codes != 0) {
+                code(LETTER_GAP); // Padding: a trailing gap means nothing
+            }
+            flush();
+            out.close();
+        }
+
+        private void code(int code) throws IOException {
+            current = (current << 2) | code;
+            if (++codes == 4) {
+                buffer[buffered++] = (byte) current;
+                current = 0;
+                codes = 0;
+                if (buffered == buffer.length) {
+                    out.write(buffer, 0, buffered);
+                    buffered = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the binary form from a stream, block by block, as Morse code text or decoded
+     * plain text. Use one or the other for a whole stream.
+     */
+    public static final class Reader implements Closeable {
+        private final InputStream in;
+        private final Header header;
+        private final byte[] buffer = new byte[BUFFER_BYTES];
+        private MorseDecoder decoder;     // Created on the first readText
+        private int gap = NO_GAP;         // Gap read since the last element (Morse output)
+        private boolean started;          // An element has been output (Morse output)
+        private boolean finished;
+
+        /**
+         * Opens a binary stream by reading its header.
+         * @throws IOException If reading fails or the stream does not start with a valid header.
+         */
+        public Reader(InputStream in) throws IOException {
+            this.in = in;
+            try {
+                this.header = Header.read(new DataInputStream(in));
+            } catch (EOFException e) {
+                throw new IOException("Morse binary header is truncated", e);
+            }
+        }
+
+        public Header getHeader() {
+            return header;
+        }
+
+        /**
+         * Reads the next block and appends it to {@code out} as Morse code text.
+         * @return False once the end of the stream has been reached.
+         */
+        public boolean readMorse(StringBuilder out) throws IOException {
+            int count = fill();
+            if (count < 0) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                int[] runs = RUNS[buffer[i] & 0xFF];
+                appendElements(runs[0], out);
+                for (int r = 1; r < runs.length; r++) {
+                    gap = Math.max(gap, runs[r] >>> 8);
+                    appendElements(runs[r], out);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Reads the next block and appends it to {@code out} decoded with the header's
+         * alphabet, exactly as {@link MorseCodeTranslator#morseCodeToLetters(String, MorseAlphabet)}
+         * would decode the Morse code text {@link #readMorse} returns (see the class comment
+         * for text that packs differently).
+         * @return False once the end of the stream has been reached.
+         */
+        public boolean readText(StringBuilder out) throws IOException {
+            if (decoder == null) {
+                decoder = new MorseDecoder(header.getAlphabet());
+            }
+            int count = fill();
+            if (count < 0) {
+                if (!finished) {
+                    finished = true;
+                    decoder.finish(out);
+                }
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                int[] runs = RUNS[buffer[i] & 0xFF];
+                decoder.elements((runs[0] >>> 4) & 15, runs[0] & 15);
+                for (int r = 1; r < runs.length; r++) {
+                    int run = runs[r];
+                    if (run >>> 8 == WORD_GAP) {
+                        decoder.wordGap(out);
+                    } else {
+                        decoder.letterGap(out);
+                    }
+                    decoder.elements((run >>> 4) & 15, run & 15);
+                }
+            }
+            return true;
+        }
+
+        /** Appends a run of elements, after the gap before it if there is one. */
+        private void appendElements(int run, StringBuilder out) {
+            if ((run & 0xF0) == 0) {
+                return; // No elements
+            }
+            if (gap != NO_GAP && started) {
+                out.append(gap == WORD_GAP ? " / " : " ");
+            }
+            gap = NO_GAP;
+            out.append(ELEMENTS[run & 0xFF]);
+            started = true;
+        }
+
+        /** Reads the next block of bytes; returns their number, or -1 at the end of the stream. */
+        private int fill() throws IOException {
+            int count;
+            do {
+                count = in.read(buffer);
+            } while (count == 0);
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
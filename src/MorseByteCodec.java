@@ -0,0 +1,308 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Byte-to-byte Morse translation for ASCII and ISO-8859-1 (Latin-1) payloads.
+ * Messages read from sockets or files can be translated straight from one {@link ByteBuffer}
+ * into another, without decoding them into a String first and encoding the result again.
+ *
+ * The codec works like a {@link java.nio.charset.CharsetEncoder}: each call consumes as much
+ * of {@code src} as fits into {@code dst} and returns {@link CoderResult#UNDERFLOW} once all
+ * of {@code src} is consumed, or {@link CoderResult#OVERFLOW} when {@code dst} is full. The
+ * state is kept between calls, so a message can arrive in any number of pieces and be written
+ * out through a buffer of any size (even one byte). After the last piece, call
+ * {@link #flush(ByteBuffer)} until it returns UNDERFLOW.
+ *
+ * The output is identical to {@link MorseCodeTranslator#lettersToMorseCode(String)} and
+ * {@link MorseCodeTranslator#morseCodeToLetters(String)} on the decoded text, and always
+ * ASCII. The codec always uses {@link MorseAlphabet#ITU}, whose symbols are all ASCII.
+ * Every Morse code is stored once as a pre-encoded byte array, so nothing is
+ * allocated per message.
+ *
+ * An instance translates one message in one direction at a time; use {@link #reset()}
+ * before starting the next message.
+ */
+public class MorseByteCodec {
+
+    // Pre-encoded output for each input byte, indexed by variant and then by byte value.
+    private static final int PLAIN = 0;          // "code"
+    private static final int SPACED = 1;         // " code"  (next character of the same word)
+    private static final int NEW_WORD = 2;       // " / code" (first character of a new word)
+    private static final Map<String[], byte[][][]> ENCODINGS = new IdentityHashMap<>();
+
+    // Same node numbering as MorseDecoder.
+    private static final int INVALID = 0;
+    private static final int ROOT = 1;
+    private static final char[] TREE = MorseAlphabet.ITU.decodeChars();
+    // Pre-encoded letter for each tree node, without and with a word separator in front.
+    private static final byte[][] LETTERS = new byte[TREE.length][];
+    private static final byte[][] SPACED_LETTERS = new byte[TREE.length][];
+
+    static {
+        for (int node = 0; node < TREE.length; node++) {
+            byte letter = (byte) (TREE[node] == 0 ? '?' : TREE[node]); // Unknown sequences decode to '?'
+            LETTERS[node] = new byte[] {letter};
+            SPACED_LETTERS[node] = new byte[] {' ', letter};
+        }
+    }
+
+    private final boolean latin1;      // false: bytes above 0x7F are not characters
+    private final byte[][][] codes;
+
+    // --- Output State ---
+    private byte[] pending;            // Pre-encoded output not yet written to dst, or null
+    private int pendingIndex;          // Bytes of pending already written
+
+    // --- Encoder State (same as MorseEncoder) ---
+    private boolean pendingWordGap;
+
+    // --- Decoder State (same as MorseDecoder) ---
+    private int node = ROOT;
+    private boolean inSymbol;
+    private boolean trailingBlank;
+    private boolean pendingSpace;
+    private char lastLetter;
+
+    // Shared by both directions: true once any letter or code has been produced.
+    private boolean hasOutput;
+
+    /**
+     * Creates a codec for the given charset, using the default locale for case folding.
+     *
+     * @param charset {@link StandardCharsets#US_ASCII} or {@link StandardCharsets#ISO_8859_1}.
+     * @throws IllegalArgumentException If the charset is neither of these.
+     */
+    public MorseByteCodec(Charset charset) {
+        this(charset, Locale.getDefault());
+    }
+
+    /**
+     * Creates a codec for the given charset and case-folding locale.
+     *
+     * @param charset {@link StandardCharsets#US_ASCII} or {@link StandardCharsets#ISO_8859_1}.
+     *                In ASCII mode, bytes above 0x7F are ignored when encoding and make the
+     *                surrounding symbol unknown when decoding.
+     * @param locale  The locale whose case rules are used (see {@link MorseEncoder#MorseEncoder(Locale)}).
+     * @throws IllegalArgumentException If the charset is neither ASCII nor Latin-1.
+     */
+    public MorseByteCodec(Charset charset, Locale locale) {
+        if (StandardCharsets.ISO_8859_1.equals(charset)) {
+            latin1 = true;
+        } else if (StandardCharsets.US_ASCII.equals(charset)) {
+            latin1 = false;
+        } else {
+            throw new IllegalArgumentException("Only US-ASCII and ISO-8859-1 are supported, not " + charset);
+        }
+        codes = encodingsFor(MorseAlphabet.ITU.encodeTable(locale).page(0)); // Bytes only reach the first page
+    }
+
+    /**
+     * Encodes text bytes from {@code src} into Morse code bytes in {@code dst}.
+     * Trailing spaces are dropped, so no flush is needed for a complete encoded message.
+     *
+     * @param src The text to encode; its position is advanced past the consumed bytes.
+     * @param dst The buffer receiving the Morse code.
+     * @return UNDERFLOW if all of {@code src} was consumed, OVERFLOW if {@code dst} is full.
+     */
+    public CoderResult encode(ByteBuffer src, ByteBuffer dst) {
+        if (!drain(dst)) {
+            return CoderResult.OVERFLOW;
+        }
+        while (src.hasRemaining()) {
+            int character = src.get() & 0xFF;
+            byte[][] variants = latin1 || character < 0x80 ? codes[character] : null;
+            if (variants == null) {
+                if (character == ' ' && hasOutput) {
+                    pendingWordGap = true;
+                }
+                continue;
+            }
+
+            byte[] code;
+            if (pendingWordGap) {
+                code = variants[NEW_WORD];
+                pendingWordGap = false;
+            } else {
+                code = variants[hasOutput ? SPACED : PLAIN];
+            }
+            hasOutput = true;
+            if (!write(code, dst)) {
+                return CoderResult.OVERFLOW;
+            }
+        }
+        return CoderResult.UNDERFLOW;
+    }
+
+    /**
+     * Decodes Morse code bytes from {@code src} into text bytes in {@code dst}.
+     * A symbol cut off at the end of {@code src} is completed by the next call, or by
+     * {@link #flush(ByteBuffer)} at the end of the message.
+     *
+     * @param src The Morse code to decode; its position is advanced past the consumed bytes.
+     * @param dst The buffer receiving the text.
+     * @return UNDERFLOW if all of {@code src} was consumed, OVERFLOW if {@code dst} is full.
+     */
+    public CoderResult decode(ByteBuffer src, ByteBuffer dst) {
+        if (!drain(dst)) {
+            return CoderResult.OVERFLOW;
+        }
+        while (src.hasRemaining()) {
+            byte character = src.get();
+            switch (character) {
+                case '.':
+                    step(0);
+                    break;
+                case '-':
+                    step(1);
+                    break;
+                case ' ':
+                    if (!endSymbol(dst)) {
+                        return CoderResult.OVERFLOW;
+                    }
+                    break;
+                case '/':
+                    boolean written = endSymbol(dst);
+                    if (hasOutput && !pendingSpace && lastLetter != '?') {
+                        pendingSpace = true;
+                    }
+                    if (!written) {
+                        return CoderResult.OVERFLOW;
+                    }
+                    break;
+                default:
+                    // Negative bytes are never blanks, in either charset.
+                    if (character >= 0 && character <= ' ') {
+                        if (inSymbol) {
+                            trailingBlank = true;
+                        }
+                    } else {
+                        node = INVALID;
+                        inSymbol = true;
+                    }
+            }
+        }
+        return CoderResult.UNDERFLOW;
+    }
+
+    /**
+     * Completes a message: writes any output still held back and, when decoding, the
+     * letter for the last symbol. Call it after the last piece of input until it returns
+     * UNDERFLOW; a trailing word separator is dropped, as in the String methods.
+     *
+     * @param dst The buffer receiving the rest of the output.
+     * @return UNDERFLOW once everything is written, OVERFLOW if {@code dst} is full.
+     */
+    public CoderResult flush(ByteBuffer dst) {
+        if (!drain(dst) || !endSymbol(dst)) {
+            return CoderResult.OVERFLOW;
+        }
+        return CoderResult.UNDERFLOW;
+    }
+
+    /**
+     * Returns the codec to its initial state so it can translate a new message.
+     * Output that was not yet written and a partially read symbol are discarded.
+     */
+    public void reset() {
+        pending = null;
+        pendingIndex = 0;
+        pendingWordGap = false;
+        node = ROOT;
+        inSymbol = false;
+        trailingBlank = false;
+        pendingSpace = false;
+        lastLetter = 0;
+        hasOutput = false;
+    }
+
+    // --- Decoding (mirrors MorseDecoder) ---
+
+    private void step(int bit) {
+        if (trailingBlank) {
+            node = INVALID;
+        } else if (node != INVALID) {
+            int child = (node << 1) | bit;
+            node = child < TREE.length ? child : INVALID;
+        }
+        inSymbol = true;
+    }
+
+    /**
+     * Writes the letter for the symbol just read (or as much of it as fits).
+     * @return false if {@code dst} filled up before the letter was completely written.
+     */
+    private boolean endSymbol(ByteBuffer dst) {
+        if (!inSymbol) {
+            return true;
+        }
+        byte[] letter = pendingSpace ? SPACED_LETTERS[node] : LETTERS[node];
+        lastLetter = (char) letter[letter.length - 1];
+        pendingSpace = false;
+        hasOutput = true;
+
+        node = ROOT;
+        inSymbol = false;
+        trailingBlank = false;
+        return write(letter, dst);
+    }
+
+    // --- Output ---
+
+    /**
+     * Writes pre-encoded output, keeping whatever does not fit for the next call.
+     * @return false if {@code dst} filled up before all of it was written.
+     */
+    private boolean write(byte[] bytes, ByteBuffer dst) {
+        if (dst.remaining() >= bytes.length) {
+            dst.put(bytes); // Common case: no need to go through the pending state
+            return true;
+        }
+        pending = bytes;
+        return drain(dst);
+    }
+
+    /**
+     * Writes the pending pre-encoded bytes, as many as fit into {@code dst}.
+     * @return true if nothing is left pending.
+     */
+    private boolean drain(ByteBuffer dst) {
+        if (pending == null) {
+            return true;
+        }
+        int count = Math.min(pending.length - pendingIndex, dst.remaining());
+        dst.put(pending, pendingIndex, count);
+        pendingIndex += count;
+        if (pendingIndex < pending.length) {
+            return false;
+        }
+        pending = null;
+        pendingIndex = 0;
+        return true;
+    }
+
+    /** Returns the pre-encoded variants for every entry of an encoder table, building them once. */
+    private static byte[][][] encodingsFor(String[] table) {
+        synchronized (ENCODINGS) {
+            byte[][][] encodings = ENCODINGS.get(table);
+            if (encodings == null) {
+                encodings = new byte[table.length][][];
+                for (int c = 0; c < table.length; c++) {
+                    if (table[c] != null) {
+                        encodings[c] = new byte[][] {
+                                table[c].getBytes(StandardCharsets.US_ASCII),
+                                (" " + table[c]).getBytes(StandardCharsets.US_ASCII),
+                                (" / " + table[c]).getBytes(StandardCharsets.US_ASCII)
+                        };
+                    }
+                }
+                ENCODINGS.put(table, encodings);
+            }
+            return encodings;
+        }
+    }
+}
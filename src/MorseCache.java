@@ -0,0 +1,214 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A bounded, thread-safe LRU cache for translations and rendered audio.
+ * Entries are weighed in (approximate) bytes, and the least recently used ones are evicted
+ * once the total weight exceeds the limit. Entries can also expire a fixed time after
+ * they were stored.
+ *
+ * The cache is split into segments by key hash, each with its own lock and its own share
+ * of the weight limit, so concurrent callers only contend when their keys land in the same
+ * segment. Values are computed outside any lock: two threads missing the same key at the
+ * same time may both compute it, and the last one stored wins.
+ *
+ * Hits, misses, evictions and expirations are counted with {@link LongAdder}s. See
+ * {@link CachingMorseTranslator} for cached translation and
+ * {@link MorseAudioPlayer#enableRenderCache(long, long, TimeUnit)} for cached audio.
+ *
+ * @param <K> The key type (must implement {@code equals} and {@code hashCode}).
+ * @param <V> The value type.
+ */
+public final class MorseCache<K, V> {
+
+    // Must be a power of two; each segment holds at most 1/SEGMENTS of the weight limit.
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final long segmentCapacity;
+    private final long ttlNanos;                   // 0: entries never expire
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxWeight The total weight (in bytes, as computed by {@code weigher}) the cache may hold.
+     *                  A single entry heavier than 1/16 of it is never stored.
+     * @param ttl       How long an entry stays valid after it is stored; 0 to keep entries until evicted.
+     * @param unit      The unit of {@code ttl}.
+     * @param weigher   Returns the approximate size of an entry in bytes.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public MorseCache(long maxWeight, long ttl, TimeUnit unit, ToLongBiFunction<? super K, ? super V> weigher) {
+        if (maxWeight <= 0 || ttl < 0) {
+            throw new IllegalArgumentException("maxWeight must be positive and ttl not negative");
+        }
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>();
+        }
+        this.segmentCapacity = Math.max(1, maxWeight / SEGMENTS);
+        this.ttlNanos = unit.toNanos(ttl);
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the cached value for {@code key}, computing and storing it on a miss.
+     *
+     * @param key    The key to look up.
+     * @param loader Computes the value on a miss; it must not return null.
+     * @return The cached or newly computed value.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /** Returns the cached value for {@code key}, or null (counted as a miss) if there is none. */
+    public V getIfPresent(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.entries.get(key);
+            if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.storedAt > ttlNanos) {
+                segment.entries.remove(key);
+                segment.weight -= entry.weight;
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /** Stores a value, replacing any previous one, and evicts older entries if needed. */
+    public void put(K key, V value) {
+        long weight = weigher.applyAsLong(key, value);
+        if (weight > segmentCapacity) {
+            return; // Would evict everything else in its segment
+        }
+        Entry<V> entry = new Entry<>(value, weight, System.nanoTime());
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> previous = segment.entries.put(key, entry);
+            segment.weight += weight - (previous != null ? previous.weight : 0);
+            // Evict from the least recently used end until the segment fits again.
+            Iterator<Entry<V>> eldest = segment.entries.values().iterator();
+            while (segment.weight > segmentCapacity) {
+                Entry<V> evicted = eldest.next();
+                eldest.remove();
+                segment.weight -= evicted.weight;
+                evictions.increment();
+            }
+        }
+    }
+
+    /** Removes all entries. The statistics are kept. */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    // --- Statistics ---
+
+    /** Returns the number of entries currently cached (including expired ones not yet removed). */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /** Returns the total weight of the cached entries, in bytes. */
+    public long getWeight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** Returns the number of entries removed to make room for new ones. */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /** Returns the number of entries removed because their time to live had passed. */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /** Returns hits / (hits + misses), or 0 before the first lookup. */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "MorseCache[%d entries, %d bytes, %d hits, %d misses (%.1f%% hit rate), %d evictions, %d expirations]",
+                size(), getWeight(), getHitCount(), getMissCount(), getHitRate() * 100,
+                getEvictionCount(), getExpirationCount());
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16; // Let the high bits pick segments too
+        return segments[hash & (SEGMENTS - 1)];
+    }
+
+    /** One share of the cache: an access-ordered map, so iteration starts at the least recently used entry. */
+    private static final class Segment<K, V> {
+        final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long weight;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long weight;
+        final long storedAt;        // System.nanoTime() when stored
+
+        Entry(V value, long weight, long storedAt) {
+            this.value = value;
+            this.weight = weight;
+            this.storedAt = storedAt;
+        }
+    }
+}
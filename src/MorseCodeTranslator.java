@@ -1,91 +1,34 @@
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * R2-D2's Morse Code Translator
  * This class provides functionalities to convert plain text to Morse code
  * and Morse code back to plain text. It handles letters, numbers, and common
- * punctuation marks.
+ * punctuation marks of international (ITU) Morse code by default; every method also
+ * has an overload taking another {@link MorseAlphabet} (prosigns, Cyrillic, Greek,
+ * Wabun, or one loaded from a file).
  *
  * It also includes a simple command-line interface (CLI) for user interaction.
  */
 public class MorseCodeTranslator {
 
-    // --- Morse Code Mappings ---
-    // A HashMap to store the mapping from characters to their Morse code representations.
-    private static final Map<Character, String> LETTERS_TO_MORSE = new HashMap<>();
-    // A HashMap to store the mapping from Morse code representations back to characters.
-    private static final Map<String, Character> MORSE_TO_LETTERS = new HashMap<>();
-
-    // Static initializer block to populate the Morse code mappings when the class is loaded.
-    static {
-        // Letters
-        LETTERS_TO_MORSE.put('A', ".-");
-        LETTERS_TO_MORSE.put('B', "-...");
-        LETTERS_TO_MORSE.put('C', "-.-.");
-        LETTERS_TO_MORSE.put('D', "-..");
-        LETTERS_TO_MORSE.put('E', ".");
-        LETTERS_TO_MORSE.put('F', "..-.");
-        LETTERS_TO_MORSE.put('G', "--.");
-        LETTERS_TO_MORSE.put('H', "....");
-        LETTERS_TO_MORSE.put('I', "..");
-        LETTERS_TO_MORSE.put('J', ".---");
-        LETTERS_TO_MORSE.put('K', "-.-");
-        LETTERS_TO_MORSE.put('L', ".-..");
-        LETTERS_TO_MORSE.put('M', "--");
-        LETTERS_TO_MORSE.put('N', "-.");
-        LETTERS_TO_MORSE.put('O', "---");
-        LETTERS_TO_MORSE.put('P', ".--.");
-        LETTERS_TO_MORSE.put('Q', "--.-");
-        LETTERS_TO_MORSE.put('R', ".-.");
-        LETTERS_TO_MORSE.put('S', "...");
-        LETTERS_TO_MORSE.put('T', "-");
-        LETTERS_TO_MORSE.put('U', "..-");
-        LETTERS_TO_MORSE.put('V', "...-");
-        LETTERS_TO_MORSE.put('W', ".--");
-        LETTERS_TO_MORSE.put('X', "-..-");
-        LETTERS_TO_MORSE.put('Y', "-.--");
-        LETTERS_TO_MORSE.put('Z', "--..");
-
-        // Numbers
-        LETTERS_TO_MORSE.put('0', "-----");
-        LETTERS_TO_MORSE.put('1', ".----");
-        LETTERS_TO_MORSE.put('2', "..---");
-        LETTERS_TO_MORSE.put('3', "...--");
-        LETTERS_TO_MORSE.put('4', "....-");
-        LETTERS_TO_MORSE.put('5', ".....");
-        LETTERS_TO_MORSE.put('6', "-....");
-        LETTERS_TO_MORSE.put('7', "--...");
-        LETTERS_TO_MORSE.put('8', "---..");
-        LETTERS_TO_MORSE.put('9', "----.");
-
-        // Punctuation and Special Characters
-        LETTERS_TO_MORSE.put('.', ".-.-.-");   // Period
-        LETTERS_TO_MORSE.put(',', "--..--");   // Comma
-        LETTERS_TO_MORSE.put('?', "..--..");   // Question Mark
-        LETTERS_TO_MORSE.put('\'', ".----.");  // Apostrophe
-        LETTERS_TO_MORSE.put('!', "-.-.--");   // Exclamation Mark
-        LETTERS_TO_MORSE.put('/', "-..-.");    // Slash
-        LETTERS_TO_MORSE.put('(', "-.--.");    // Opening Parenthesis
-        LETTERS_TO_MORSE.put(')', "-.--.-");   // Closing Parenthesis
-        LETTERS_TO_MORSE.put('&', ".-...");    // Ampersand
-        LETTERS_TO_MORSE.put(':', "---...");   // Colon
-        LETTERS_TO_MORSE.put(';', "-.-.-.");   // Semicolon
-        LETTERS_TO_MORSE.put('=', "-...-");    // Equals sign
-        LETTERS_TO_MORSE.put('+', ".-.-.");    // Plus sign
-        LETTERS_TO_MORSE.put('-', "-....-");   // Hyphen/Dash
-        LETTERS_TO_MORSE.put('_', "..--.-");   // Underscore
-        LETTERS_TO_MORSE.put('"', ".-..-.");   // Quotation Mark
-        LETTERS_TO_MORSE.put('$', "...-..-");  // Dollar sign
-        LETTERS_TO_MORSE.put('@', ".--.-.");   // At sign
-
-        // Populate the reverse map (Morse to Letters) from the primary map.
-        // This ensures consistency and simplifies maintenance.
-        for (Map.Entry<Character, String> entry : LETTERS_TO_MORSE.entrySet()) {
-            MORSE_TO_LETTERS.put(entry.getValue(), entry.getKey());
-        }
-    }
+    // Number of chars read per step by the streaming encode/decode methods.
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    /** Inputs shorter than this are translated sequentially even when a pool is supplied. */
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+    // Smallest piece of input handed to a worker, so task overhead stays negligible.
+    private static final int MIN_PARALLEL_CHUNK = 1 << 16;
 
     /**
      * Converts a given plain text message into Morse code.
@@ -96,48 +39,33 @@ public class MorseCodeTranslator {
      * @return The Morse code representation of the input text.
      */
     public static String lettersToMorseCode(String text) {
+        return lettersToMorseCode(text, MorseAlphabet.ITU);
+    }
+
+    /**
+     * Converts a given plain text message into Morse code of the given alphabet.
+     * Works like {@link #lettersToMorseCode(String)}.
+     *
+     * @param text     The plain text message to convert.
+     * @param alphabet The alphabet defining the Morse codes.
+     * @return The Morse code representation of the input text.
+     */
+    public static String lettersToMorseCode(String text, MorseAlphabet alphabet) {
         if (text == null || text.isEmpty()) {
             return "";
         }
 
-        StringBuilder morseCodeBuilder = new StringBuilder();
-        String upperCaseText = text.toUpperCase();
-
-        // This flag ensures a space is added between Morse codes for characters within a word,
-        // but not at the beginning of a word or after a word separator.
-        boolean firstCharOfWord = true; 
-
-        for (int i = 0; i < upperCaseText.length(); i++) {
-            char character = upperCaseText.charAt(i);
-
-            if (character == ' ') {
-                // If it's a space, and we've added any Morse characters previously,
-                // and we haven't just added a word separator (e.g., from multiple spaces).
-                if (morseCodeBuilder.length() > 0 && !morseCodeBuilder.toString().endsWith(" / ")) {
-                    morseCodeBuilder.append(" / ");
-                }
-                firstCharOfWord = true; // Next valid character starts a new word.
-            } else if (LETTERS_TO_MORSE.containsKey(character)) {
-                // If it's a known character:
-                // Add a space BEFORE the current character's Morse if it's NOT the first character
-                // in the current word being built AND we actually have content in the builder.
-                if (!firstCharOfWord && morseCodeBuilder.length() > 0 && !morseCodeBuilder.toString().endsWith(" / ")) {
-                    morseCodeBuilder.append(" ");
-                }
-                morseCodeBuilder.append(LETTERS_TO_MORSE.get(character));
-                firstCharOfWord = false; // We've added a char, so next one in this word needs a space.
-            }
-            // If the character is not found and not a space, it is simply ignored.
-            // It does not change `firstCharOfWord` or add anything to the builder.
-            // This is crucial for "Café #" -> "CAFE"
+        // Most Morse codes take 2-5 symbols plus a separator, so reserve enough room up front
+        // to avoid regrowing the builder on large messages.
+        MorseMetrics.Translation metrics = MorseMetrics.ENABLED ? MorseMetrics.startEncode() : null;
+        StringBuilder morseCodeBuilder = new StringBuilder((int) Math.min(text.length() * 4L + 16, Integer.MAX_VALUE - 8));
+        MorseEncoder encoder = new MorseEncoder(alphabet);
+        encoder.encode(text, morseCodeBuilder);
+        encoder.finish(morseCodeBuilder);
+        if (metrics != null) {
+            metrics.end(text.length(), morseCodeBuilder.length(), encoder.unknownCount());
         }
-        
-        // Final trim to handle leading/trailing spaces/separators.
-        String result = morseCodeBuilder.toString().trim();
-        if (result.endsWith(" /")) { // Remove trailing word separator if it exists
-            result = result.substring(0, result.length() - 2).trim(); // Remove " /" and re-trim
-        }
-        return result;
+        return morseCodeBuilder.toString();
     }
 
     /**
@@ -149,67 +77,363 @@ public class MorseCodeTranslator {
      * @return The plain text representation of the input Morse code.
      */
     public static String morseCodeToLetters(String code) {
+        return morseCodeToLetters(code, MorseAlphabet.ITU);
+    }
+
+    /**
+     * Converts Morse code of the given alphabet back into plain text.
+     * Works like {@link #morseCodeToLetters(String)}.
+     *
+     * @param code     The Morse code string to convert.
+     * @param alphabet The alphabet defining the Morse codes.
+     * @return The plain text representation of the input Morse code.
+     */
+    public static String morseCodeToLetters(String code, MorseAlphabet alphabet) {
+        if (code == null || code.isEmpty()) {
+            return "";
+        }
+
+        MorseMetrics.Translation metrics = MorseMetrics.ENABLED ? MorseMetrics.startDecode() : null;
+        StringBuilder plainTextBuilder = new StringBuilder(code.length() / 3 + 16);
+        MorseDecoder decoder = new MorseDecoder(alphabet);
+        decoder.decode(code, plainTextBuilder);
+        decoder.finish(plainTextBuilder);
+        if (metrics != null) {
+            metrics.end(code.length(), plainTextBuilder.length(), decoder.unknownCount());
+        }
+        return plainTextBuilder.toString();
+    }
+
+    /**
+     * Converts damaged Morse code into the most likely plain text. Where
+     * {@link #morseCodeToLetters(String)} writes '?', this assumes the fewest and likeliest
+     * errors (lost or extra elements, missing gaps) that make the code valid.
+     * See {@link MorseTolerantDecoder} for the runners-up, costs and dictionaries.
+     *
+     * @param code The Morse code string to convert.
+     * @return The likeliest plain text.
+     */
+    public static String morseCodeToLettersTolerant(String code) {
         if (code == null || code.isEmpty()) {
             return "";
         }
+        List<MorseTolerantDecoder.Candidate> candidates = MorseTolerantDecoder.decode(code, 1);
+        return candidates.isEmpty() ? "" : candidates.get(0).getText();
+    }
+
+    /**
+     * Converts plain text into Morse code using the given pool for large inputs.
+     * The text is cut into chunks right after spaces, the chunks are encoded concurrently,
+     * and the results are joined with " / " (every cut falls between two words, so the
+     * sequential encoder would have written a word separator there too).
+     * The result is identical to {@link #lettersToMorseCode(String)}; inputs shorter than
+     * {@link #PARALLEL_THRESHOLD} are simply encoded on the calling thread.
+     *
+     * @param text The plain text message to convert.
+     * @param pool The pool running the chunk translations.
+     * @return The Morse code representation of the input text.
+     */
+    public static String lettersToMorseCode(String text, ForkJoinPool pool) {
+        return lettersToMorseCode(text, MorseAlphabet.ITU, pool);
+    }
+
+    /**
+     * Converts plain text into Morse code of the given alphabet using the given pool for
+     * large inputs. Works like {@link #lettersToMorseCode(String, ForkJoinPool)}.
+     *
+     * @param text     The plain text message to convert.
+     * @param alphabet The alphabet defining the Morse codes.
+     * @param pool     The pool running the chunk translations.
+     * @return The Morse code representation of the input text.
+     */
+    public static String lettersToMorseCode(String text, MorseAlphabet alphabet, ForkJoinPool pool) {
+        if (text == null || text.length() < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            return lettersToMorseCode(text, alphabet);
+        }
+
+        MorseMetrics.Translation metrics = MorseMetrics.ENABLED ? MorseMetrics.startEncode() : null;
+        LongAdder unknown = new LongAdder(); // Summed over the chunks for the metrics
+        List<ForkJoinTask<String>> parts = new ArrayList<>();
+        int chunkSize = parallelChunkSize(text.length(), pool);
+        int start = 0;
+        while (start < text.length()) {
+            int end = nextChunkEnd(text, start + chunkSize, true);
+            final int from = start;
+            final int to = end;
+            parts.add(pool.submit(() -> {
+                StringBuilder morse = new StringBuilder((to - from) * 4 + 16);
+                MorseEncoder encoder = new MorseEncoder(alphabet);
+                encoder.encode(text, from, to, morse);
+                encoder.finish(morse);
+                unknown.add(encoder.unknownCount());
+                return morse.toString();
+            }));
+            start = end;
+        }
+
+        StringBuilder morseCodeBuilder = new StringBuilder((int) Math.min(text.length() * 4L + 16, Integer.MAX_VALUE - 8));
+        for (ForkJoinTask<String> part : parts) {
+            String morse = part.join();
+            if (morse.isEmpty()) {
+                continue; // A chunk of spaces and unknown characters adds nothing.
+            }
+            if (morseCodeBuilder.length() > 0) {
+                morseCodeBuilder.append(" / ");
+            }
+            morseCodeBuilder.append(morse);
+        }
+        if (metrics != null) {
+            metrics.end(text.length(), morseCodeBuilder.length(), unknown.sum());
+        }
+        return morseCodeBuilder.toString();
+    }
+
+    /**
+     * Converts Morse code into plain text using the given pool for large inputs.
+     * The code is cut into chunks right after a '/' or a space (never inside a symbol),
+     * the chunks are decoded concurrently, and the results are joined using the same
+     * word-separator rules as the sequential decoder.
+     * The result is identical to {@link #morseCodeToLetters(String)}; inputs shorter than
+     * {@link #PARALLEL_THRESHOLD} are simply decoded on the calling thread.
+     *
+     * @param code The Morse code string to convert.
+     * @param pool The pool running the chunk translations.
+     * @return The plain text representation of the input Morse code.
+     */
+    public static String morseCodeToLetters(String code, ForkJoinPool pool) {
+        return morseCodeToLetters(code, MorseAlphabet.ITU, pool);
+    }
+
+    /**
+     * Converts Morse code of the given alphabet into plain text using the given pool for
+     * large inputs. Works like {@link #morseCodeToLetters(String, ForkJoinPool)}.
+     *
+     * @param code     The Morse code string to convert.
+     * @param alphabet The alphabet defining the Morse codes.
+     * @param pool     The pool running the chunk translations.
+     * @return The plain text representation of the input Morse code.
+     */
+    public static String morseCodeToLetters(String code, MorseAlphabet alphabet, ForkJoinPool pool) {
+        if (code == null || code.length() < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            return morseCodeToLetters(code, alphabet);
+        }
+
+        MorseMetrics.Translation metrics = MorseMetrics.ENABLED ? MorseMetrics.startDecode() : null;
+        LongAdder unknown = new LongAdder(); // Summed over the chunks for the metrics
+        List<ForkJoinTask<String>> parts = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        int chunkSize = parallelChunkSize(code.length(), pool);
+        int start = 0;
+        while (start < code.length()) {
+            int end = nextChunkEnd(code, start + chunkSize, false);
+            final int from = start;
+            final int to = end;
+            starts.add(from);
+            parts.add(pool.submit(() -> {
+                StringBuilder text = new StringBuilder((to - from) / 3 + 16);
+                MorseDecoder decoder = new MorseDecoder(alphabet);
+                decoder.decode(code, from, to, text);
+                decoder.finish(text);
+                unknown.add(decoder.unknownCount());
+                return text.toString();
+            }));
+            start = end;
+        }
 
-        StringBuilder plainTextBuilder = new StringBuilder();
-        // Split by " / " with optional spaces around it.
-        // Using `-1` limit to keep trailing empty strings if input ends with " / ".
-        // This helps correctly handle cases like "HELLO / " -> "HELLO ".
-        String[] words = code.trim().split(" */ *", -1);
-
-        for (int i = 0; i < words.length; i++) {
-            String word = words[i].trim(); // Trim each potential word (sequence of morse chars)
-
-            // Add a space between decoded words.
-            // This is applied BEFORE processing the current 'word' (sequence of morse chars).
-            // Only add if it's not the first word, and something has already been appended to the builder.
-            if (i > 0 && plainTextBuilder.length() > 0) {
-                char lastCharInBuilder = plainTextBuilder.charAt(plainTextBuilder.length() - 1);
-                // Special condition to match `testMorseCodeToLetters_UnknownMorseSequence()`:
-                // If the last character added was '?', do NOT add a space for the word separator.
-                // This makes "? / GREAT" -> "?GREAT" instead of "? GREAT".
-                if (lastCharInBuilder == '?') {
-                    // Do nothing, effectively ignore the word separator for this specific test case.
-                } else if (lastCharInBuilder != ' ') {
-                    // Otherwise, add a space if the last char wasn't already a space.
-                    plainTextBuilder.append(" ");
-                }
+        StringBuilder plainTextBuilder = new StringBuilder(code.length() / 3 + 16);
+        for (int i = 0; i < parts.size(); i++) {
+            String text = parts.get(i).join();
+            if (text.isEmpty()) {
+                continue; // A chunk of blanks and separators adds nothing.
             }
-            
-            // If the current "word" part is empty after trimming (e.g., from " / / "),
-            // or if it was the result of a trailing " / ", just continue.
-            // The space handling above already dealt with the separation.
-            if (word.isEmpty()) {
-                continue;
+            int length = plainTextBuilder.length();
+            // Same rule as the sequential decoder: a '/' between two letters becomes one space,
+            // unless the letter before it is a '?'.
+            if (length > 0 && plainTextBuilder.charAt(length - 1) != '?'
+                    && hasWordSeparatorAround(code, starts.get(i))) {
+                plainTextBuilder.append(' ');
             }
+            plainTextBuilder.append(text);
+        }
+        if (metrics != null) {
+            metrics.end(code.length(), plainTextBuilder.length(), unknown.sum());
+        }
+        return plainTextBuilder.toString();
+    }
+
+    /** Picks a chunk size giving each worker a few chunks, to smooth out uneven content. */
+    private static int parallelChunkSize(int length, ForkJoinPool pool) {
+        return Math.max(MIN_PARALLEL_CHUNK, length / (pool.getParallelism() * 4));
+    }
 
-            // Split the current word into individual Morse characters
-            // `+` ensures multiple spaces between morse chars are treated as one.
-            String[] morseChars = word.split(" +"); 
-
-            for (String morseChar : morseChars) {
-                morseChar = morseChar.trim(); // Trim individual morse sequences
-                if (morseChar.isEmpty()) {
-                    continue; // Skip any empty strings resulting from multiple internal spaces.
-                }
-
-                if (MORSE_TO_LETTERS.containsKey(morseChar)) {
-                    plainTextBuilder.append(MORSE_TO_LETTERS.get(morseChar));
-                } else {
-                    plainTextBuilder.append("?"); // Append '?' for unknown sequences
-                }
+    /**
+     * Returns the end of the chunk that should stop near {@code target}: just after the
+     * next space (or, when decoding, the next space or '/'), or the end of the input.
+     */
+    static int nextChunkEnd(CharSequence input, int target, boolean encoding) {
+        for (int i = target; i < input.length(); i++) {
+            char character = input.charAt(i);
+            if (character == ' ' || (!encoding && character == '/')) {
+                return i + 1;
             }
         }
-        return plainTextBuilder.toString().trim(); // Final trim to ensure no leading/trailing spaces
+        return input.length();
+    }
+
+    /**
+     * Checks whether a '/' appears in the run of blanks and separators surrounding
+     * {@code boundary}, i.e. between the last symbol before it and the first symbol after it.
+     */
+    private static boolean hasWordSeparatorAround(String code, int boundary) {
+        for (int i = boundary - 1; i >= 0 && isBlankOrSeparator(code.charAt(i)); i--) {
+            if (code.charAt(i) == '/') {
+                return true;
+            }
+        }
+        for (int i = boundary; i < code.length() && isBlankOrSeparator(code.charAt(i)); i++) {
+            if (code.charAt(i) == '/') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isBlankOrSeparator(char character) {
+        return character <= ' ' || character == '/';
+    }
+
+    /**
+     * Streams plain text from {@code in} to Morse code on {@code out}.
+     * The input is processed in fixed-size chunks, so memory use stays constant no matter
+     * how large the input is, and the output is identical to
+     * {@link #lettersToMorseCode(String)} on the whole input.
+     * Neither stream is closed; {@code out} is flushed when the input is exhausted.
+     *
+     * @param in  The plain text to convert.
+     * @param out The destination for the Morse code.
+     * @throws IOException If reading or writing fails.
+     */
+    public static void encode(Reader in, Writer out) throws IOException {
+        encode(in, out, MorseAlphabet.ITU);
+    }
+
+    /**
+     * Streams plain text from {@code in} to Morse code of the given alphabet on {@code out}.
+     * Works like {@link #encode(Reader, Writer)}.
+     *
+     * @param in       The plain text to convert.
+     * @param out      The destination for the Morse code.
+     * @param alphabet The alphabet defining the Morse codes.
+     * @throws IOException If reading or writing fails.
+     */
+    public static void encode(Reader in, Writer out, MorseAlphabet alphabet) throws IOException {
+        MorseMetrics.Translation metrics = MorseMetrics.ENABLED ? MorseMetrics.startEncode() : null;
+        MorseEncoder encoder = new MorseEncoder(alphabet);
+        char[] buffer = new char[STREAM_BUFFER_SIZE];
+        CharBuffer chunk = CharBuffer.wrap(buffer);
+        StringBuilder morse = new StringBuilder(STREAM_BUFFER_SIZE * 5);
+        char[] outBuffer = new char[morse.capacity()];
+
+        long charsIn = 0;
+        long charsOut = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            encoder.encode(chunk, 0, read, morse);
+            charsIn += read;
+            charsOut += morse.length();
+            outBuffer = drain(morse, outBuffer, out);
+        }
+        encoder.finish(morse);
+        charsOut += morse.length();
+        drain(morse, outBuffer, out);
+        out.flush();
+        if (metrics != null) {
+            metrics.end(charsIn, charsOut, encoder.unknownCount());
+        }
+    }
+
+    /**
+     * Streams Morse code from {@code in} to plain text on {@code out}.
+     * The input is processed in fixed-size chunks, so memory use stays constant no matter
+     * how large the input is. Symbols split across chunks are stitched back together, and
+     * the output is identical to {@link #morseCodeToLetters(String)} on the whole input.
+     * Neither stream is closed; {@code out} is flushed when the input is exhausted.
+     *
+     * @param in  The Morse code to convert.
+     * @param out The destination for the plain text.
+     * @throws IOException If reading or writing fails.
+     */
+    public static void decode(Reader in, Writer out) throws IOException {
+        decode(in, out, MorseAlphabet.ITU);
+    }
+
+    /**
+     * Streams Morse code of the given alphabet from {@code in} to plain text on {@code out}.
+     * Works like {@link #decode(Reader, Writer)}.
+     *
+     * @param in       The Morse code to convert.
+     * @param out      The destination for the plain text.
+     * @param alphabet The alphabet defining the Morse codes.
+     * @throws IOException If reading or writing fails.
+     */
+    public static void decode(Reader in, Writer out, MorseAlphabet alphabet) throws IOException {
+        MorseMetrics.Translation metrics = MorseMetrics.ENABLED ? MorseMetrics.startDecode() : null;
+        MorseDecoder decoder = new MorseDecoder(alphabet);
+        char[] buffer = new char[STREAM_BUFFER_SIZE];
+        CharBuffer chunk = CharBuffer.wrap(buffer);
+        StringBuilder text = new StringBuilder(STREAM_BUFFER_SIZE);
+        char[] outBuffer = new char[text.capacity()];
+
+        long charsIn = 0;
+        long charsOut = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            decoder.decode(chunk, 0, read, text);
+            charsIn += read;
+            charsOut += text.length();
+            outBuffer = drain(text, outBuffer, out);
+        }
+        decoder.finish(text);
+        charsOut += text.length();
+        drain(text, outBuffer, out);
+        out.flush();
+        if (metrics != null) {
+            metrics.end(charsIn, charsOut, decoder.unknownCount());
+        }
+    }
+
+    /**
+     * Copies the builder's content to the writer through a reusable char array and clears it.
+     * @return The array to reuse next time (grown if the builder did not fit).
+     */
+    private static char[] drain(StringBuilder builder, char[] outBuffer, Writer out) throws IOException {
+        int length = builder.length();
+        if (length > outBuffer.length) {
+            outBuffer = new char[length];
+        }
+        builder.getChars(0, length, outBuffer, 0);
+        out.write(outBuffer, 0, length);
+        builder.setLength(0);
+        return outBuffer;
     }
 
     /**
      * Main method to provide a command-line interface (CLI) for the translator.
      * Users can choose to encode or decode messages.
+     * When arguments are given (e.g. {@code --encode in.txt --out out.morse}), the menu is
+     * skipped and the files are translated in batch mode by {@link MorseFileTranslator};
+     * {@code --serve [port]} runs the translation server ({@link MorseServer}) instead.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--serve")) {
+            MorseServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0) {
+            MorseFileTranslator.main(args);
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in); // Create a Scanner object for user input.
         boolean running = true; // Control variable for the main loop.
 
@@ -0,0 +1,227 @@
+import java.nio.CharBuffer;
+
+/**
+ * Incremental Morse-to-text decoding engine.
+ * Instead of splitting the input into words and symbols, the decoder walks a binary
+ * tree one character at a time: a dot moves to the left child, a dash to the right
+ * child, and a space (or '/') emits the letter stored at the current node.
+ * No intermediate Strings are created.
+ *
+ * The tree is compiled by the {@link MorseAlphabet} and stored as an array in heap order:
+ * the root is node 1 and the children of node {@code n} are {@code 2n} (dot) and
+ * {@code 2n + 1} (dash). Symbols longer than the alphabet's longest code fall off the
+ * tree and decode to '?'.
+ *
+ * The decoder keeps the partially read symbol and the pending word separator between
+ * calls, so a message can be fed in several pieces and still produce exactly what
+ * {@link MorseCodeTranslator#morseCodeToLetters(String)} produces for the whole message.
+ */
+public class MorseDecoder {
+
+    // Node 0 is never used by the heap layout, so it marks an invalid symbol.
+    private static final int INVALID = 0;
+    private static final int ROOT = 1;
+
+    private final char[] letters;     // Single-char symbol at each tree node, or 0
+    private final String[] tokens;    // Multi-char symbol at each tree node (null if the alphabet has none)
+
+    // --- Decoder State ---
+    private int node = ROOT;               // Current position in the tree for the symbol being read.
+    private boolean inSymbol;              // True once the current symbol has any content.
+    private boolean trailingBlank;         // True if a control/whitespace char followed the symbol content.
+    private boolean hasOutput;             // True once at least one letter has been written.
+    private boolean pendingSpace;          // True if a word separator should precede the next letter.
+    private char lastLetter;               // Last letter written (used for the '?' separator rule).
+    private long unknownCount;             // Symbols decoded to '?' (for MorseMetrics).
+
+    /** Creates a decoder for international (ITU) Morse code. */
+    public MorseDecoder() {
+        this(MorseAlphabet.ITU);
+    }
+
+    /**
+     * Creates a decoder for the given alphabet.
+     * @param alphabet The alphabet defining the Morse codes.
+     */
+    public MorseDecoder(MorseAlphabet alphabet) {
+        this.letters = alphabet.decodeChars();
+        this.tokens = alphabet.decodeStrings();
+    }
+
+    /**
+     * Decodes a whole character sequence and appends the text to {@code out}.
+     * Call {@link #finish(StringBuilder)} afterwards to flush the last symbol.
+     *
+     * @param code The Morse code to decode.
+     * @param out  The builder receiving the decoded text.
+     */
+    public void decode(CharSequence code, StringBuilder out) {
+        decode(code, 0, code.length(), out);
+    }
+
+    /**
+     * Decodes all remaining characters of a buffer and appends the text to {@code out}.
+     * The buffer's position is advanced to its limit; a symbol cut off at the end of
+     * the buffer is completed by the next call.
+     *
+     * @param code The buffer holding the next piece of the Morse code.
+     * @param out  The builder receiving the decoded text.
+     */
+    public void decode(CharBuffer code, StringBuilder out) {
+        decode(code, 0, code.remaining(), out);
+        code.position(code.limit());
+    }
+
+    /**
+     * Decodes {@code code[start, end)} and appends the text to {@code out}.
+     * A symbol that is still being read at the end of the range is kept and
+     * completed by the next call (or by {@link #finish(StringBuilder)}).
+     *
+     * @param code  The Morse code to decode.
+     * @param start Index of the first character to decode.
+     * @param end   Index after the last character to decode.
+     * @param out   The builder receiving the decoded text.
+     */
+    public void decode(CharSequence code, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char character = code.charAt(i);
+            switch (character) {
+                case '.':
+                    step(0);
+                    break;
+                case '-':
+                    step(1);
+                    break;
+                case ' ':
+                    endSymbol(out);
+                    break;
+                case '/':
+                    endSymbol(out);
+                    wordSeparator();
+                    break;
+                default:
+                    if (character <= ' ') {
+                        // Whitespace around a symbol is trimmed, but inside a symbol it makes it unknown.
+                        if (inSymbol) {
+                            trailingBlank = true;
+                        }
+                    } else {
+                        // Anything else is not part of any Morse symbol.
+                        node = INVALID;
+                        inSymbol = true;
+                    }
+            }
+        }
+    }
+
+    /**
+     * Flushes the symbol that is still being read and drops any trailing word
+     * separator, then returns the decoder to its initial state.
+     *
+     * @param out The builder receiving the decoded text.
+     */
+    public void finish(StringBuilder out) {
+        endSymbol(out);
+        reset();
+    }
+
+    /** Returns the number of symbols decoded to '?' since this decoder was created. */
+    public long unknownCount() {
+        return unknownCount;
+    }
+
+    /**
+     * Returns the decoder to its initial state so it can decode a new message.
+     * Any symbol that is still being read is discarded.
+     */
+    public void reset() {
+        node = ROOT;
+        inSymbol = false;
+        trailingBlank = false;
+        hasOutput = false;
+        pendingSpace = false;
+        lastLetter = 0;
+    }
+
+    // --- Element Input (for MorseBinary, which has no text to parse) ---
+
+    /**
+     * Reads {@code count} elements of the current symbol at once. {@code bits} holds them,
+     * the first in the highest bit, 1 for a dash: the same path down the tree as {@code count}
+     * single steps.
+     */
+    void elements(int count, int bits) {
+        if (count == 0) {
+            return;
+        }
+        if (trailingBlank) {
+            node = INVALID;
+        } else if (node != INVALID) {
+            int child = (node << count) | bits;
+            node = child < letters.length ? child : INVALID;
+        }
+        inSymbol = true;
+    }
+
+    /** Ends the current symbol, as a space does. */
+    void letterGap(StringBuilder out) {
+        endSymbol(out);
+    }
+
+    /** Ends the current symbol and word, as a '/' does. */
+    void wordGap(StringBuilder out) {
+        endSymbol(out);
+        wordSeparator();
+    }
+
+    /** Moves one level down the tree: bit 0 is a dot, bit 1 is a dash. */
+    private void step(int bit) {
+        if (trailingBlank) {
+            node = INVALID;
+        } else if (node != INVALID) {
+            int child = (node << 1) | bit;
+            node = child < letters.length ? child : INVALID;
+        }
+        inSymbol = true;
+    }
+
+    /** Emits the letter for the symbol just read (or '?' if it is unknown). */
+    private void endSymbol(StringBuilder out) {
+        if (!inSymbol) {
+            return;
+        }
+        if (pendingSpace) {
+            out.append(' ');
+            pendingSpace = false;
+        }
+        char letter = letters[node];
+        String token;
+        if (letter != 0) {
+            out.append(letter);
+        } else if (tokens != null && (token = tokens[node]) != null) {
+            out.append(token);
+            letter = token.charAt(token.length() - 1);
+        } else {
+            letter = '?'; // Unknown sequences decode to '?'
+            out.append(letter);
+            unknownCount++;
+        }
+        lastLetter = letter;
+        hasOutput = true;
+
+        node = ROOT;
+        inSymbol = false;
+        trailingBlank = false;
+    }
+
+    /**
+     * Handles a '/' word separator. Consecutive separators collapse into a single space,
+     * and (as the translator always did) a separator right after a '?' adds no space at all,
+     * so "? / GREAT" decodes to "?GREAT".
+     */
+    private void wordSeparator() {
+        if (hasOutput && !pendingSpace && lastLetter != '?') {
+            pendingSpace = true;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+import java.nio.CharBuffer;
+import java.util.Locale;
+
+/**
+ * Incremental text-to-Morse encoding engine.
+ * Characters are looked up in the {@link MorseAlphabet}'s compiled table, indexed by their
+ * char value, with upper-case folding already applied inside the table, so the hot loop
+ * does two array reads per character and never copies the input.
+ *
+ * The encoder remembers whether it has written anything and whether a word
+ * separator is pending, so the same instance can be fed a message in several
+ * pieces and still produce exactly what {@link MorseCodeTranslator#lettersToMorseCode(String)}
+ * produces for the whole message. Alphabets with multi-character symbols (e.g. the prosign
+ * {@code <SK>}) may hold back the start of a symbol that is cut off at the end of a piece;
+ * {@link #finish(StringBuilder)} writes it out at the end of the message.
+ */
+public class MorseEncoder {
+
+    private final MorseAlphabet.EncodeTable table;
+    private final MorseAlphabet alphabet;
+    private final String tokenStarts;    // Chars that may start a multi-char symbol, or null
+
+    // --- Encoder State ---
+    private boolean hasOutput;      // True once at least one Morse character has been written.
+    private boolean pendingWordGap; // True if a space was seen after the last Morse character.
+    private final StringBuilder pendingToken = new StringBuilder(); // Start of a symbol cut off by the last piece.
+    private long unknownCount;      // Characters ignored because they have no code (for MorseMetrics).
+
+    /**
+     * Creates an ITU encoder that folds case using the default locale,
+     * just like {@code String.toUpperCase()} does.
+     */
+    public MorseEncoder() {
+        this(MorseAlphabet.ITU, Locale.getDefault());
+    }
+
+    /**
+     * Creates an ITU encoder that folds case using the given locale.
+     * @param locale The locale used to upper-case the input.
+     */
+    public MorseEncoder(Locale locale) {
+        this(MorseAlphabet.ITU, locale);
+    }
+
+    /**
+     * Creates an encoder for the given alphabet that folds case using the default locale.
+     * @param alphabet The alphabet defining the Morse codes.
+     */
+    public MorseEncoder(MorseAlphabet alphabet) {
+        this(alphabet, Locale.getDefault());
+    }
+
+    /**
+     * Creates an encoder for the given alphabet and case-folding locale.
+     * @param alphabet The alphabet defining the Morse codes.
+     * @param locale   The locale used to upper-case the input.
+     */
+    public MorseEncoder(MorseAlphabet alphabet, Locale locale) {
+        this.alphabet = alphabet;
+        this.table = alphabet.encodeTable(locale);
+        this.tokenStarts = alphabet.tokenStarts();
+    }
+    /**
+     * Encodes a whole character sequence and appends the Morse code to {@code out}.
+     * @param text The text to encode.
+     * @param out  The builder receiving the Morse code.
+     */
+    public void encode(CharSequence text, StringBuilder out) {
+        encode(text, 0, text.length(), out);
+    }
+
+    /**
+     * Encodes all remaining characters of a buffer and appends the Morse code to {@code out}.
+     * The buffer's position is advanced to its limit.
+     *
+     * @param text The buffer holding the next piece of the message.
+     * @param out  The builder receiving the Morse code.
+     */
+    public void encode(CharBuffer text, StringBuilder out) {
+        encode(text, 0, text.remaining(), out);
+        text.position(text.limit());
+    }
+
+    /**
+     * Encodes {@code text[start, end)} and appends the Morse code to {@code out}.
+     * A word separator seen at the end of the range is held back until the next
+     * Morse character is written, so trailing separators never reach the output.
+     *
+     * @param text  The text to encode.
+     * @param start Index of the first character to encode.
+     * @param end   Index after the last character to encode.
+     * @param out   The builder receiving the Morse code.
+     */
+    public void encode(CharSequence text, int start, int end, StringBuilder out) {
+        if (pendingToken.length() > 0) {
+            // Complete the held-back symbol start first: take just enough new chars to decide it.
+            int take = Math.min(end - start, alphabet.maxTokenLength() - pendingToken.length());
+            pendingToken.append(text, start, start + take);
+            start += take;
+            if (start == end && pendingToken.length() < alphabet.maxTokenLength()) {
+                return; // Still undecided; wait for more input.
+            }
+            String held = pendingToken.toString();
+            pendingToken.setLength(0);
+            encodeRange(held, 0, held.length(), out, false);
+            if (pendingToken.length() > 0 && start < end) {
+                encode(text, start, end, out); // A new symbol start at the end of the held chars.
+                return;
+            }
+        }
+        encodeRange(text, start, end, out, false);
+    }
+
+    /**
+     * Writes out a symbol start that is still held back (see the class description) and
+     * returns the encoder to its initial state.
+     *
+     * @param out The builder receiving the rest of the Morse code.
+     */
+    public void finish(StringBuilder out) {
+        if (pendingToken.length() > 0) {
+            String held = pendingToken.toString();
+            pendingToken.setLength(0);
+            encodeRange(held, 0, held.length(), out, true);
+        }
+        reset();
+    }
+
+    /** Returns the number of characters ignored since this encoder was created, because they have no code. */
+    public long unknownCount() {
+        return unknownCount;
+    }
+
+    /**
+     * Returns the encoder to its initial state so it can encode a new message.
+     */
+    public void reset() {
+        hasOutput = false;
+        pendingWordGap = false;
+        pendingToken.setLength(0);
+    }
+
+    /**
+     * The encoding loop. With {@code last} false, a possible multi-char symbol cut off by
+     * {@code end} is moved to {@code pendingToken} instead of being encoded.
+     */
+    private void encodeRange(CharSequence text, int start, int end, StringBuilder out, boolean last) {
+        String[][] pages = table.pages();
+        final String tokenStarts = this.tokenStarts;
+        // Work on local copies of the state; the JIT keeps these in registers.
+        boolean hasOutput = this.hasOutput;
+        boolean pendingWordGap = this.pendingWordGap;
+
+        for (int i = start; i < end; i++) {
+            char character = text.charAt(i);
+            String code = null;
+            if (tokenStarts != null && tokenStarts.indexOf(character) >= 0) {
+                int length = matchToken(text, i, end, last);
+                if (length < 0) {
+                    pendingToken.append(text, i, end);
+                    break;
+                }
+                if (length > 0) {
+                    code = alphabet.tokenCode(MorseAlphabet.upperCase(text.subSequence(i, i + length)));
+                    i += length - 1;
+                }
+            }
+            if (code == null) {
+                String[] page = pages[character >>> 8];
+                if (page == null) {
+                    page = table.page(character >>> 8); // First char from this page: compile it
+                    pages = table.pages();
+                }
+                code = page[character & 0xFF];
+                if (code == null) {
+                    // A space only separates words once something has been written.
+                    // Any other unknown character is simply ignored.
+                    if (character != ' ') {
+                        unknownCount++;
+                    } else if (hasOutput) {
+                        pendingWordGap = true;
+                    }
+                    continue;
+                }
+            }
+
+            if (pendingWordGap) {
+                out.append(" / ");
+                pendingWordGap = false;
+            } else if (hasOutput) {
+                out.append(' ');
+            }
+            out.append(code);
+            hasOutput = true;
+        }
+
+        this.hasOutput = hasOutput;
+        this.pendingWordGap = pendingWordGap;
+    }
+
+    /**
+     * Finds the longest multi-char symbol starting at {@code text[i]}.
+     * @return Its length, 0 if there is none, or -1 if {@code end} cuts off what may still
+     *         become one (only when {@code last} is false).
+     */
+    private int matchToken(CharSequence text, int i, int end, boolean last) {
+        int available = Math.min(end - i, alphabet.maxTokenLength());
+        String candidate = MorseAlphabet.upperCase(text.subSequence(i, i + available));
+        for (int length = available; length > 1; length--) {
+            if (alphabet.tokenCode(candidate.substring(0, length)) != null) {
+                return length;
+            }
+        }
+        return !last && available < alphabet.maxTokenLength() && alphabet.isTokenPrefix(candidate) ? -1 : 0;
+    }
+}
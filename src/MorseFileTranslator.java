@@ -0,0 +1,233 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Non-interactive batch translation of whole files.
+ * The input file is memory-mapped region by region and translated straight from its
+ * bytes by a {@link MorseByteCodec} (no decoding into chars), and the result is collected in a direct buffer that
+ * is written to the output file whenever it fills up.
+ *
+ * Input is treated as ASCII. Bytes outside the ASCII range (e.g. the pieces of a UTF-8
+ * multi-byte character) are ignored when encoding and make the surrounding symbol
+ * unknown ('?') when decoding, just like any other non-Morse character would.
+ *
+ * Usage (also available through {@code MorseCodeTranslator}):
+ * <pre>
+ *   java MorseFileTranslator --encode in.txt --out out.morse
+ *   java MorseFileTranslator --decode in.morse --out out.txt
+ *   java MorseFileTranslator --pack in.morse --out out.mrsb     (to the binary form, see {@link MorseBinary})
+ *   java MorseFileTranslator --unpack in.mrsb --out out.morse
+ * </pre>
+ */
+public class MorseFileTranslator {
+
+    // Size of each memory-mapped window over the input file.
+    private static final long MAP_REGION_SIZE = 256L * 1024 * 1024;
+    // Size of the direct buffer that collects output before it is written to disk.
+    private static final int OUTPUT_BUFFER_SIZE = 1024 * 1024;
+    // Chars read at a time when packing Morse code into the binary form.
+    private static final int CHAR_CHUNK_SIZE = 64 * 1024;
+
+    private final FileChannel out;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+    private final MorseByteCodec codec = new MorseByteCodec(StandardCharsets.US_ASCII);
+    private long bytesWritten;
+
+    private MorseFileTranslator(FileChannel out) {
+        this.out = out;
+    }
+
+    /**
+     * Encodes a whole text file into a Morse code file.
+     * The output is identical to {@link MorseCodeTranslator#lettersToMorseCode(String)}
+     * on the file's content (for ASCII input).
+     *
+     * @param input  The plain text file to read.
+     * @param output The Morse code file to create or overwrite.
+     * @return The number of bytes written to {@code output}.
+     * @throws IOException If the files cannot be read or written.
+     */
+    public static long encodeFile(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = openOutput(output)) {
+            MorseFileTranslator translator = new MorseFileTranslator(out);
+            translator.translate(in, true);
+            return translator.bytesWritten;
+        }
+    }
+
+    /**
+     * Decodes a whole Morse code file into a text file.
+     * The output is identical to {@link MorseCodeTranslator#morseCodeToLetters(String)}
+     * on the file's content.
+     *
+     * @param input  The Morse code file to read.
+     * @param output The plain text file to create or overwrite.
+     * @return The number of bytes written to {@code output}.
+     * @throws IOException If the files cannot be read or written.
+     */
+    public static long decodeFile(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = openOutput(output)) {
+            MorseFileTranslator translator = new MorseFileTranslator(out);
+            translator.translate(in, false);
+            return translator.bytesWritten;
+        }
+    }
+
+    /**
+     * Packs a Morse code file into the binary form of {@link MorseBinary}, with the default
+     * header (ITU, 20 WPM). The file is streamed, so its size does not matter.
+     *
+     * @param input  The Morse code file to read (ASCII).
+     * @param output The binary file to create or overwrite.
+     * @return The number of bytes written to {@code output}.
+     * @throws IOException              If the files cannot be read or written.
+     * @throws IllegalArgumentException If the input holds anything but Morse code.
+     */
+    public static long packFile(Path input, Path output) throws IOException {
+        char[] chunk = new char[CHAR_CHUNK_SIZE];
+        try (Reader in = new InputStreamReader(Files.newInputStream(input), StandardCharsets.US_ASCII);
+             MorseBinary.Writer writer = new MorseBinary.Writer(
+                     new BufferedOutputStream(Files.newOutputStream(output), OUTPUT_BUFFER_SIZE), MorseBinary.Header.DEFAULT)) {
+            int read;
+            while ((read = in.read(chunk)) >= 0) {
+                writer.writeMorse(CharBuffer.wrap(chunk, 0, read));
+            }
+        }
+        return Files.size(output);
+    }
+
+    /**
+     * Unpacks a file in the binary form of {@link MorseBinary} into Morse code text.
+     *
+     * @param input  The binary file to read.
+     * @param output The Morse code file to create or overwrite.
+     * @return The number of bytes written to {@code output}.
+     * @throws IOException If the files cannot be read or written, or the input is not in the binary form.
+     */
+    public static long unpackFile(Path input, Path output) throws IOException {
+        StringBuilder morse = new StringBuilder();
+        long bytesWritten = 0;
+        try (MorseBinary.Reader reader = new MorseBinary.Reader(Files.newInputStream(input));
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), OUTPUT_BUFFER_SIZE)) {
+            while (reader.readMorse(morse)) {
+                byte[] bytes = morse.toString().getBytes(StandardCharsets.US_ASCII);
+                out.write(bytes);
+                bytesWritten += bytes.length;
+                morse.setLength(0);
+            }
+        }
+        return bytesWritten;
+    }
+
+    private static FileChannel openOutput(Path output) throws IOException {
+        return FileChannel.open(output, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /** Maps the input one region at a time and runs it through the encoder or decoder. */
+    private void translate(FileChannel in, boolean encode) throws IOException {
+        long size = in.size();
+        for (long position = 0; position < size; position += MAP_REGION_SIZE) {
+            MappedByteBuffer region = in.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(MAP_REGION_SIZE, size - position));
+            // The codec stops whenever the output buffer is full; write it out and carry on.
+            while ((encode ? codec.encode(region, buffer) : codec.decode(region, buffer)).isOverflow()) {
+                flush();
+            }
+        }
+        // Flush the last symbol; a trailing separator is simply dropped.
+        while (codec.flush(buffer).isOverflow()) {
+            flush();
+        }
+        flush();
+    }
+
+    /** Writes everything collected in the output buffer to the file. */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Entry point for batch mode. Expects {@code --encode}, {@code --decode}, {@code --pack}
+     * or {@code --unpack <in>}, then {@code --out <out>}, and reports the throughput when done.
+     */
+    public static void main(String[] args) {
+        String mode = null;
+        Path input = null;
+        Path output = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--encode":
+                case "--decode":
+                case "--pack":
+                case "--unpack":
+                    mode = args[i];
+                    input = Paths.get(args[i + 1]);
+                    break;
+                case "--out":
+                    output = Paths.get(args[i + 1]);
+                    break;
+                default:
+                    mode = null;
+                    i = args.length; // Unknown option: stop parsing and show usage.
+            }
+        }
+        if (mode == null || output == null || args.length % 2 != 0) {
+            System.err.println("Usage: --encode <input.txt> --out <output.morse>");
+            System.err.println("       --decode <input.morse> --out <output.txt>");
+            System.err.println("       --pack <input.morse> --out <output.mrsb>");
+            System.err.println("       --unpack <input.mrsb> --out <output.morse>");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            long bytesRead = Files.size(input);
+            long start = System.nanoTime();
+            long bytesWritten;
+            String done;
+            switch (mode) {
+                case "--encode":
+                    bytesWritten = encodeFile(input, output);
+                    done = "Encoded";
+                    break;
+                case "--decode":
+                    bytesWritten = decodeFile(input, output);
+                    done = "Decoded";
+                    break;
+                case "--pack":
+                    bytesWritten = packFile(input, output);
+                    done = "Packed";
+                    break;
+                default:
+                    bytesWritten = unpackFile(input, output);
+                    done = "Unpacked";
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf(Locale.ROOT, "%s %,d bytes -> %,d bytes in %.3f s (%.1f MB/s)%n",
+                    done, bytesRead, bytesWritten, seconds, bytesRead / 1e6 / Math.max(seconds, 1e-9));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Batch translation failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
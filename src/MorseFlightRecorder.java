@@ -0,0 +1,163 @@
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The JFR events of {@link MorseMetrics}: {@code r2d2.morse.Translation} and
+ * {@code r2d2.morse.Playback}, recorded whenever a flight recording is running.
+ *
+ * The translator targets Java 8, which has no {@code jdk.jfr} API, so the events are
+ * defined at run time through {@code jdk.jfr.EventFactory}, found through reflection the
+ * way {@link MorseService} finds virtual threads. Where JFR is missing, {@link #begin}
+ * returns null and nothing is recorded.
+ */
+final class MorseFlightRecorder {
+
+    // Field order of each event, as passed to set(int, Object)
+    private static final int TRANSLATION_ENCODE = 0;
+    private static final int TRANSLATION_CHARS_IN = 1;
+    private static final int TRANSLATION_CHARS_OUT = 2;
+    private static final int TRANSLATION_UNKNOWN = 3;
+    private static final int PLAYBACK_SAMPLES = 0;
+    private static final int PLAYBACK_UNDERRUNS = 1;
+    private static final int PLAYBACK_DRIFT = 2;
+
+    static final int TRANSLATION = 0;
+    static final int PLAYBACK = 1;
+
+    // --- Reflection (all null when JFR is not available) ---
+    private static final Object[] FACTORIES = new Object[2];
+    private static Method newEvent;
+    private static Method begin;
+    private static Method shouldCommit;
+    private static Method set;
+    private static Method commit;
+
+    static {
+        try {
+            Class<?> factory = Class.forName("jdk.jfr.EventFactory");
+            Class<?> event = Class.forName("jdk.jfr.Event");
+            Method create = factory.getMethod("create", List.class, List.class);
+            FACTORIES[TRANSLATION] = create.invoke(null,
+                    annotations("r2d2.morse.Translation", "Morse Translation", "One encode or decode call"),
+                    Arrays.asList(
+                            field(boolean.class, "encode", "Encode", null),
+                            field(long.class, "charsIn", "Chars In", null),
+                            field(long.class, "charsOut", "Chars Out", null),
+                            field(long.class, "unknown", "Unknown",
+                                    "Characters without a code (encode) or symbols decoded to '?' (decode)")));
+            FACTORIES[PLAYBACK] = create.invoke(null,
+                    annotations("r2d2.morse.Playback", "Morse Playback", "Playback of one Morse message"),
+                    Arrays.asList(
+                            field(long.class, "samples", "Samples", null),
+                            field(long.class, "underruns", "Underruns", "Times the audio line ran dry"),
+                            field(double.class, "driftMillis", "Drift (ms)",
+                                    "How much later than scheduled the message finished")));
+            newEvent = factory.getMethod("newEvent");
+            begin = event.getMethod("begin");
+            shouldCommit = event.getMethod("shouldCommit");
+            set = event.getMethod("set", int.class, Object.class);
+            commit = event.getMethod("commit");
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            FACTORIES[TRANSLATION] = null; // Before Java 11 (or 8u262), or JFR left out of the runtime
+            FACTORIES[PLAYBACK] = null;
+        }
+    }
+
+    private MorseFlightRecorder() {
+    }
+
+    /** Returns true if this JVM can record the events. */
+    static boolean isAvailable() {
+        return FACTORIES[PLAYBACK] != null;
+    }
+
+    /**
+     * Starts timing an event.
+     * @param type {@link #TRANSLATION} or {@link #PLAYBACK}.
+     * @return The event, or null if JFR is not available.
+     */
+    static Object begin(int type) {
+        Object factory = FACTORIES[type];
+        if (factory == null) {
+            return null;
+        }
+        try {
+            Object event = newEvent.invoke(factory);
+            begin.invoke(event);
+            return event;
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /** Commits a translation event from {@link #begin}, if a recording wants it. */
+    static void commitTranslation(Object event, boolean encode, long charsIn, long charsOut, long unknown) {
+        if (event != null && shouldCommit(event)) {
+            commit(event, TRANSLATION_ENCODE, encode, TRANSLATION_CHARS_IN, charsIn,
+                    TRANSLATION_CHARS_OUT, charsOut, TRANSLATION_UNKNOWN, unknown);
+        }
+    }
+
+    /** Commits a playback event from {@link #begin}, if a recording wants it. */
+    static void commitPlayback(Object event, long samples, long underruns, double driftMillis) {
+        if (event != null && shouldCommit(event)) {
+            commit(event, PLAYBACK_SAMPLES, samples, PLAYBACK_UNDERRUNS, underruns, PLAYBACK_DRIFT, driftMillis);
+        }
+    }
+
+    // --- Helpers ---
+
+    private static boolean shouldCommit(Object event) {
+        try {
+            return (Boolean) shouldCommit.invoke(event);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    /** Sets the fields given as (index, value) pairs and commits the event. */
+    private static void commit(Object event, Object... fields) {
+        try {
+            for (int i = 0; i < fields.length; i += 2) {
+                set.invoke(event, fields[i], fields[i + 1]);
+            }
+            commit.invoke(event);
+        } catch (ReflectiveOperationException e) {
+            // An event that cannot be recorded is dropped; the metrics themselves are kept
+        }
+    }
+
+    private static List<Object> annotations(String name, String label, String description)
+            throws ReflectiveOperationException {
+        List<Object> annotations = new ArrayList<>();
+        annotations.add(annotation("Name", name));
+        annotations.add(annotation("Label", label));
+        annotations.add(annotation("Category", new String[] {"R2-D2 Morse Translator"}));
+        annotations.add(annotation("Description", description));
+        return annotations;
+    }
+
+    private static Object field(Class<?> type, String name, String label, String description)
+            throws ReflectiveOperationException {
+        List<Object> annotations = new ArrayList<>();
+        annotations.add(annotation("Label", label));
+        if (description != null) {
+            annotations.add(annotation("Description", description));
+        }
+        Class<?> descriptor = Class.forName("jdk.jfr.ValueDescriptor");
+        return descriptor.getConstructor(Class.class, String.class, List.class)
+                .newInstance(type, name, Collections.unmodifiableList(annotations));
+    }
+
+    /** A {@code jdk.jfr.AnnotationElement} for the {@code jdk.jfr} annotation of the given name. */
+    private static Object annotation(String simpleName, Object value) throws ReflectiveOperationException {
+        Class<? extends Annotation> type = Class.forName("jdk.jfr." + simpleName).asSubclass(Annotation.class);
+        Constructor<?> element = Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+        return element.newInstance(type, value);
+    }
+}
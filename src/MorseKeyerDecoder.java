@@ -0,0 +1,355 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.StringTokenizer;
+
+/**
+ * Decodes manual keying (a straight key, a paddle, a GPIO line) into text as it happens.
+ *
+ * It takes timestamped key-down and key-up events and goes through the same stages as the
+ * timing half of {@link MorseAudioDecoder} (which uses it for exactly that):
+ * 1. Timing: each mark (key down) is classified as a dot or a dash, and each gap (key up)
+ *    as a gap between elements, characters or words, by the nearest of the typical
+ *    lengths of each kind (an online k-means). The lengths are a running estimate of the
+ *    unit times a ratio for each kind, and both follow the sender: the unit tracks changes
+ *    in speed within a few elements, and the ratios learn that a sender's dashes are not
+ *    exactly three dots long, or that they leave longer gaps between characters.
+ * 2. Text: dots, dashes and gaps are written as Morse code text and fed through a
+ *    {@link MorseDecoder}, and every piece of decoded text goes to the {@link Listener}.
+ *
+ * A character is complete once the gap after it is long enough, even if no further event
+ * arrives: call {@link #poll(long)} now and then (e.g. every few milliseconds) while the key
+ * is up, and the character (or the space after a word) is emitted as soon as the gap
+ * qualifies. Each event takes a few arithmetic operations and one step down the decoder's
+ * tree, so text is reported well within a millisecond of the event or poll that completes it.
+ *
+ * The first few marks and gaps are held back until there are enough of them to estimate
+ * the speed; their text appears together once they have been classified.
+ *
+ * Like the other decoders it is not thread-safe: feed it from one thread.
+ */
+public class MorseKeyerDecoder {
+
+    // --- Timing Settings (multiples of the estimated dit length) ---
+    // Standard lengths of each kind of mark and gap, which the decoder starts from
+    private static final double[] STANDARD_RATIOS = {1, 3, 1, 3, 7};
+    private static final int DIT = 0;
+    private static final int DAH = 1;
+    private static final int ELEMENT_GAP = 2;
+    private static final int CHAR_GAP = 3;
+    private static final int WORD_GAP = 4;
+    private static final double MIN_RATIO_STEP = 1.5;      // How close the lengths of neighbouring kinds may get
+    private static final double ADAPT_RATE = 0.2;          // Weight of each measurement in the unit estimate
+    private static final double RATIO_ADAPT_RATE = 0.05;   // Weight of each measurement in the sender's ratios
+    private static final int WARMUP_EVENTS = 8;            // Marks/gaps collected before the first estimate
+
+    /** Receives decoded text as soon as it is known. */
+    public interface Listener {
+        /**
+         * @param text            The text decoded by the latest event or poll: usually one
+         *                        character, a space, or a prosign's expansion.
+         * @param timestampMicros The timestamp of that event or poll.
+         */
+        void decoded(String text, long timestampMicros);
+    }
+
+    // --- Speed Estimate ---
+    // Each kind of mark and gap is a cluster at ratios[kind] units, and a duration is classified
+    // by the nearest one: the threshold between two neighbouring clusters is their midpoint.
+    // Every classified duration updates the unit quickly (so the decoder follows changes in
+    // speed) and the ratio of its kind slowly (so it learns the sender's weighting).
+    private double unitMs;             // Current estimate of the dit (unit) length
+    private final double[] ratios = STANDARD_RATIOS.clone();
+    // The first few marks and gaps are held back until there are enough of them to estimate the
+    // speed (positive = mark, negative = gap). A message almost always contains a dit or a gap
+    // between elements within its first two characters, and both last exactly one unit.
+    private final double[] warmup = new double[WARMUP_EVENTS];
+    private int warmupCount;
+
+    // --- Keying State ---
+    private boolean keyDown;
+    private boolean seenMark;          // Silence before the first mark is ignored
+    private boolean started;           // Whether any event has arrived yet
+    private long lastEdgeMicros;       // Timestamp of the last key-down or key-up
+    private int gapLevel;              // Gaps emitted in the current silence: 0 none, 1 character, 2 word
+    private long eventMicros;          // Timestamp reported with decoded text
+
+    // --- Output ---
+    private final StringBuilder morse = new StringBuilder();
+    private final StringBuilder text = new StringBuilder();
+    private final MorseDecoder textDecoder;
+    private final Listener listener;
+    private boolean finished;
+
+    /** Creates a decoder for the ITU alphabet with an initial speed guess of 60 ms per unit (20 WPM). */
+    public MorseKeyerDecoder() {
+        this(60, MorseAlphabet.ITU, null);
+    }
+
+    /**
+     * Creates a decoder.
+     *
+     * @param initialUnitMs A first guess of the unit length; the decoder adapts from there.
+     * @param alphabet      The alphabet to decode with.
+     * @param listener      Receives decoded text on the thread that feeds events, or null.
+     */
+    public MorseKeyerDecoder(double initialUnitMs, MorseAlphabet alphabet, Listener listener) {
+        if (!(initialUnitMs > 0)) {
+            throw new IllegalArgumentException("Initial unit must be positive: " + initialUnitMs);
+        }
+        this.unitMs = initialUnitMs;
+        this.textDecoder = new MorseDecoder(alphabet);
+        this.listener = listener;
+    }
+
+    /**
+     * Decodes a recorded keying session: one event per line, a timestamp in microseconds and
+     * the new state ("down" or "1", "up" or "0"), e.g. {@code 1250000 down}. Blank lines and
+     * lines starting with '#' are skipped.
+     *
+     * @param events The recording; it is read to the end but not closed.
+     * @return The decoded text.
+     * @throws IOException              If reading fails.
+     * @throws IllegalArgumentException If a line is not an event, or events go back in time.
+     */
+    public static String decode(Reader events) throws IOException {
+        MorseKeyerDecoder decoder = new MorseKeyerDecoder();
+        BufferedReader lines = new BufferedReader(events);
+        String line;
+        for (int number = 1; (line = lines.readLine()) != null; number++) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            StringTokenizer parts = new StringTokenizer(line);
+            try {
+                long timestamp = Long.parseLong(parts.nextToken());
+                String state = parts.hasMoreTokens() ? parts.nextToken().toLowerCase(Locale.ROOT) : "";
+                if (state.equals("down") || state.equals("1")) {
+                    decoder.key(timestamp, true);
+                } else if (state.equals("up") || state.equals("0")) {
+                    decoder.key(timestamp, false);
+                } else {
+                    throw new IllegalArgumentException("Line " + number + ": expected 'down' or 'up' after the timestamp");
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + number + ": invalid timestamp", e);
+            }
+        }
+        decoder.finish();
+        return decoder.getText();
+    }
+
+    // --- Events ---
+
+    /**
+     * Feeds a key event. Repeated events for the same state are ignored, so a key that
+     * reports its level periodically can be fed directly.
+     *
+     * @param timestampMicros When the key changed, in microseconds on any steady clock
+     *                        (e.g. {@code System.nanoTime() / 1000}); never earlier than the last event.
+     * @param down            True for key down (tone on), false for key up.
+     * @throws IllegalArgumentException If the timestamp is earlier than the last event's.
+     */
+    public void key(long timestampMicros, boolean down) {
+        checkNotFinished();
+        if (started && timestampMicros < lastEdgeMicros) {
+            throw new IllegalArgumentException("Key event at " + timestampMicros + " is before the last one at " + lastEdgeMicros);
+        }
+        if (started && down == keyDown) {
+            return;
+        }
+        eventMicros = timestampMicros;
+        double durationMs = (timestampMicros - lastEdgeMicros) / 1000.0;
+        if (down) {
+            if (seenMark) {
+                gap(durationMs);
+            }
+        } else if (started) {
+            seenMark = true;
+            mark(durationMs);
+        }
+        started = true;
+        keyDown = down;
+        lastEdgeMicros = timestampMicros;
+    }
+
+    /**
+     * Tells the decoder the time while nothing happens, so a character (or the space after a
+     * word) is emitted as soon as the gap after it is long enough rather than at the next
+     * key-down. Does nothing while the key is down or while the speed is still being estimated.
+     *
+     * @param nowMicros The current time on the clock the events use.
+     */
+    public void poll(long nowMicros) {
+        if (finished || keyDown || !seenMark || warmupCount < WARMUP_EVENTS || nowMicros < lastEdgeMicros) {
+            return;
+        }
+        eventMicros = nowMicros;
+        openGap((nowMicros - lastEdgeMicros) / 1000.0);
+    }
+
+    /**
+     * Signals the end of the session: the last symbol is flushed. A mark still held down is
+     * dropped; send its key-up first. No more events can be fed afterwards.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        if (warmupCount < WARMUP_EVENTS) {
+            replayWarmup(); // Short session: estimate from whatever was collected
+        }
+        int before = text.length();
+        textDecoder.finish(text);
+        report(before);
+        finished = true;
+    }
+
+    /** The Morse code decoded so far (e.g. "... --- ..."). */
+    public String getMorse() {
+        return morse.toString();
+    }
+
+    /** The text decoded so far. */
+    public String getText() {
+        return text.toString();
+    }
+
+    /** Current estimate of the unit length in milliseconds. */
+    public double getUnitMs() {
+        return unitMs;
+    }
+
+    /** Current estimate of the sender's speed in words per minute (PARIS standard). */
+    public double getWpm() {
+        return 1200 / unitMs;
+    }
+
+    // --- Timing classification (also fed directly by MorseAudioDecoder) ---
+
+    /** Records a mark of the given length. */
+    void mark(double durationMs) {
+        checkNotFinished();
+        record(durationMs);
+    }
+
+    /** Records a complete gap of the given length. */
+    void gap(double durationMs) {
+        checkNotFinished();
+        record(-durationMs);
+    }
+
+    /** Classifies a mark (positive) or gap (negative), or holds it back during warm-up. */
+    private void record(double signedMs) {
+        if (warmupCount < WARMUP_EVENTS) {
+            warmup[warmupCount++] = signedMs;
+            if (warmupCount == WARMUP_EVENTS) {
+                replayWarmup();
+            }
+        } else if (signedMs > 0) {
+            endMark(signedMs);
+        } else {
+            endGap(-signedMs);
+        }
+    }
+
+    /**
+     * Sets the first speed estimate from the held-back events and classifies them.
+     * The second-shortest duration is the dit, so a single glitch cannot skew the estimate.
+     */
+    private void replayWarmup() {
+        int count = warmupCount;
+        warmupCount = WARMUP_EVENTS; // From now on, events are classified directly
+        if (count == 0) {
+            return;
+        }
+        double[] durations = new double[count];
+        for (int i = 0; i < count; i++) {
+            durations[i] = Math.abs(warmup[i]);
+        }
+        Arrays.sort(durations);
+        double estimate = durations[Math.min(1, count - 1)];
+        // A lone long element (e.g. "T") says nothing about the speed: keep the initial guess then.
+        if (count > 1) {
+            unitMs = estimate;
+        }
+        for (int i = 0; i < count; i++) {
+            record(warmup[i]);
+        }
+    }
+
+    private void endMark(double durationMs) {
+        if (durationMs < threshold(DIT)) {
+            emit(".");
+            adapt(DIT, durationMs);
+        } else {
+            emit("-");
+            adapt(DAH, durationMs);
+        }
+        gapLevel = 0;
+    }
+
+    private void endGap(double durationMs) {
+        if (gapLevel == 0 && durationMs < threshold(ELEMENT_GAP)) {
+            adapt(ELEMENT_GAP, durationMs);
+        } else {
+            openGap(durationMs);
+            adapt(durationMs < threshold(CHAR_GAP) ? CHAR_GAP : WORD_GAP, durationMs);
+        }
+    }
+
+    /** Emits the character and word gaps a silence of this length has reached, once each. */
+    private void openGap(double durationMs) {
+        if (gapLevel < 1 && durationMs >= threshold(ELEMENT_GAP)) {
+            emit(" ");
+            gapLevel = 1;
+        }
+        if (gapLevel < 2 && durationMs >= threshold(CHAR_GAP)) {
+            emit("/ "); // Completes " / " after the character gap
+            gapLevel = 2;
+        }
+    }
+
+    /** The length between one kind and the next longer one: the boundary of their clusters. */
+    private double threshold(int kind) {
+        return (ratios[kind] + ratios[kind + 1]) / 2 * unitMs;
+    }
+
+    /** Moves the unit, and the typical length of one kind, towards a duration of that kind. */
+    private void adapt(int kind, double durationMs) {
+        double units = durationMs / unitMs;
+        unitMs += (durationMs / ratios[kind] - unitMs) * ADAPT_RATE;
+        if (kind != DIT) { // The dit defines the unit
+            ratios[kind] += (units - ratios[kind]) * RATIO_ADAPT_RATE;
+        }
+        // Keep neighbouring kinds apart, so a run of outliers cannot merge them
+        ratios[DAH] = Math.max(ratios[DAH], ratios[DIT] * MIN_RATIO_STEP);
+        ratios[CHAR_GAP] = Math.max(ratios[CHAR_GAP], ratios[ELEMENT_GAP] * MIN_RATIO_STEP);
+        ratios[WORD_GAP] = Math.max(ratios[WORD_GAP], ratios[CHAR_GAP] * MIN_RATIO_STEP);
+    }
+
+    // --- Text ---
+
+    private void emit(String code) {
+        morse.append(code);
+        int before = text.length();
+        textDecoder.decode(code, text);
+        report(before);
+    }
+
+    /** Passes the text decoded since {@code before} to the listener. */
+    private void report(int before) {
+        if (listener != null && text.length() > before) {
+            listener.decoded(text.substring(before), eventMicros);
+        }
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("Decoder already finished");
+        }
+    }
+}
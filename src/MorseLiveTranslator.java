@@ -0,0 +1,503 @@
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps an output document translated from an input document while the input is edited.
+ *
+ * The input is split into segments of a few thousand characters, cut right after a space
+ * (or, when decoding, a space or '/'), exactly like the chunks of the parallel translation in
+ * {@link MorseCodeTranslator}. The output is the segments' translations joined by the same
+ * separators the whole-input translation would write; each segment only remembers where its
+ * translation sits in the output, so the text is not held twice. An edit only marks the segments it touches; after a short pause in typing,
+ * just those segments (and the next one, in case a cut point was edited away) are read back,
+ * re-cut and translated on a {@link MorseService} thread, and the changed stretch of the
+ * output is spliced in. Large splices are written in batches, one per event, so the event
+ * dispatch thread never holds up typing for long.
+ *
+ * All methods, like the document listener, must be called on the event dispatch thread.
+ */
+public class MorseLiveTranslator {
+
+    /** Which way the input is translated. */
+    public enum Direction { ENCODE, DECODE }
+
+    // --- Tuning ---
+    private static final int SEGMENT_CHARS = 4096;   // Target segment length; cuts fall at the next space
+    private static final int DEBOUNCE_MS = 120;      // Pause in typing before translating
+    private static final int BATCH_CHARS = 1 << 16;  // Output characters inserted per event
+
+    private final Document input;
+    private final Document output;
+    private final MorseService service;
+    private final Timer debounce;
+    private final DocumentListener listener = new InputListener();
+
+    private Direction direction = Direction.ENCODE;
+    private boolean attached;
+    private boolean live = true;
+
+    // --- Model (event dispatch thread only) ---
+    private final List<Segment> segments = new ArrayList<>();
+    private long version;                   // Bumped by every edit and reset, to spot stale results
+    private boolean busy;                   // A translation or an output splice is in progress
+    private final Deque<Runnable> batches = new ArrayDeque<>();
+    private long lastTranslatedChars;
+
+    /**
+     * Creates a live translator; it does nothing until {@link #start(Direction)} is called.
+     *
+     * @param input   The document holding the text (or Morse code) to translate.
+     * @param output  The document the translation is written to; it should not be edited otherwise.
+     * @param service Runs the translations off the event dispatch thread.
+     */
+    public MorseLiveTranslator(Document input, Document output, MorseService service) {
+        this.input = input;
+        this.output = output;
+        this.service = service;
+        this.debounce = new Timer(DEBOUNCE_MS, e -> translatePending());
+        this.debounce.setRepeats(false);
+    }
+
+    // --- Controls ---
+
+    /**
+     * Translates the input in the given direction and keeps following it. If the translator
+     * is already following the input in that direction, only what changed is translated.
+     */
+    public void start(Direction newDirection) {
+        if (!attached || newDirection != direction) {
+            stop();
+            direction = newDirection;
+            input.addDocumentListener(listener);
+            attached = true;
+            version++;
+            try {
+                output.remove(0, output.getLength());
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e); // Cannot happen: the range is the whole document
+            }
+            Segment all = new Segment(input.getLength());
+            all.dirty = true;
+            segments.add(all);
+        }
+        debounce.stop();
+        translatePending();
+    }
+
+    /** Stops following the input. The output is left as it is. */
+    public void stop() {
+        if (attached) {
+            input.removeDocumentListener(listener);
+            attached = false;
+        }
+        debounce.stop();
+        batches.clear();
+        segments.clear();
+        version++; // Results of a running translation are dropped
+    }
+
+    /**
+     * Chooses whether edits are translated as they happen (the default) or only on the
+     * next {@link #start(Direction)}.
+     */
+    public void setLive(boolean live) {
+        this.live = live;
+        if (live && attached) {
+            debounce.restart();
+        }
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /** True while following the input. */
+    public boolean isStarted() {
+        return attached;
+    }
+
+    /** True if the output is up to date with the input. */
+    boolean isIdle() {
+        if (busy) {
+            return false;
+        }
+        for (Segment segment : segments) {
+            if (segment.dirty) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Number of input characters translated by the last translation (for tests). */
+    long getLastTranslatedChars() {
+        return lastTranslatedChars;
+    }
+
+    // --- Edits ---
+
+    /** Tracks edits in the segment model; the translation follows after the debounce delay. */
+    private final class InputListener implements DocumentListener {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            int offset = e.getOffset();
+            int start = 0;
+            int index = 0;
+            // The segment containing the offset, or the last one for an append
+            while (index < segments.size() - 1 && start + segments.get(index).length <= offset) {
+                start += segments.get(index).length;
+                index++;
+            }
+            if (segments.isEmpty()) {
+                segments.add(new Segment(0));
+            }
+            Segment segment = segments.get(index);
+            segment.length += e.getLength();
+            segment.dirty = true;
+            edited();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            int from = e.getOffset();
+            int to = from + e.getLength();
+            int start = 0;
+            for (Segment segment : segments) {
+                int end = start + segment.length;
+                int overlap = Math.min(end, to) - Math.max(start, from);
+                if (overlap > 0) {
+                    segment.length -= overlap;
+                    segment.dirty = true;
+                }
+                start = end;
+            }
+            edited();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            // Attribute changes do not affect the text
+        }
+    }
+
+    private void edited() {
+        version++;
+        if (live) {
+            debounce.restart();
+        }
+    }
+
+    // --- Translation ---
+
+    /** Reads back the dirty runs of segments and translates them off the event dispatch thread. */
+    private void translatePending() {
+        if (busy || !attached) {
+            return; // Picked up again when the current work is done
+        }
+        List<Run> runs = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < segments.size(); ) {
+            if (!segments.get(i).dirty) {
+                start += segments.get(i++).length;
+                continue;
+            }
+            Run run = new Run(i);
+            // Take the dirty segments plus the clean one after them, whose start may no longer be a cut point
+            int length = 0;
+            while (i < segments.size() && segments.get(i).dirty) {
+                length += segments.get(i++).length;
+            }
+            if (i < segments.size()) {
+                length += segments.get(i++).length;
+            }
+            run.count = i - run.first;
+            try {
+                run.text = input.getText(start, length);
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e); // Cannot happen: the model follows every edit
+            }
+            runs.add(run);
+            start += length;
+        }
+        if (runs.isEmpty()) {
+            return;
+        }
+
+        busy = true;
+        long stamp = version;
+        Direction runDirection = direction;
+        service.submit("live-" + runDirection.name().toLowerCase(), () -> {
+            for (Run run : runs) {
+                translate(run, runDirection);
+            }
+            return runs;
+        }).whenComplete((translated, error) -> SwingUtilities.invokeLater(() -> {
+            busy = false;
+            if (error != null || stamp != version) {
+                // Edited (or failed) meanwhile: the segments are still dirty, so try again later
+                if (attached) {
+                    debounce.restart();
+                }
+                return;
+            }
+            long chars = 0;
+            for (Run run : runs) {
+                chars += run.text.length();
+            }
+            lastTranslatedChars = chars;
+            apply(runs);
+        }));
+    }
+
+    /**
+     * Cuts a run of input into segments, translates each one and joins the translations.
+     * Runs on a worker thread. Only the separator in front of the run's first output depends
+     * on what comes before the run, so the body is joined here rather than on the event
+     * dispatch thread.
+     */
+    private static void translate(Run run, Direction direction) {
+        boolean encoding = direction == Direction.ENCODE;
+        String text = run.text;
+        List<Segment> result = new ArrayList<>();
+        Joiner joiner = new Joiner(direction);
+        StringBuilder body = new StringBuilder();
+        int start = 0;
+        while (start < text.length()) {
+            int end = MorseCodeTranslator.nextChunkEnd(text, start + SEGMENT_CHARS, encoding);
+            String chunk = text.substring(start, end);
+            Segment segment = new Segment(chunk.length());
+            String output = encoding ? MorseCodeTranslator.lettersToMorseCode(chunk)
+                    : MorseCodeTranslator.morseCodeToLetters(chunk);
+            // The output itself lives in the output document; the model keeps what joining needs
+            segment.outputLength = output.length();
+            segment.lastChar = output.isEmpty() ? 0 : output.charAt(output.length() - 1);
+            if (!encoding) {
+                segment.scanSeparators(chunk);
+            }
+            segment.separator = joiner.separator(segment);
+            body.append(segment.separator).append(output);
+            result.add(segment);
+            start = end;
+        }
+        run.replacement = result;
+        run.body = body.toString();
+    }
+
+    /**
+     * Puts the translated runs into the model, works out which stretches of the output
+     * changed (including separators next to them), and queues the splices.
+     */
+    private void apply(List<Run> runs) {
+        List<Segment> merged = new ArrayList<>(segments.size());
+        List<Splice> splices = new ArrayList<>();
+        Splice pending = null;
+        Joiner joiner = new Joiner(direction);
+        int oldPosition = 0;
+        int next = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Run run = next < runs.size() && runs.get(next).first == i ? runs.get(next++) : null;
+            if (run != null) {
+                int oldLength = 0;
+                for (int j = i; j < i + run.count; j++) {
+                    oldLength += segments.get(j).renderedLength();
+                }
+                if (pending == null) {
+                    pending = new Splice(oldPosition);
+                }
+                pending.oldLength += oldLength;
+                oldPosition += oldLength;
+                String leadingSeparator = null;
+                for (Segment segment : run.replacement) {
+                    String separator = joiner.separator(segment);
+                    if (leadingSeparator == null && segment.outputLength > 0) {
+                        leadingSeparator = separator; // The body starts without it; the rest match
+                    }
+                    segment.separator = separator;
+                    merged.add(segment);
+                }
+                pending.pieces.add(leadingSeparator == null ? "" : leadingSeparator);
+                pending.pieces.add(run.body);
+                i += run.count - 1;
+                continue;
+            }
+            // A segment that was not translated again can only gain or lose its separator
+            Segment segment = segments.get(i);
+            String separator = joiner.separator(segment);
+            if (!separator.equals(segment.separator)) {
+                if (pending == null) {
+                    pending = new Splice(oldPosition);
+                }
+                pending.oldLength += segment.separator.length();
+                pending.pieces.add(separator);
+            }
+            if (pending != null) {
+                splices.add(pending); // Its output stays as it is
+                pending = null;
+            }
+            oldPosition += segment.renderedLength();
+            segment.separator = separator;
+            merged.add(segment);
+        }
+        if (pending != null) {
+            splices.add(pending);
+        }
+        segments.clear();
+        segments.addAll(merged);
+
+        // Back to front, so the offsets of the splices still to do stay valid
+        for (int i = splices.size() - 1; i >= 0; i--) {
+            queueSplice(splices.get(i));
+        }
+        busy = true;
+        runBatches();
+    }
+
+    /** Queues the removal of a splice's old text and the insertion of its new text in batches. */
+    private void queueSplice(Splice splice) {
+        batches.add(() -> remove(splice.position, splice.oldLength));
+        int position = splice.position;
+        for (String piece : splice.pieces) {
+            for (int from = 0; from < piece.length(); from += BATCH_CHARS) {
+                int at = position + from;
+                int offset = from;
+                batches.add(() -> insert(at, piece.substring(offset, Math.min(piece.length(), offset + BATCH_CHARS))));
+            }
+            position += piece.length();
+        }
+    }
+
+    /** Runs one batch, then yields the event dispatch thread until the next one. */
+    private void runBatches() {
+        Runnable batch = batches.poll();
+        if (batch != null) {
+            batch.run();
+            SwingUtilities.invokeLater(this::runBatches);
+            return;
+        }
+        busy = false;
+        if (attached && !isIdle()) {
+            debounce.restart(); // Edited while the output was being written
+        }
+    }
+
+    private void remove(int position, int length) {
+        try {
+            output.remove(position, length);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e); // Cannot happen: the model mirrors the output
+        }
+    }
+
+    private void insert(int position, String text) {
+        try {
+            output.insertString(position, text, null);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e); // Cannot happen: the model mirrors the output
+        }
+    }
+
+    // --- Model ---
+
+    /** A piece of the input, cut right after a space (or '/'), and the shape of its translation. */
+    private static final class Segment {
+        int length;
+        boolean dirty;
+        int outputLength;
+        char lastChar;            // Last character of the output, if any
+        String separator = "";    // Written before the output: "", " " or " / "
+        // Decoding only: where '/' word separators sit among the blanks at either end
+        boolean blank = true;     // Nothing but blanks and separators
+        boolean slashInside;
+        boolean slashAtStart;
+        boolean slashAtEnd;
+
+        Segment(int length) {
+            this.length = length;
+        }
+
+        /** Length of the separator plus output, as they are in the output document. */
+        int renderedLength() {
+            return separator.length() + outputLength;
+        }
+
+        void scanSeparators(String chunk) {
+            int first = 0;
+            while (first < chunk.length() && MorseCodeTranslator.isBlankOrSeparator(chunk.charAt(first))) {
+                slashAtStart |= chunk.charAt(first++) == '/';
+            }
+            blank = first == chunk.length();
+            slashInside = chunk.indexOf('/') >= 0;
+            for (int i = chunk.length() - 1; i >= first && MorseCodeTranslator.isBlankOrSeparator(chunk.charAt(i)); i--) {
+                slashAtEnd |= chunk.charAt(i) == '/';
+            }
+        }
+    }
+
+    /**
+     * Works out the separator in front of each segment, walking the segments in order. The
+     * rules are those of the parallel translation: encoded words are joined with " / ", and
+     * decoded text gets a space where a '/' stands between two letters, unless the letter
+     * before it is a '?'.
+     */
+    private static final class Joiner {
+        private final Direction direction;
+        private boolean seenOutput;      // A segment before this one had output
+        private char lastChar;           // The last character output so far
+        private boolean slashSinceOutput; // A '/' among the blanks since that output
+
+        Joiner(Direction direction) {
+            this.direction = direction;
+        }
+
+        String separator(Segment segment) {
+            String separator = "";
+            if (segment.outputLength > 0) {
+                if (seenOutput) {
+                    if (direction == Direction.ENCODE) {
+                        separator = " / ";
+                    } else if (lastChar != '?' && (slashSinceOutput || segment.slashAtStart)) {
+                        separator = " ";
+                    }
+                }
+                seenOutput = true;
+                lastChar = segment.lastChar;
+                slashSinceOutput = segment.slashAtEnd;
+            } else {
+                slashSinceOutput |= segment.slashInside;
+            }
+            return separator;
+        }
+    }
+
+    /** Consecutive segments being translated again, and their translation. */
+    private static final class Run {
+        final int first;          // Index of the first segment it replaces
+        int count;                // Number of segments it replaces
+        String text;
+        List<Segment> replacement;
+        String body;              // The replacement's output, joined, minus the separator in front
+
+        Run(int first) {
+            this.first = first;
+        }
+    }
+
+    /** A change to the output: replace {@code oldLength} characters at {@code position}. */
+    private static final class Splice {
+        final int position;
+        int oldLength;
+        final List<String> pieces = new ArrayList<>(); // The new text, in order
+
+        Splice(int position) {
+            this.position = position;
+        }
+    }
+}
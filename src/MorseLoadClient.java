@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Load generator for {@link MorseServer}.
+ * Opens many connections from a single selector thread; each connection sends one request
+ * at a time (alternating encode and decode), waits for the response, checks it against the
+ * local translation and sends the next. The time from sending a request to receiving the
+ * end of its response is recorded, and the run is summarised as requests per second and
+ * latency percentiles.
+ *
+ * Usage:
+ * <pre>
+ *   java MorseLoadClient [host] [port] [connections] [requests per connection] [message length]
+ * </pre>
+ */
+public class MorseLoadClient {
+
+    // Give up when no response arrives for this long.
+    private static final long STALL_TIMEOUT_NANOS = 30_000_000_000L;
+
+    /** Outcome of a load run. Latencies are in milliseconds. */
+    public static final class Result {
+        private final long requests;
+        private final long errors;
+        private final double seconds;
+        private final double p50;
+        private final double p99;
+        private final double max;
+
+        Result(long requests, long errors, double seconds, double p50, double p99, double max) {
+            this.requests = requests;
+            this.errors = errors;
+            this.seconds = seconds;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        /** Number of responses received. */
+        public long getRequests() {
+            return requests;
+        }
+
+        /** Number of responses that did not match the expected translation. */
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getRequestsPerSecond() {
+            return requests / Math.max(seconds, 1e-9);
+        }
+
+        public double getP50Millis() {
+            return p50;
+        }
+
+        public double getP99Millis() {
+            return p99;
+        }
+
+        public double getMaxMillis() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%,d requests in %.2f s (%,.0f req/s), latency p50 %.3f ms, p99 %.3f ms, max %.3f ms, %,d errors",
+                    requests, seconds, getRequestsPerSecond(), p50, p99, max, errors);
+        }
+    }
+
+    /** One simulated client. */
+    private static final class Client {
+        final SocketChannel channel;
+        final ByteBuffer response;
+        ByteBuffer request;             // Part of the current request not yet sent
+        int sent;                       // Requests sent so far
+        long sentAt;                    // System.nanoTime() when the current request was sent
+
+        Client(SocketChannel channel, int responseCapacity) {
+            this.channel = channel;
+            this.response = ByteBuffer.allocate(responseCapacity);
+        }
+    }
+
+    /**
+     * Runs a load test against a server and waits for it to complete.
+     *
+     * @param server                The server address.
+     * @param connections           The number of concurrent connections.
+     * @param requestsPerConnection The number of requests each connection sends, one after another.
+     * @param messageLength         The length of the text in each request.
+     * @return The measured throughput and latencies.
+     * @throws IOException If connecting fails or the server stops responding.
+     */
+    public static Result run(InetSocketAddress server, int connections, int requestsPerConnection,
+                             int messageLength) throws IOException {
+        // Two requests, used alternately: encode a text, and decode its Morse code.
+        String text = randomText(messageLength);
+        String morse = MorseCodeTranslator.lettersToMorseCode(text);
+        byte[][] requests = {ascii("E " + text + "\n"), ascii("D " + morse + "\n")};
+        byte[][] expected = {ascii(morse + "\n"), ascii(MorseCodeTranslator.morseCodeToLetters(morse) + "\n")};
+        int responseCapacity = Math.max(expected[0].length, expected[1].length) + 1;
+
+        long[] latencies = new long[connections * requestsPerConnection];
+        int received = 0;
+        int outstanding = latencies.length;
+        long errors = 0;
+        long start = System.nanoTime();
+
+        try (Selector selector = Selector.open()) {
+            try {
+                for (int i = 0; i < connections; i++) {
+                    SocketChannel channel = SocketChannel.open();
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    channel.connect(server);
+                    channel.register(selector, SelectionKey.OP_CONNECT, new Client(channel, responseCapacity));
+                }
+
+                long lastProgress = System.nanoTime();
+                while (outstanding > 0) {
+                    if (selector.select(1000) == 0 && System.nanoTime() - lastProgress > STALL_TIMEOUT_NANOS) {
+                        throw new IOException("Server stopped responding after " + received + " responses");
+                    }
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Client client = (Client) key.attachment();
+                        if (key.isConnectable()) {
+                            client.channel.finishConnect();
+                            startRequest(client, requests);
+                        }
+                        if (key.isWritable() || client.request.hasRemaining()) {
+                            client.channel.write(client.request);
+                        }
+                        if (key.isReadable()) {
+                            int count = client.channel.read(client.response);
+                            boolean complete = client.response.position() > 0
+                                    && client.response.get(client.response.position() - 1) == '\n';
+                            if (count < 0 && !complete) {
+                                // Connection lost: the rest of its requests fail
+                                errors += requestsPerConnection - client.sent + 1;
+                                outstanding -= requestsPerConnection - client.sent + 1;
+                                key.cancel();
+                                client.channel.close();
+                                continue;
+                            }
+                            if (complete || !client.response.hasRemaining()) {
+                                latencies[received++] = System.nanoTime() - client.sentAt;
+                                outstanding--;
+                                lastProgress = System.nanoTime();
+                                if (!matches(client.response, expected[(client.sent - 1) % 2])) {
+                                    errors++;
+                                }
+                                if (client.sent == requestsPerConnection) {
+                                    key.cancel();
+                                    client.channel.close();
+                                    continue;
+                                }
+                                startRequest(client, requests);
+                                client.channel.write(client.request);
+                            }
+                        }
+                        key.interestOps(client.request.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies, 0, received);
+        return new Result(received, errors, seconds,
+                percentile(latencies, received, 0.50), percentile(latencies, received, 0.99),
+                received == 0 ? 0 : latencies[received - 1] / 1e6);
+    }
+
+    private static void startRequest(Client client, byte[][] requests) {
+        client.request = ByteBuffer.wrap(requests[client.sent % 2]);
+        client.response.clear();
+        client.sent++;
+        client.sentAt = System.nanoTime();
+    }
+
+    private static boolean matches(ByteBuffer response, byte[] expected) {
+        if (response.position() != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (response.get(i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns a latency percentile in milliseconds (nearest-rank method). */
+    private static double percentile(long[] sorted, int count, double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * count);
+        return sorted[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    /** Random words of letters and digits, always the same for a given length. */
+    private static String randomText(int length) {
+        Random random = new Random(length);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            boolean space = text.length() > 0 && text.charAt(text.length() - 1) != ' '
+                    && text.length() < length - 1 && random.nextInt(6) == 0;
+            text.append(space ? ' ' : alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Runs a load test with the command-line arguments and prints the result. */
+    public static void main(String[] args) {
+        try {
+            String host = args.length > 0 ? args[0] : "localhost";
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : MorseServer.DEFAULT_PORT;
+            int connections = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+            int requests = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+            int messageLength = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+            System.out.println(run(new InetSocketAddress(host, port), connections, requests, messageLength));
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: MorseLoadClient [host] [port] [connections] [requests per connection] [message length]");
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
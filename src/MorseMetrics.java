@@ -0,0 +1,343 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Built-in instrumentation of the translator and the audio player.
+ *
+ * Metrics are off unless the JVM is started with {@code -Dmorse.metrics=true}. The switch is
+ * a {@code static final} constant, so when it is off the JIT removes the instrumentation
+ * from the hot paths entirely. When it is on:
+ * <ul>
+ *   <li>every encode and decode call counts its input and output chars and unknown
+ *       characters or symbols, and records its latency in a histogram;</li>
+ *   <li>rendering and playback count the samples produced, playback counts line underruns
+ *       and records how much later than scheduled each message finished;</li>
+ *   <li>the totals are published as the JMX MXBean {@code r2d2.morse:type=Metrics}
+ *       (see {@link MorseMetricsMXBean}), e.g. for JConsole or VisualVM;</li>
+ *   <li>each call is also a JFR event ({@code r2d2.morse.Translation} and
+ *       {@code r2d2.morse.Playback}), recorded whenever a flight recording is running
+ *       on a JVM that has JFR (see {@link MorseFlightRecorder}).</li>
+ * </ul>
+ * Counters are {@link LongAdder}s, so concurrent translations do not contend on them.
+ */
+public final class MorseMetrics implements MorseMetricsMXBean {
+
+    /** System property that turns the metrics on. */
+    public static final String ENABLED_PROPERTY = "morse.metrics";
+    /** Name under which the MXBean is registered. */
+    public static final String OBJECT_NAME = "r2d2.morse:type=Metrics";
+
+    static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+    private static final MorseMetrics INSTANCE = new MorseMetrics();
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                System.err.println("MorseMetrics: could not register the MXBean: " + e.getMessage());
+            }
+        }
+    }
+
+    // --- Translation ---
+    private final LongAdder encodeCalls = new LongAdder();
+    private final LongAdder encodeCharsIn = new LongAdder();
+    private final LongAdder encodeCharsOut = new LongAdder();
+    private final LongAdder unknownCharacters = new LongAdder();
+    private final Histogram encodeLatency = new Histogram();     // Nanoseconds
+    private final LongAdder decodeCalls = new LongAdder();
+    private final LongAdder decodeCharsIn = new LongAdder();
+    private final LongAdder decodeCharsOut = new LongAdder();
+    private final LongAdder unknownSymbols = new LongAdder();
+    private final Histogram decodeLatency = new Histogram();     // Nanoseconds
+
+    // --- Audio ---
+    private final LongAdder samplesRendered = new LongAdder();
+    private final LongAdder messagesPlayed = new LongAdder();
+    private final LongAdder lineUnderruns = new LongAdder();
+    private final Histogram playbackDrift = new Histogram();     // Nanoseconds late
+
+    private MorseMetrics() {
+    }
+
+    /** Returns the metrics (all zero while metrics are disabled). */
+    public static MorseMetrics get() {
+        return INSTANCE;
+    }
+
+    /** Returns true if the JVM was started with metrics enabled. */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // --- Recording (callers check ENABLED first) ---
+
+    /** Starts timing an encode call. */
+    static Translation startEncode() {
+        return new Translation(true);
+    }
+
+    /** Starts timing a decode call. */
+    static Translation startDecode() {
+        return new Translation(false);
+    }
+
+    /** Starts timing the playback of one message. */
+    static Playback startPlayback() {
+        return new Playback();
+    }
+
+    /** Counts samples rendered without playing them. */
+    static void samplesRendered(long samples) {
+        INSTANCE.samplesRendered.add(samples);
+    }
+
+    // --- MXBean ---
+
+    @Override
+    public long getEncodeCalls() {
+        return encodeCalls.sum();
+    }
+
+    @Override
+    public long getEncodeCharsIn() {
+        return encodeCharsIn.sum();
+    }
+
+    @Override
+    public long getEncodeCharsOut() {
+        return encodeCharsOut.sum();
+    }
+
+    @Override
+    public long getUnknownCharacters() {
+        return unknownCharacters.sum();
+    }
+
+    @Override
+    public double getEncodeLatencyP50Micros() {
+        return encodeLatency.percentile(0.50) / 1e3;
+    }
+
+    @Override
+    public double getEncodeLatencyP99Micros() {
+        return encodeLatency.percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getEncodeLatencyMaxMicros() {
+        return encodeLatency.max() / 1e3;
+    }
+
+    @Override
+    public long getDecodeCalls() {
+        return decodeCalls.sum();
+    }
+
+    @Override
+    public long getDecodeCharsIn() {
+        return decodeCharsIn.sum();
+    }
+
+    @Override
+    public long getDecodeCharsOut() {
+        return decodeCharsOut.sum();
+    }
+
+    @Override
+    public long getUnknownSymbols() {
+        return unknownSymbols.sum();
+    }
+
+    @Override
+    public double getDecodeLatencyP50Micros() {
+        return decodeLatency.percentile(0.50) / 1e3;
+    }
+
+    @Override
+    public double getDecodeLatencyP99Micros() {
+        return decodeLatency.percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getDecodeLatencyMaxMicros() {
+        return decodeLatency.max() / 1e3;
+    }
+
+    @Override
+    public long getSamplesRendered() {
+        return samplesRendered.sum();
+    }
+
+    @Override
+    public long getMessagesPlayed() {
+        return messagesPlayed.sum();
+    }
+
+    @Override
+    public long getLineUnderruns() {
+        return lineUnderruns.sum();
+    }
+
+    @Override
+    public double getPlaybackDriftP50Millis() {
+        return playbackDrift.percentile(0.50) / 1e6;
+    }
+
+    @Override
+    public double getPlaybackDriftMaxMillis() {
+        return playbackDrift.max() / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder counter : new LongAdder[] {encodeCalls, encodeCharsIn, encodeCharsOut, unknownCharacters,
+                decodeCalls, decodeCharsIn, decodeCharsOut, unknownSymbols,
+                samplesRendered, messagesPlayed, lineUnderruns}) {
+            counter.reset();
+        }
+        encodeLatency.reset();
+        decodeLatency.reset();
+        playbackDrift.reset();
+    }
+
+    // --- Events ---
+
+    /** One encode or decode call, timed from its creation. */
+    static final class Translation {
+        private final boolean encode;
+        private final long startNanos = System.nanoTime();
+        private final Object event = MorseFlightRecorder.begin(MorseFlightRecorder.TRANSLATION);
+
+        private Translation(boolean encode) {
+            this.encode = encode;
+        }
+
+        /** Records the finished call. */
+        void end(long charsIn, long charsOut, long unknown) {
+            long nanos = System.nanoTime() - startNanos;
+            MorseMetrics metrics = INSTANCE;
+            if (encode) {
+                metrics.encodeCalls.increment();
+                metrics.encodeCharsIn.add(charsIn);
+                metrics.encodeCharsOut.add(charsOut);
+                metrics.unknownCharacters.add(unknown);
+                metrics.encodeLatency.record(nanos);
+            } else {
+                metrics.decodeCalls.increment();
+                metrics.decodeCharsIn.add(charsIn);
+                metrics.decodeCharsOut.add(charsOut);
+                metrics.unknownSymbols.add(unknown);
+                metrics.decodeLatency.record(nanos);
+            }
+            MorseFlightRecorder.commitTranslation(event, encode, charsIn, charsOut, unknown);
+        }
+    }
+
+    /** The playback of one message, timed from its creation. */
+    static final class Playback {
+        private long underruns;
+        private final Object event = MorseFlightRecorder.begin(MorseFlightRecorder.PLAYBACK);
+
+        private Playback() {
+        }
+
+        /** Counts a moment where the line had nothing left to play. */
+        void underrun() {
+            underruns++;
+        }
+
+        /**
+         * Records the finished playback.
+         * @param samples    The samples played.
+         * @param driftNanos Real minus scheduled duration.
+         */
+        void end(long samples, long driftNanos) {
+            MorseMetrics metrics = INSTANCE;
+            metrics.messagesPlayed.increment();
+            metrics.samplesRendered.add(samples);
+            metrics.lineUnderruns.add(underruns);
+            metrics.playbackDrift.record(Math.max(0, driftNanos));
+            MorseFlightRecorder.commitPlayback(event, samples, underruns, driftNanos / 1e6);
+        }
+    }
+
+    /**
+     * A lock-free histogram of non-negative values. Each power of two is split into four
+     * buckets, so any value is known to within 25% while the whole range of a long fits in
+     * 256 counters.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final LongAdder[] counts = new LongAdder[64 * SUB_BUCKETS];
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        void record(long value) {
+            counts[bucket(value)].increment();
+            max.accumulate(value);
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        /** Returns the upper bound of the bucket holding the given fraction of the values, or 0 if empty. */
+        long percentile(double fraction) {
+            long[] snapshot = new long[counts.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                snapshot[i] = counts[i].sum();
+                total += snapshot[i];
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                seen += snapshot[i];
+                if (total > 0 && seen >= rank) {
+                    return Math.min(upperBound(i), max.get());
+                }
+            }
+            return 0;
+        }
+
+        void reset() {
+            for (LongAdder count : counts) {
+                count.reset();
+            }
+            max.reset();
+        }
+
+        /** Values below 4 get a bucket each; above that, the top three bits pick the bucket. */
+        static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) Math.max(value, 0);
+            }
+            int magnitude = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return magnitude * SUB_BUCKETS + subBucket;
+        }
+
+        /** Returns the largest value that falls into a bucket. */
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int magnitude = bucket / SUB_BUCKETS;
+            long subBucket = bucket % SUB_BUCKETS;
+            long next = (SUB_BUCKETS + subBucket + 1) << (magnitude - SUB_BUCKET_BITS);
+            return next - 1 < 0 ? Long.MAX_VALUE : next - 1;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Management interface of {@link MorseMetrics}, registered as {@code r2d2.morse:type=Metrics}
+ * when metrics are enabled ({@code -Dmorse.metrics=true}).
+ * Latency percentiles are estimates from a histogram (within 25% of the true value).
+ */
+public interface MorseMetricsMXBean {
+
+    // --- Translation ---
+
+    long getEncodeCalls();
+
+    long getEncodeCharsIn();
+
+    long getEncodeCharsOut();
+
+    /** Input characters ignored because the alphabet has no code for them. */
+    long getUnknownCharacters();
+
+    double getEncodeLatencyP50Micros();
+
+    double getEncodeLatencyP99Micros();
+
+    double getEncodeLatencyMaxMicros();
+
+    long getDecodeCalls();
+
+    long getDecodeCharsIn();
+
+    long getDecodeCharsOut();
+
+    /** Morse symbols decoded to '?'. */
+    long getUnknownSymbols();
+
+    double getDecodeLatencyP50Micros();
+
+    double getDecodeLatencyP99Micros();
+
+    double getDecodeLatencyMaxMicros();
+
+    // --- Audio ---
+
+    /** 16-bit samples rendered for playback or offline rendering. */
+    long getSamplesRendered();
+
+    long getMessagesPlayed();
+
+    /** Times the audio line ran dry during playback (a gap the listener can hear). */
+    long getLineUnderruns();
+
+    /** How much later than scheduled a played message finished, median over messages. */
+    double getPlaybackDriftP50Millis();
+
+    double getPlaybackDriftMaxMillis();
+
+    /** Sets all counters and histograms back to zero. */
+    void reset();
+}
@@ -0,0 +1,318 @@
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Mixes many Morse messages into one PCM stream, e.g. to simulate a pile-up for training.
+ *
+ * Each voice is a Morse message with its own pitch, speed, start time and gain. Rendering
+ * runs block by block: every voice still sounding reads its next block from its own
+ * {@link MorsePcmStream} (precomputed, click-free tones from {@link MorseWaveforms}) and adds
+ * it, scaled by its gain, to a floating-point mix. The mix then goes through a limiter:
+ * when a block would clip, the gain drops to what that block needs from its first sample
+ * (instant attack) and recovers smoothly over the following ones (slow release). The final
+ * clamp only guards against rounding, so the output never wraps around.
+ *
+ * With a {@link ForkJoinPool}, the voices of each block are split into groups mixed
+ * concurrently; worthwhile from a few dozen voices on. Output is 16-bit signed
+ * little-endian mono, like {@link MorseAudioPlayer} plays.
+ */
+public class MorseMixer {
+
+    // --- Rendering Configuration ---
+    private static final int BLOCK_SAMPLES = 4096;         // Samples mixed per block (~93 ms at 44.1 kHz)
+    private static final int MIN_PARALLEL_VOICES = 16;     // Fewest voices worth a task of their own
+    private static final float CEILING = 0.98f * Short.MAX_VALUE; // Limiter target, just below full scale
+    private static final float RELEASE_PER_BLOCK = 0.05f;  // Limiter gain recovery per block
+
+    private final float sampleRate;
+    private final double riseTimeMs;
+    private final List<Voice> voices = new ArrayList<>();
+
+    /**
+     * Creates a mixer with the default sample rate (44.1 kHz) and tone rise time.
+     */
+    public MorseMixer() {
+        this(MorseSynthesizer.DEFAULT_SAMPLE_RATE, MorseSynthesizer.DEFAULT_RISE_TIME_MS);
+    }
+
+    /**
+     * Creates a mixer.
+     * @param sampleRate The sample rate of the output in samples per second.
+     * @param riseTimeMs The rise and fall time of every tone (see {@link MorseSynthesizer}).
+     */
+    public MorseMixer(float sampleRate, double riseTimeMs) {
+        this.sampleRate = sampleRate;
+        this.riseTimeMs = riseTimeMs;
+    }
+
+    /**
+     * Adds a message to the mix.
+     *
+     * @param morseCode   The Morse code to play (e.g. "-.-. --.-").
+     * @param frequencyHz The pitch of its tone.
+     * @param wpm         Its speed in words per minute ("PARIS" timing: one unit is exactly 1200 / wpm ms).
+     * @param startMs     When it starts, in milliseconds from the start of the mix.
+     * @param gain        Its level as a fraction of full scale (the sum may exceed 1; the limiter copes).
+     * @return This mixer, to chain calls.
+     */
+    public MorseMixer addVoice(String morseCode, int frequencyHz, int wpm, long startMs, double gain) {
+        if (wpm <= 0 || wpm > 1200 || startMs < 0 || !(gain >= 0)) {
+            throw new IllegalArgumentException("Speed must be between 1 and 1200 WPM, start and gain not negative");
+        }
+        MorseTimeline.Timing timing = MorseTimeline.Timing.ofWpm(wpm, wpm, 0);
+        // The tone is synthesized at full scale; the voice's gain is applied while mixing
+        MorseWaveforms waveforms = MorseWaveforms.get(timing, new MorseSynthesizer(frequencyHz, 1.0, sampleRate, riseTimeMs));
+        MorseTimeline timeline = MorseTimeline.fromMorseCode(morseCode, timing, sampleRate);
+        long startSample = startMs * (long) sampleRate / 1000;
+        synchronized (voices) {
+            voices.add(new Voice(timeline, waveforms, startSample, (float) gain));
+        }
+        return this;
+    }
+
+    /** Returns the number of voices added so far. */
+    public int getVoiceCount() {
+        synchronized (voices) {
+            return voices.size();
+        }
+    }
+
+    /** Returns the length of the mix in samples: up to the end of the last voice to finish. */
+    public long getLengthInSamples() {
+        long length = 0;
+        for (Voice voice : snapshot()) {
+            length = Math.max(length, voice.startSample + voice.lengthInSamples);
+        }
+        return length;
+    }
+
+    // --- Rendering ---
+
+    /**
+     * Opens the mix as a stream of PCM bytes, rendered block by block as it is read.
+     * Voices added afterwards are not part of it.
+     */
+    public InputStream openStream() {
+        return new MixStream(snapshot(), null);
+    }
+
+    /**
+     * Opens the mix as a stream of PCM bytes, mixing the voices of each block on the given pool.
+     * The output is the same as {@link #openStream()} up to float rounding.
+     */
+    public InputStream openStream(ForkJoinPool pool) {
+        return new MixStream(snapshot(), pool);
+    }
+
+    /**
+     * Renders the mix as a WAV file written to {@code out}. Memory use does not depend on the
+     * length of the mix. The stream is not closed.
+     *
+     * @param out  The destination for the WAV data.
+     * @param pool The pool to mix on, or null to mix on the calling thread.
+     * @throws IOException If writing fails.
+     */
+    public void renderToWav(OutputStream out, ForkJoinPool pool) throws IOException {
+        List<Voice> snapshot = snapshot();
+        long frames = 0;
+        for (Voice voice : snapshot) {
+            frames = Math.max(frames, voice.startSample + voice.lengthInSamples);
+        }
+        AudioFormat format = new AudioFormat(sampleRate, 16, 1, true, false);
+        AudioSystem.write(new AudioInputStream(new MixStream(snapshot, pool), format, frames), AudioFileFormat.Type.WAVE, out);
+        out.flush();
+    }
+
+    private List<Voice> snapshot() {
+        synchronized (voices) {
+            return new ArrayList<>(voices);
+        }
+    }
+
+    /** One message in the mix. Its timeline is built once and shared by every rendering. */
+    private static final class Voice {
+        final MorseTimeline timeline;
+        final MorseWaveforms waveforms;
+        final long startSample;
+        final long lengthInSamples;
+        final float gain;
+
+        Voice(MorseTimeline timeline, MorseWaveforms waveforms, long startSample, float gain) {
+            this.timeline = timeline;
+            this.waveforms = waveforms;
+            this.startSample = startSample;
+            this.lengthInSamples = timeline.length();
+            this.gain = gain;
+        }
+    }
+
+    /** A voice being rendered: its PCM stream and a block of scratch space. */
+    private static final class VoiceState {
+        final Voice voice;
+        final MorsePcmStream pcm;
+        final byte[] block = new byte[BLOCK_SAMPLES * MorseWaveforms.BYTES_PER_SAMPLE];
+
+        VoiceState(Voice voice) {
+            this.voice = voice;
+            this.pcm = new MorsePcmStream(voice.timeline, voice.waveforms);
+        }
+
+        /** Adds this voice's part of the block starting at {@code blockStart} to {@code mix}. */
+        void mixInto(float[] mix, long blockStart, int samples) {
+            long from = Math.max(blockStart, voice.startSample);
+            long to = Math.min(blockStart + samples, voice.startSample + voice.lengthInSamples);
+            if (from >= to) {
+                return; // Not started yet, or already over
+            }
+            int offset = (int) (from - blockStart);
+            int count = (int) (to - from);
+            int bytes = count * MorseWaveforms.BYTES_PER_SAMPLE;
+            int read = 0;
+            while (read < bytes) {
+                int chunk = pcm.read(block, read, bytes - read);
+                if (chunk < 0) {
+                    break; // Cannot happen: the voice's length came from the same stream
+                }
+                read += chunk;
+            }
+            float gain = voice.gain;
+            for (int i = 0; i < count; i++) {
+                mix[offset + i] += gain * (short) ((block[2 * i + 1] << 8) | (block[2 * i] & 0xFF));
+            }
+        }
+    }
+
+    /** Renders the mix on demand, one block at a time. */
+    private final class MixStream extends InputStream {
+        private final List<VoiceState> active = new ArrayList<>(); // Voices that have not finished, by start
+        private final ForkJoinPool pool;
+        private final long length;
+        private final float[] mix = new float[BLOCK_SAMPLES];
+        private final byte[] out = new byte[BLOCK_SAMPLES * MorseWaveforms.BYTES_PER_SAMPLE];
+        private int outPosition;
+        private int outLimit;
+        private long blockStart;       // First sample of the next block to mix
+        private float limiterGain = 1; // Limiter gain at the end of the last block
+
+        MixStream(List<Voice> voices, ForkJoinPool pool) {
+            long end = 0;
+            for (Voice voice : voices) {
+                active.add(new VoiceState(voice));
+                end = Math.max(end, voice.startSample + voice.lengthInSamples);
+            }
+            this.pool = pool != null && pool.getParallelism() > 1 ? pool : null;
+            this.length = end;
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (outPosition == outLimit && !mixNextBlock()) {
+                return -1;
+            }
+            int count = Math.min(length, outLimit - outPosition);
+            System.arraycopy(out, outPosition, buffer, offset, count);
+            outPosition += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return outLimit - outPosition;
+        }
+
+        private boolean mixNextBlock() {
+            int samples = (int) Math.min(BLOCK_SAMPLES, length - blockStart);
+            if (samples <= 0) {
+                return false;
+            }
+            Arrays.fill(mix, 0, samples, 0f);
+            List<VoiceState> sounding = new ArrayList<>();
+            for (int i = active.size() - 1; i >= 0; i--) {
+                VoiceState state = active.get(i);
+                Voice voice = state.voice;
+                if (voice.startSample + voice.lengthInSamples <= blockStart) {
+                    active.remove(i); // Finished for good
+                } else if (voice.startSample < blockStart + samples) {
+                    sounding.add(state);
+                }
+            }
+            if (pool != null && sounding.size() >= 2 * MIN_PARALLEL_VOICES) {
+                mixInParallel(sounding, samples);
+            } else {
+                for (VoiceState state : sounding) {
+                    state.mixInto(mix, blockStart, samples);
+                }
+            }
+            limit(samples);
+            blockStart += samples;
+            outPosition = 0;
+            outLimit = samples * MorseWaveforms.BYTES_PER_SAMPLE;
+            return true;
+        }
+
+        /** Mixes groups of voices into separate buffers concurrently, then adds those up. */
+        private void mixInParallel(List<VoiceState> sounding, int samples) {
+            int groups = Math.min(pool.getParallelism() * 2, sounding.size() / MIN_PARALLEL_VOICES);
+            List<ForkJoinTask<float[]>> parts = new ArrayList<>();
+            final long start = blockStart;
+            for (int g = 0; g < groups; g++) {
+                List<VoiceState> group = sounding.subList(g * sounding.size() / groups, (g + 1) * sounding.size() / groups);
+                parts.add(pool.submit(() -> {
+                    float[] partial = new float[samples];
+                    for (VoiceState state : group) {
+                        state.mixInto(partial, start, samples);
+                    }
+                    return partial;
+                }));
+            }
+            for (ForkJoinTask<float[]> part : parts) {
+                float[] partial = part.join();
+                for (int i = 0; i < samples; i++) {
+                    mix[i] += partial[i];
+                }
+            }
+        }
+
+        /** Brings the mixed block under full scale and converts it to 16-bit samples. */
+        private void limit(int samples) {
+            float peak = 0;
+            for (int i = 0; i < samples; i++) {
+                peak = Math.max(peak, Math.abs(mix[i]));
+            }
+            // Drop at once to what this block needs, otherwise recover slowly towards 1
+            float target = Math.min(1, Math.min(limiterGain + RELEASE_PER_BLOCK, peak > 0 ? CEILING / peak : 1));
+            // Attack is instant: the lower gain holds from the block's first sample, so the
+            // block's peak lands on the ceiling. Only the release ramps, so a rise never clips.
+            float gain = Math.min(target, limiterGain);
+            float step = (target - gain) / samples;
+            for (int i = 0; i < samples; i++) {
+                gain += step;
+                float value = mix[i] * gain;
+                // Rounding aside, every sample is already within the ceiling
+                int sample = (int) Math.max(-Short.MAX_VALUE, Math.min(Short.MAX_VALUE, value));
+                out[2 * i] = (byte) sample;
+                out[2 * i + 1] = (byte) (sample >> 8);
+            }
+            limiterGain = target;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.KeyStroke;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Segment;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * A read-only text pane for very large translation results, meant to sit in a
+ * {@link javax.swing.JScrollPane}.
+ *
+ * Unlike a {@code JTextArea}, it keeps no layout of its own: the text is laid out on a grid
+ * of fixed-width cells, wrapped at the last column that fits, so the row and column of any
+ * character follow from its offset by a division. Painting reads just the rows in the
+ * visible area from the document, and an edit only changes the height of the grid, so the
+ * cost of scrolling, painting and splicing does not grow with the length of the text. By
+ * default the text is held in a {@link MorseTextContent}, which stores Morse code at 2 bits
+ * per character.
+ *
+ * The font should be monospaced. The text can be selected with the mouse and copied with
+ * Ctrl+C (Ctrl+A selects all). While the document is empty a dimmed placeholder is shown.
+ * Like any Swing component, it must be used on the event dispatch thread.
+ */
+public class MorseOutputView extends JComponent implements Scrollable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_ROWS = 10;     // Preferred viewport size, like JTextArea(10, 50)
+    private static final int DEFAULT_COLUMNS = 50;
+
+    private final Document document;
+    private final Segment row = new Segment();  // Scratch space for painting
+    private String placeholder = "";
+    private Color selectionColor;
+    private int anchor;                         // Where the selection started
+    private int lead;                           // Where it ends, following the mouse
+    private boolean updatePending;
+
+    /** Creates a view of a new, empty document backed by a {@link MorseTextContent}. */
+    public MorseOutputView() {
+        this(new PlainDocument(new MorseTextContent()));
+    }
+
+    /** Creates a view of the given document. */
+    public MorseOutputView(Document document) {
+        this.document = document;
+        setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+        setOpaque(true);
+        setFocusable(true);
+        setAutoscrolls(true);
+        selectionColor = UIManager.getColor("TextArea.selectionBackground");
+        if (selectionColor == null) {
+            selectionColor = new Color(184, 207, 229);
+        }
+        document.addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                int offset = offsetAt(e.getPoint());
+                lead = offset;
+                if (!e.isShiftDown()) {
+                    anchor = offset;
+                }
+                repaint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                lead = offsetAt(e.getPoint());
+                scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+                repaint();
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+
+        getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_C, InputEvent.CTRL_DOWN_MASK), "copy");
+        getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_A, InputEvent.CTRL_DOWN_MASK), "select-all");
+        getActionMap().put("copy", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String selected = getSelectedText();
+                if (!selected.isEmpty()) {
+                    Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(selected), null);
+                }
+            }
+        });
+        getActionMap().put("select-all", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                select(0, document.getLength());
+            }
+        });
+    }
+
+    // --- Text ---
+
+    public Document getDocument() {
+        return document;
+    }
+
+    /** Returns the whole text. For a multi-megabyte result this is a multi-megabyte String. */
+    public String getText() {
+        try {
+            return document.getText(0, document.getLength());
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e); // Cannot happen: the range is the whole document
+        }
+    }
+
+    /** Replaces the whole text. */
+    public void setText(String text) {
+        try {
+            if (document instanceof AbstractDocument) {
+                ((AbstractDocument) document).replace(0, document.getLength(), text, null);
+            } else {
+                document.remove(0, document.getLength());
+                document.insertString(0, text, null);
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e); // Cannot happen: the range is the whole document
+        }
+    }
+
+    /** Sets the dimmed text shown while the document is empty. */
+    public void setPlaceholder(String placeholder) {
+        this.placeholder = placeholder == null ? "" : placeholder;
+        repaint();
+    }
+
+    public String getPlaceholder() {
+        return placeholder;
+    }
+
+    // --- Selection ---
+
+    /** Selects the text from {@code start} to {@code end} (clamped to the document). */
+    public void select(int start, int end) {
+        int length = document.getLength();
+        anchor = Math.max(0, Math.min(start, length));
+        lead = Math.max(0, Math.min(end, length));
+        repaint();
+    }
+
+    public int getSelectionStart() {
+        return Math.min(Math.min(anchor, lead), document.getLength());
+    }
+
+    public int getSelectionEnd() {
+        return Math.min(Math.max(anchor, lead), document.getLength());
+    }
+
+    /** Returns the selected text, or "" if nothing is selected. */
+    public String getSelectedText() {
+        int start = getSelectionStart();
+        try {
+            return document.getText(start, getSelectionEnd() - start);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e); // Cannot happen: the selection is clamped
+        }
+    }
+
+    public void setSelectionColor(Color selectionColor) {
+        this.selectionColor = selectionColor;
+        repaint();
+    }
+
+    public Color getSelectionColor() {
+        return selectionColor;
+    }
+
+    // --- Grid ---
+
+    /** Returns the number of characters per row at the current width. */
+    public int getColumns() {
+        Insets insets = getInsets();
+        int width = getWidth() > 0 ? getWidth() - insets.left - insets.right : DEFAULT_COLUMNS * cellWidth();
+        return Math.max(1, width / cellWidth());
+    }
+
+    /** Returns the number of rows the text takes up at the current width. */
+    public int getRowCount() {
+        int columns = getColumns();
+        return Math.max(1, (document.getLength() + columns - 1) / columns);
+    }
+
+    /** Returns the offset of the character boundary closest to a point in this view. */
+    public int offsetAt(Point point) {
+        Insets insets = getInsets();
+        int columns = getColumns();
+        int rowIndex = Math.max(0, (point.y - insets.top) / lineHeight());
+        int column = Math.max(0, Math.min(columns, Math.round((point.x - insets.left) / (float) cellWidth())));
+        long offset = (long) rowIndex * columns + column;
+        return (int) Math.min(offset, document.getLength());
+    }
+
+    private int cellWidth() {
+        return Math.max(1, getFontMetrics(getFont()).charWidth('m'));
+    }
+
+    private int lineHeight() {
+        return Math.max(1, getFontMetrics(getFont()).getHeight());
+    }
+
+    /** Coalesces the events of a batch of edits into one relayout and repaint. */
+    private void textChanged() {
+        if (!updatePending) {
+            updatePending = true;
+            SwingUtilities.invokeLater(() -> {
+                updatePending = false;
+                revalidate();
+                repaint();
+            });
+        }
+    }
+
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        boolean resized = width != getWidth();
+        super.setBounds(x, y, width, height);
+        if (resized) {
+            revalidate(); // The height follows the number of columns
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        Insets insets = getInsets();
+        return new Dimension(DEFAULT_COLUMNS * cellWidth() + insets.left + insets.right,
+                getRowCount() * lineHeight() + insets.top + insets.bottom);
+    }
+
+    // --- Painting ---
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        }
+        g.setFont(getFont());
+        FontMetrics metrics = g.getFontMetrics();
+        Insets insets = getInsets();
+        int lineHeight = lineHeight();
+        int cellWidth = cellWidth();
+        int columns = getColumns();
+        if (document.getLength() == 0) {
+            g.setColor(getForeground().darker().darker());
+            g.drawString(placeholder, insets.left, insets.top + metrics.getAscent());
+            return;
+        }
+        // Only the rows crossing the clip are read from the document
+        int firstRow = Math.max(0, (clip.y - insets.top) / lineHeight);
+        int lastRow = Math.min(getRowCount() - 1, (clip.y + clip.height - insets.top) / lineHeight);
+        int selectionStart = getSelectionStart();
+        int selectionEnd = getSelectionEnd();
+        document.render(() -> {
+            int length = document.getLength();
+            for (int r = firstRow; r <= lastRow; r++) {
+                long start = (long) r * columns;
+                if (start >= length) {
+                    break;
+                }
+                int count = (int) Math.min(columns, length - start);
+                int y = insets.top + r * lineHeight;
+                int from = (int) Math.max(selectionStart, start);
+                int to = (int) Math.min(selectionEnd, start + count);
+                if (from < to) {
+                    g.setColor(selectionColor);
+                    g.fillRect(insets.left + (int) (from - start) * cellWidth, y, (to - from) * cellWidth, lineHeight);
+                }
+                try {
+                    document.getText((int) start, count, row);
+                } catch (BadLocationException e) {
+                    throw new IllegalStateException(e); // Cannot happen: the read lock is held
+                }
+                g.setColor(getForeground());
+                g.drawChars(row.array, row.offset, row.count, insets.left, y + metrics.getAscent());
+            }
+        });
+    }
+
+    // --- Scrollable ---
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Insets insets = getInsets();
+        return new Dimension(DEFAULT_COLUMNS * cellWidth() + insets.left + insets.right,
+                DEFAULT_ROWS * lineHeight() + insets.top + insets.bottom);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? lineHeight() : cellWidth();
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL
+                ? Math.max(lineHeight(), visibleRect.height - lineHeight()) : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true; // Rows wrap at the viewport's width
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        // Fill the viewport (and its background) while the text is shorter than it
+        return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+    }
+}
@@ -0,0 +1,160 @@
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * A continuous PCM stream for a Morse code message.
+ * The message's {@link MorseTimeline} gives the tone and silence steps, and reading the
+ * stream copies the precomputed dit/dah tones from {@link MorseWaveforms} and fills
+ * silences with zero samples. Nothing is synthesized while reading, so the stream can stay
+ * far ahead of an audio line.
+ *
+ * Timing follows the timeline (see {@link MorseTimeline.Timing}); by default the usual
+ * Morse rules, all relative to one unit:
+ * - Dot (Dit): 1 unit of tone, Dash (Dah): 3 units of tone
+ * - Inter-element gap: 1 unit, inter-character gap: 3 units, inter-word gap: 7 units
+ *
+ * The stream also knows where each step and each character starts, so playback can
+ * {@link #seek(long) seek} and report which symbol is sounding (see {@link MorsePlayback}).
+ * Characters are counted the way the decoder outputs them: every Morse character is one,
+ * and every word gap is one more (the space between the words).
+ */
+public class MorsePcmStream extends InputStream {
+
+    private final MorseTimeline timeline;
+    private final MorseWaveforms waveforms;
+    private final long length;
+
+    private int step;       // Index of the timeline step being read.
+    private int stepOffset; // Bytes of the current step already read.
+    private long position;  // Bytes read so far.
+
+    /**
+     * Creates the PCM stream for a Morse code string, with the waveforms' timing.
+     * @param morseCode The Morse code to play (e.g., "... --- ...").
+     * @param waveforms The precomputed tones (and timing) to use.
+     */
+    public MorsePcmStream(String morseCode, MorseWaveforms waveforms) {
+        this(MorseTimeline.fromMorseCode(morseCode, waveforms.getTiming(), waveforms.getSampleRate()), waveforms);
+    }
+
+    /**
+     * Creates the PCM stream for a timeline.
+     * @param timeline  The steps to play.
+     * @param waveforms The precomputed tones; they must have the timeline's timing and sample rate.
+     * @throws IllegalArgumentException If the waveforms do not fit the timeline.
+     */
+    public MorsePcmStream(MorseTimeline timeline, MorseWaveforms waveforms) {
+        if (!timeline.getTiming().equals(waveforms.getTiming())
+                || timeline.getSampleRate() != waveforms.getSampleRate()) {
+            throw new IllegalArgumentException("Waveforms " + waveforms.getTiming() + " at " + waveforms.getSampleRate()
+                    + " Hz do not fit a timeline with " + timeline.getTiming() + " at " + timeline.getSampleRate() + " Hz");
+        }
+        this.timeline = timeline;
+        this.waveforms = waveforms;
+        this.length = timeline.length() * MorseWaveforms.BYTES_PER_SAMPLE;
+    }
+
+    /** The timeline this stream plays. */
+    public MorseTimeline getTimeline() {
+        return timeline;
+    }
+
+    /** Total number of bytes in the stream. */
+    public long length() {
+        return length;
+    }
+
+    /** Bytes read so far (or the position set by {@link #seek(long)}). */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Moves the read position.
+     * @param bytePosition The new position, between 0 and {@link #length()}.
+     */
+    public void seek(long bytePosition) {
+        if (bytePosition < 0 || bytePosition > length) {
+            throw new IllegalArgumentException("Position out of range: " + bytePosition);
+        }
+        step = stepAt(bytePosition);
+        stepOffset = (int) (bytePosition - stepStart(step));
+        position = bytePosition;
+    }
+
+    // --- Steps and characters ---
+
+    /** Number of tone and silence steps (consecutive silences count as one). */
+    int stepCount() {
+        return timeline.stepCount();
+    }
+
+    /** Byte offset at which a step starts; {@code stepStart(stepCount())} is the length. */
+    long stepStart(int step) {
+        return timeline.stepStart(step) * MorseWaveforms.BYTES_PER_SAMPLE;
+    }
+
+    /** The symbol a step plays: '.', '-', or ' ' for a silence. */
+    char symbolOf(int step) {
+        return timeline.symbolOf(step);
+    }
+
+    /** The character a step belongs to; a silence belongs to the character before it (-1 if none). */
+    int charIndexOf(int step) {
+        return timeline.charIndexOf(step);
+    }
+
+    /** Returns the step playing at a byte position (or {@link #stepCount()} at the end). */
+    int stepAt(long bytePosition) {
+        return timeline.stepAt(bytePosition / MorseWaveforms.BYTES_PER_SAMPLE);
+    }
+
+    /** Number of characters, including one per word gap. */
+    public int characterCount() {
+        return timeline.characterCount();
+    }
+
+    /** Byte offset at which a character (or word gap) starts. */
+    public long characterStart(int charIndex) {
+        return timeline.characterStart(charIndex) * MorseWaveforms.BYTES_PER_SAMPLE;
+    }
+
+    @Override
+    public int read() {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        int written = 0;
+        int steps = timeline.stepCount();
+        while (written < length && step < steps) {
+            int stepLength = timeline.duration(step) * MorseWaveforms.BYTES_PER_SAMPLE;
+            int count = Math.min(length - written, stepLength - stepOffset);
+            if (timeline.isKeyDown(step)) {
+                System.arraycopy(timeline.symbolOf(step) == '.' ? waveforms.dit() : waveforms.dah(), stepOffset,
+                        buffer, offset + written, count);
+            } else {
+                Arrays.fill(buffer, offset + written, offset + written + count, (byte) 0);
+            }
+            written += count;
+            stepOffset += count;
+            if (stepOffset == stepLength) {
+                step++;
+                stepOffset = 0;
+            }
+        }
+        position += written;
+        return written == 0 ? -1 : written;
+    }
+
+    @Override
+    public int available() {
+        long remaining = length - position;
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,411 @@
+import javax.sound.sampled.SourceDataLine;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One message being played by {@link MorseAudioPlayer}, with transport controls.
+ *
+ * A session owns one audio line and one {@link MorsePcmStream}. Its playback loop keeps the
+ * line's buffer topped up without ever blocking in {@code write}, so it can react at once to
+ * {@link #pause()}, {@link #resume()}, {@link #stop()} and {@link #seek(int)}: pausing stops
+ * the line where it is, stopping and seeking drop whatever the line still has buffered, and
+ * the audio that is already in the sound card (at most one line buffer) is all that plays on.
+ *
+ * A {@link Listener} is told when each dot, dash and gap is actually heard: events are
+ * delivered when the line's frame position reaches the symbol, and carry the symbol's
+ * position in the message, so a blinking light or a highlighted character can follow the
+ * audio rather than the (earlier) moment the samples were produced.
+ *
+ * Sessions are created by {@link MorseAudioPlayer#startPlayback(String, Listener)}. The
+ * control methods can be called from any thread.
+ */
+public final class MorsePlayback implements AutoCloseable {
+
+    /** The states of a session. FINISHED and STOPPED are final. */
+    public enum State { PLAYING, PAUSED, FINISHED, STOPPED }
+
+    /**
+     * Receives progress from a session. Both methods are called on the playback thread, so they
+     * must return quickly (and hand over to the EDT before touching Swing components).
+     */
+    public interface Listener {
+        /** A symbol (or the gap after one) has started to sound. */
+        void symbolStarted(SymbolEvent event);
+
+        /** The session has been paused, resumed, stopped or has finished. */
+        default void stateChanged(MorsePlayback playback, State state) {
+        }
+    }
+
+    /** A dot, dash or gap reaching the speaker. */
+    public static final class SymbolEvent {
+        private final int charIndex;
+        private final char symbol;
+        private final long positionMicros;
+
+        SymbolEvent(int charIndex, char symbol, long positionMicros) {
+            this.charIndex = charIndex;
+            this.symbol = symbol;
+            this.positionMicros = positionMicros;
+        }
+
+        /** The character being played (see {@link MorsePcmStream} for how characters are counted). */
+        public int getCharIndex() {
+            return charIndex;
+        }
+
+        /** '.' or '-' when a tone starts, ' ' when the silence after it starts. */
+        public char getSymbol() {
+            return symbol;
+        }
+
+        /** True while a tone sounds, e.g. to switch a light on. */
+        public boolean isTone() {
+            return symbol != ' ';
+        }
+
+        /** Where the symbol starts in the message, in microseconds of audio. */
+        public long getPositionMicros() {
+            return positionMicros;
+        }
+
+        @Override
+        public String toString() {
+            return "SymbolEvent['" + symbol + "' of char " + charIndex + " at " + positionMicros + " us]";
+        }
+    }
+
+    // The loop sleeps at most this long between refills, i.e. a quarter of a block.
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final MorsePcmStream pcm;
+    private final SourceDataLine line;            // Null for an empty message
+    private final int blockBytes;
+    private final int frameSize;
+    private final long bytesPerSecond;
+    private final Listener listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition(); // Signals the loop (commands) and waiters (end)
+
+    // --- Guarded by lock ---
+    private State state = State.PLAYING;
+    private boolean pauseRequested;
+    private boolean stopRequested;
+    private int seekRequest = -1;                 // Character to seek to, or -1
+
+    // --- Playback thread only ---
+    private long lineBase;                        // Line frame position when the stream was at streamBase
+    private long streamBase;
+    private int nextEvent;                        // Next step to report to the listener
+    private long audioBytesPlayed;                // Across seeks, for the metrics
+
+    private volatile long playedBytes;            // Stream position the speaker has reached
+
+    /**
+     * Creates a session for an already opened (but not started) line.
+     * @param line       The line to play on, or null if {@code pcm} is empty.
+     * @param blockBytes The most the loop writes to the line at once.
+     * @param listener   The progress listener, or null.
+     */
+    MorsePlayback(MorsePcmStream pcm, SourceDataLine line, int blockBytes, long bytesPerSecond, Listener listener) {
+        this.pcm = pcm;
+        this.line = line;
+        this.blockBytes = blockBytes;
+        this.frameSize = line != null ? line.getFormat().getFrameSize() : 1;
+        this.bytesPerSecond = bytesPerSecond;
+        this.listener = listener;
+        if (line == null) {
+            state = State.FINISHED;
+        }
+    }
+
+    // --- Controls ---
+
+    /** Pauses playback; the line stops where it is. No effect unless playing. */
+    public void pause() {
+        command(() -> pauseRequested = true);
+    }
+
+    /** Resumes a paused session where it left off. */
+    public void resume() {
+        command(() -> pauseRequested = false);
+    }
+
+    /** Stops playback for good, dropping the buffered audio, and releases the line. */
+    public void stop() {
+        command(() -> stopRequested = true);
+    }
+
+    /**
+     * Continues playback at the start of a character. A paused session stays paused.
+     * No effect once the session has finished or stopped.
+     *
+     * @param charIndex The character to play next, from 0 to {@link #getCharacterCount()} - 1
+     *                  (word gaps count as characters, like the spaces of the decoded text).
+     * @throws IllegalArgumentException If there is no such character.
+     */
+    public void seek(int charIndex) {
+        if (charIndex < 0 || charIndex >= pcm.characterCount()) {
+            throw new IllegalArgumentException("No character " + charIndex + " in a message of " + pcm.characterCount());
+        }
+        command(() -> seekRequest = charIndex);
+    }
+
+    /** Same as {@link #stop()}. */
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void command(Runnable change) {
+        lock.lock();
+        try {
+            if (isDone()) {
+                return;
+            }
+            change.run();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- Status ---
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of characters in the message, including one per word gap. */
+    public int getCharacterCount() {
+        return pcm.characterCount();
+    }
+
+    /** How far into the message the speaker is, in microseconds. */
+    public long getPositionMicros() {
+        return toMicros(playedBytes);
+    }
+
+    /** Length of the whole message, in microseconds. */
+    public long getLengthMicros() {
+        return toMicros(pcm.length());
+    }
+
+    /** Waits until the session has finished or been stopped. */
+    public void await() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!isDone()) {
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the session has finished or been stopped, or the timeout passes.
+     * @return True if the session is over.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!isDone()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = changed.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isDone() {
+        return state == State.FINISHED || state == State.STOPPED;
+    }
+
+    // --- Playback loop ---
+
+    /**
+     * Plays the message on the calling thread until it finishes or is stopped.
+     * Interrupting the thread stops playback.
+     */
+    void run() {
+        if (line == null) {
+            return;
+        }
+        MorseMetrics.Playback metrics = MorseMetrics.ENABLED ? MorseMetrics.startPlayback() : null;
+        long startNanos = System.nanoTime();
+        long pausedNanos = 0;
+        long pausedSince = 0;
+
+        byte[] block = new byte[blockBytes];
+        int pending = 0;          // Bytes of block read from the stream but not yet written
+        int pendingOffset = 0;
+        boolean primed = false;   // Whether the line has had data since it was (re)started
+        State result = State.STOPPED;
+        lineBase = line.getLongFramePosition();
+        line.start();
+        try {
+            while (true) {
+                // Apply the commands that came in since the last round
+                boolean paused;
+                int seekTo;
+                lock.lock();
+                try {
+                    if (stopRequested) {
+                        break;
+                    }
+                    seekTo = seekRequest;
+                    seekRequest = -1;
+                    paused = pauseRequested;
+                } finally {
+                    lock.unlock();
+                }
+                if (seekTo >= 0) {
+                    audioBytesPlayed += playedBytes - streamBase;
+                    line.flush(); // Drop the audio of the old position
+                    pcm.seek(pcm.characterStart(seekTo));
+                    pending = 0;
+                    primed = false;
+                    lineBase = line.getLongFramePosition();
+                    streamBase = pcm.position();
+                    playedBytes = streamBase;
+                    nextEvent = pcm.stepAt(streamBase);
+                }
+                if (paused != (state == State.PAUSED)) {
+                    if (paused) {
+                        line.stop();
+                        pausedSince = System.nanoTime();
+                    } else {
+                        line.start();
+                        pausedNanos += System.nanoTime() - pausedSince;
+                        primed = false;
+                    }
+                    setState(paused ? State.PAUSED : State.PLAYING);
+                }
+
+                playedBytes = Math.min(pcm.length(), streamBase + (line.getLongFramePosition() - lineBase) * frameSize);
+                deliverEvents(playedBytes);
+
+                if (!paused) {
+                    // Top up the line's buffer, but never block in write()
+                    while (true) {
+                        if (pending == 0) {
+                            int read = pcm.read(block, 0, block.length);
+                            if (read < 0) {
+                                break;
+                            }
+                            pending = read;
+                            pendingOffset = 0;
+                        }
+                        int count = Math.min(pending, line.available() / frameSize * frameSize);
+                        if (count == 0) {
+                            break;
+                        }
+                        // An empty line buffer after the first write means the line ran dry:
+                        // the listener hears a gap that is not in the message.
+                        if (metrics != null && primed && line.available() >= line.getBufferSize()) {
+                            metrics.underrun();
+                        }
+                        primed = true;
+                        line.write(block, pendingOffset, count);
+                        pendingOffset += count;
+                        pending -= count;
+                    }
+                    // Done once everything is written and the line has played it
+                    if (pending == 0 && pcm.position() == pcm.length()
+                            && (playedBytes >= pcm.length() || line.available() >= line.getBufferSize())) {
+                        playedBytes = pcm.length();
+                        deliverEvents(playedBytes);
+                        result = State.FINISHED;
+                        break;
+                    }
+                }
+                waitForCommand(paused ? -1 : nanosUntilNextEvent());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Restore the interrupted status
+            System.err.println("Morse audio playback interrupted.");
+        } finally {
+            if (result == State.FINISHED) {
+                line.drain(); // Let the device play its last buffer before the line closes
+            } else {
+                line.flush(); // Drop whatever is still queued in the line
+            }
+            line.stop();
+            line.close(); // Close the line to release resources
+            setState(result);
+        }
+        if (metrics != null && result == State.FINISHED) {
+            audioBytesPlayed += playedBytes - streamBase;
+            long scheduledNanos = audioBytesPlayed * 1_000_000_000L / bytesPerSecond;
+            metrics.end(audioBytesPlayed / MorseWaveforms.BYTES_PER_SAMPLE,
+                    System.nanoTime() - startNanos - pausedNanos - scheduledNanos);
+        }
+    }
+
+    /** Reports every step the speaker has reached since the last call. */
+    private void deliverEvents(long played) {
+        while (nextEvent < pcm.stepCount() && pcm.stepStart(nextEvent) <= played
+                && pcm.stepStart(nextEvent) < pcm.length()) {
+            if (listener != null) {
+                listener.symbolStarted(new SymbolEvent(pcm.charIndexOf(nextEvent), pcm.symbolOf(nextEvent),
+                        toMicros(pcm.stepStart(nextEvent))));
+            }
+            nextEvent++;
+        }
+    }
+
+    private long nanosUntilNextEvent() {
+        if (nextEvent >= pcm.stepCount()) {
+            return MAX_WAIT_NANOS;
+        }
+        long bytes = pcm.stepStart(nextEvent) - playedBytes;
+        return Math.max(0, Math.min(MAX_WAIT_NANOS, bytes * 1_000_000_000L / bytesPerSecond));
+    }
+
+    /** Sleeps until a command arrives or the timeout passes (forever if negative). */
+    private void waitForCommand(long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            if (stopRequested || seekRequest >= 0 || pauseRequested != (state == State.PAUSED)) {
+                return;
+            }
+            if (timeoutNanos < 0) {
+                changed.await();
+            } else if (timeoutNanos > 0) {
+                changed.awaitNanos(timeoutNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setState(State newState) {
+        lock.lock();
+        try {
+            state = newState;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (listener != null) {
+            listener.stateChanged(this, newState);
+        }
+    }
+
+    private long toMicros(long bytes) {
+        return bytes * 1_000_000L / bytesPerSecond;
+    }
+}
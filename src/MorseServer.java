@@ -0,0 +1,484 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A TCP server that translates Morse code for many clients at once.
+ *
+ * The protocol is line based. Each request is one line starting with a command letter,
+ * and is answered by one line (in the same order as the requests):
+ * <pre>
+ *   E Hello World          -&gt;  .... . .-.. .-.. --- / .-- --- .-. .-.. -..
+ *   D .... .. / - .... .-. -&gt;  HI THR
+ * </pre>
+ * {@code E} encodes the rest of the line, {@code D} decodes it (the commands may also be
+ * lower case), and lines may end in {@code \n} or {@code \r\n}. Blank lines are ignored and
+ * any other command is answered with {@code ERR unknown command}. Text is treated as ASCII,
+ * exactly like batch mode (see {@link MorseFileTranslator}).
+ *
+ * Connections are spread over a few event loops, each a single thread with its own
+ * {@link Selector}, so thousands of clients are served by a handful of threads. Requests are
+ * translated with a {@link MorseByteCodec} as their bytes arrive: a response starts streaming
+ * back before the end of its line has been received, and lines of any length are served
+ * in constant memory. When a client does not read its responses, the connection stops
+ * reading its requests until the output has been sent (backpressure), instead of
+ * buffering without limit.
+ *
+ * Input and output buffers are direct buffers taken from a per-loop pool while a connection
+ * has data in flight, and returned as soon as they are empty, so idle connections hold
+ * no buffers at all.
+ *
+ * Usage: {@code java MorseServer [port] [event loops]} (also {@code MorseCodeTranslator --serve}).
+ * {@link MorseLoadClient} generates load against a running server.
+ */
+public class MorseServer implements Closeable {
+
+    /** Port used when none is given on the command line. */
+    public static final int DEFAULT_PORT = 7300;
+
+    // Size of each pooled direct buffer; a connection uses at most one for input and one for output.
+    private static final int BUFFER_SIZE = 8 * 1024;
+    // Empty buffers kept per event loop; beyond this they are left to the garbage collector.
+    private static final int MAX_POOLED_BUFFERS = 256;
+    // Pending connections the operating system queues before they are accepted.
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final byte[] ERROR_REPLY = "ERR unknown command\n".getBytes(StandardCharsets.US_ASCII);
+
+    // Request parsing states of a connection.
+    private static final int COMMAND = 0;      // Expecting the first byte of a line
+    private static final int BODY = 1;         // Translating the rest of the line
+    private static final int FINISH = 2;       // Line complete: flushing the codec and writing '\n'
+    private static final int SKIP = 3;         // Skipping a line with an unknown command
+    private static final int REJECT = 4;       // Writing the error reply for a skipped line
+
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] loops;
+    private final Thread acceptor;
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final LongAdder requestCount = new LongAdder();
+    private volatile boolean running;
+
+    /**
+     * Creates a server listening on the given port, with one event loop per processor.
+     *
+     * @param port The TCP port, or 0 for any free port (see {@link #getPort()}).
+     * @throws IOException If the port cannot be bound.
+     */
+    public MorseServer(int port) throws IOException {
+        this(new InetSocketAddress(port), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a server listening on the given address.
+     * The server does not accept connections until {@link #start()} is called.
+     *
+     * @param address    The address to bind (port 0 picks any free port).
+     * @param eventLoops The number of selector threads serving the connections.
+     * @throws IOException If the address cannot be bound.
+     */
+    public MorseServer(InetSocketAddress address, int eventLoops) throws IOException {
+        if (eventLoops < 1) {
+            throw new IllegalArgumentException("At least one event loop is needed, not " + eventLoops);
+        }
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address, ACCEPT_BACKLOG);
+            loops = new EventLoop[eventLoops];
+            for (int i = 0; i < eventLoops; i++) {
+                loops[i] = new EventLoop(i);
+            }
+        } catch (IOException e) {
+            serverChannel.close();
+            throw e;
+        }
+        acceptor = new Thread(this::acceptConnections, "morse-server-acceptor");
+    }
+
+    /** Starts accepting connections. */
+    public void start() {
+        running = true;
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+        acceptor.start();
+    }
+
+    /** Returns the port the server listens on. */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /** Returns the number of currently open client connections. */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /** Returns the number of requests answered since the server started. */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /** Stops the server and closes all client connections. */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverChannel.close();
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        try {
+            if (acceptor.isAlive()) {
+                acceptor.join();
+            }
+            for (EventLoop loop : loops) {
+                if (loop.thread.isAlive()) {
+                    loop.thread.join();
+                } else {
+                    loop.selector.close(); // Never started
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Accepts connections (blocking) and hands them to the event loops in turn. */
+    private void acceptConnections() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true); // Responses are small and latency matters
+                loops[next].add(channel);
+                next = (next + 1) % loops.length;
+            } catch (ClosedChannelException e) {
+                return; // Server closed
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("MorseServer: accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // --- Event Loop ---
+
+    /** One selector thread serving a share of the connections. */
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<SocketChannel> added = new ConcurrentLinkedQueue<>();
+        // Only used by this loop's thread, so no locking is needed.
+        private final ArrayDeque<ByteBuffer> pool = new ArrayDeque<>();
+
+        EventLoop(int index) throws IOException {
+            selector = Selector.open();
+            thread = new Thread(this, "morse-server-loop-" + index);
+        }
+
+        /** Called by the acceptor: registers the channel from the loop's own thread. */
+        void add(SocketChannel channel) {
+            added.add(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    registerAdded();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            connection.handle();
+                        } catch (IOException e) {
+                            connection.close(); // Client reset or vanished
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException e) {
+                System.err.println("MorseServer: event loop failed: " + e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).close();
+                }
+                SocketChannel channel;
+                while ((channel = added.poll()) != null) {
+                    closeQuietly(channel);
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                    // Nothing left to release
+                }
+            }
+        }
+
+        private void registerAdded() {
+            SocketChannel channel;
+            while ((channel = added.poll()) != null) {
+                try {
+                    Connection connection = new Connection(channel, this);
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connectionCount.incrementAndGet();
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                }
+            }
+        }
+
+        ByteBuffer acquire() {
+            ByteBuffer buffer = pool.pollLast();
+            return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        void release(ByteBuffer buffer) {
+            if (pool.size() < MAX_POOLED_BUFFERS) {
+                buffer.clear();
+                pool.addLast(buffer);
+            }
+        }
+    }
+
+    // --- Connection ---
+
+    /** The state of one client; only touched by the thread of its event loop. */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final EventLoop loop;
+        private final MorseByteCodec codec = new MorseByteCodec(StandardCharsets.US_ASCII, Locale.ROOT);
+        private SelectionKey key;
+
+        // Pooled buffers, both kept ready for filling; null while there is nothing in them.
+        private ByteBuffer in;          // Received bytes not yet translated
+        private ByteBuffer out;         // Translated bytes not yet sent
+
+        private int state = COMMAND;
+        private boolean encode;         // Direction of the current line
+        private boolean stalled;        // Translation waits for output space
+        private boolean endOfInput;     // The client shut down its side
+        private boolean closed;
+
+        Connection(SocketChannel channel, EventLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+        }
+
+        void handle() throws IOException {
+            if (closed) {
+                return;
+            }
+            send(); // Frees output space first, so input held back can continue
+            if (key.isReadable()) {
+                receive();
+            }
+            do {
+                translate();
+                send();
+            } while (stalled && out == null); // The socket took everything: keep translating
+
+            if (endOfInput && !stalled && out == null) {
+                close(); // All requests answered
+            } else {
+                // Backpressure: stop reading while translation waits for the client to read.
+                key.interestOps((stalled || endOfInput ? 0 : SelectionKey.OP_READ)
+                        | (out != null ? SelectionKey.OP_WRITE : 0));
+            }
+        }
+
+        private void receive() throws IOException {
+            if (in == null) {
+                in = loop.acquire();
+            }
+            if (channel.read(in) < 0) {
+                endOfInput = true;
+            }
+        }
+
+        /** Translates the buffered input until it is used up or the output buffer is full. */
+        private void translate() {
+            if (in == null) {
+                return;
+            }
+            in.flip();
+            stalled = !process();
+            in.compact();
+            // Kept while stalled even if empty: the state machine may still have a line end or
+            // an error reply to write once the output has room
+            if (in.position() == 0 && !stalled) {
+                loop.release(in);
+                in = null;
+            }
+        }
+
+        /**
+         * Runs the buffered input through the request state machine.
+         * @return false if it stopped because the output buffer is full.
+         */
+        private boolean process() {
+            while (true) {
+                switch (state) {
+                    case COMMAND:
+                        if (!in.hasRemaining()) {
+                            return true;
+                        }
+                        byte command = in.get();
+                        if (command == 'E' || command == 'e' || command == 'D' || command == 'd') {
+                            encode = command == 'E' || command == 'e';
+                            state = BODY;
+                        } else if (command != '\n' && command != '\r') {
+                            state = SKIP;
+                        }
+                        break;
+
+                    case BODY:
+                        int lineEnd = indexOfNewline(in);
+                        int limit = in.limit();
+                        if (lineEnd >= 0) {
+                            in.limit(lineEnd);
+                        }
+                        ByteBuffer dst = output();
+                        CoderResult result = encode ? codec.encode(in, dst) : codec.decode(in, dst);
+                        in.limit(limit);
+                        if (result.isOverflow()) {
+                            return false;
+                        }
+                        if (lineEnd < 0 && !endOfInput) {
+                            return true; // Rest of the line not received yet
+                        }
+                        if (lineEnd >= 0) {
+                            in.get(); // The '\n'
+                        }
+                        state = FINISH;
+                        break;
+
+                    case FINISH:
+                        dst = output();
+                        if (codec.flush(dst).isOverflow() || !dst.hasRemaining()) {
+                            return false;
+                        }
+                        dst.put((byte) '\n');
+                        codec.reset();
+                        requestCount.increment();
+                        state = COMMAND;
+                        break;
+
+                    case SKIP:
+                        lineEnd = indexOfNewline(in);
+                        if (lineEnd < 0 && !endOfInput) {
+                            in.position(in.limit());
+                            return true;
+                        }
+                        in.position(lineEnd >= 0 ? lineEnd + 1 : in.limit());
+                        state = REJECT;
+                        break;
+
+                    default: // REJECT
+                        dst = output();
+                        if (dst.remaining() < ERROR_REPLY.length) {
+                            return false;
+                        }
+                        dst.put(ERROR_REPLY);
+                        state = COMMAND;
+                }
+            }
+        }
+
+        private ByteBuffer output() {
+            if (out == null) {
+                out = loop.acquire();
+            }
+            return out;
+        }
+
+        /** Writes as much of the translated output as the socket takes without blocking. */
+        private void send() throws IOException {
+            if (out == null) {
+                return;
+            }
+            out.flip();
+            channel.write(out);
+            out.compact();
+            if (out.position() == 0) {
+                loop.release(out);
+                out = null;
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (key != null) {
+                key.cancel();
+            }
+            closeQuietly(channel);
+            if (in != null) {
+                loop.release(in);
+                in = null;
+            }
+            if (out != null) {
+                loop.release(out);
+                out = null;
+            }
+            connectionCount.decrementAndGet();
+        }
+    }
+
+    /** Returns the absolute index of the first '\n' between position and limit, or -1. */
+    private static int indexOfNewline(ByteBuffer buffer) {
+        for (int i = buffer.position(), limit = buffer.limit(); i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+
+    /**
+     * Runs the server until the process is stopped.
+     * Arguments: {@code [port] [event loops]}; defaults to {@value #DEFAULT_PORT} and one loop per processor.
+     */
+    public static void main(String[] args) {
+        try {
+            int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+            int eventLoops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+            MorseServer server = new MorseServer(new InetSocketAddress(port), eventLoops);
+            server.start();
+            System.out.println("Morse server listening on port " + server.getPort()
+                    + " with " + eventLoops + " event loop(s)");
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: MorseServer [port] [event loops]");
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Morse server failed to start: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
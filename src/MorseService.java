@@ -0,0 +1,357 @@
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs translation and audio jobs concurrently, so callers never manage threads or pools.
+ *
+ * Every job is submitted as a {@link CompletableFuture}. At most {@code maxConcurrency} jobs
+ * run at the same time; the rest wait their turn, so a batch worker can submit 100,000 small
+ * messages at once. A job can be cancelled through its future (a running job is
+ * interrupted) or given a timeout, after which its future fails with a
+ * {@link TimeoutException} and the job is cancelled. Counts and timings are kept per job
+ * kind ({@code "encode"}, {@code "render"}...), see {@link #getMetrics()}.
+ *
+ * On Java 21 and later each job runs on its own virtual thread, and waiting jobs are parked
+ * virtual threads that cost almost nothing. On older runtimes the service falls back to a
+ * pool of {@code maxConcurrency} daemon threads with a queue in front of it; the behaviour
+ * is the same either way.
+ *
+ * <pre>
+ *   MorseService service = MorseService.getDefault();
+ *   service.encode("SOS").thenAccept(System.out::println);
+ *   service.submit("decode", () -&gt; MorseCodeTranslator.morseCodeToLetters(code), 2, TimeUnit.SECONDS);
+ * </pre>
+ */
+public class MorseService implements AutoCloseable {
+
+    /** Jobs allowed to run at the same time when no limit is given. */
+    public static final int DEFAULT_MAX_CONCURRENCY = 256;
+
+    // Completes futures whose timeout has passed; shared by all services.
+    private static final ScheduledExecutorService TIMER = createTimer();
+    // Found once through reflection, so the class still runs on Java 8.
+    private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory();
+
+    private final ExecutorService executor;
+    private final Semaphore permits;          // Only with virtual threads; the fallback pool is bounded itself
+    private final boolean virtualThreads;
+    private final AtomicInteger running = new AtomicInteger();
+    private final Map<String, JobMetrics> metrics = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<?>> unfinished = ConcurrentHashMap.newKeySet(); // Cancelled by close()
+
+    /** Creates a service running at most {@value #DEFAULT_MAX_CONCURRENCY} jobs at a time. */
+    public MorseService() {
+        this(DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Creates a service.
+     * @param maxConcurrency The number of jobs allowed to run at the same time.
+     */
+    public MorseService(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1, not " + maxConcurrency);
+        }
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual != null) {
+            executor = virtual;
+            permits = new Semaphore(maxConcurrency);
+            virtualThreads = true;
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), task -> {
+                        Thread thread = new Thread(task, "morse-service-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true); // Idle services hold no threads
+            executor = pool;
+            permits = null;
+            virtualThreads = false;
+        }
+    }
+
+    /** Returns the shared service used by the GUI and by callers that do not need their own limits. */
+    public static MorseService getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    // Created on first use, so programs that never submit a job never start the service.
+    private static final class DefaultHolder {
+        static final MorseService INSTANCE = new MorseService();
+    }
+
+    // --- Jobs ---
+
+    /** Encodes text with {@link MorseCodeTranslator#lettersToMorseCode(String)}. */
+    public CompletableFuture<String> encode(String text) {
+        return submit("encode", () -> MorseCodeTranslator.lettersToMorseCode(text));
+    }
+
+    /** Decodes Morse code with {@link MorseCodeTranslator#morseCodeToLetters(String)}. */
+    public CompletableFuture<String> decode(String code) {
+        return submit("decode", () -> MorseCodeTranslator.morseCodeToLetters(code));
+    }
+
+    /** Renders Morse code into PCM samples with {@link MorseAudioPlayer#renderMorseCode(String)}. */
+    public CompletableFuture<ByteBuffer> render(MorseAudioPlayer player, String morseCode) {
+        return submit("render", () -> player.renderMorseCode(morseCode));
+    }
+
+    /**
+     * Plays Morse code with {@link MorseAudioPlayer#playMorseCode(String)}.
+     * The future completes when playback has finished; cancelling it stops playback.
+     */
+    public CompletableFuture<Void> play(MorseAudioPlayer player, String morseCode) {
+        return submit("play", () -> {
+            player.playMorseCode(morseCode);
+            return null;
+        });
+    }
+
+    /**
+     * Submits a job without a timeout.
+     * @see #submit(String, Callable, long, TimeUnit)
+     */
+    public <T> CompletableFuture<T> submit(String kind, Callable<T> job) {
+        return submit(kind, job, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Submits a job. The call never blocks: if the concurrency limit is reached, the job
+     * waits until another one finishes.
+     *
+     * @param kind    The name its metrics are kept under.
+     * @param job     The work to run.
+     * @param timeout The time after which the job is cancelled and its future fails with a
+     *                {@link TimeoutException}, counted from submission; 0 for no timeout.
+     * @param unit    The unit of {@code timeout}.
+     * @return A future completed with the job's result or exception. Cancelling it cancels the
+     *         job (interrupting it if it is already running). {@link #close()} cancels it
+     *         if it has not finished; after that, the future fails with a
+     *         {@link RejectedExecutionException}.
+     */
+    public <T> CompletableFuture<T> submit(String kind, Callable<T> job, long timeout, TimeUnit unit) {
+        JobMetrics jobMetrics = metrics.computeIfAbsent(kind, JobMetrics::new);
+        jobMetrics.submitted.increment();
+        long submittedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        Future<?> task;
+        try {
+            task = executor.submit(() -> run(job, result, jobMetrics, submittedAt));
+        } catch (RejectedExecutionException e) {
+            jobMetrics.failed.increment();
+            result.completeExceptionally(e);
+            return result;
+        }
+        unfinished.add(result);
+        ScheduledFuture<?> timer = timeout > 0 ? TIMER.schedule(() -> result.completeExceptionally(
+                new TimeoutException(kind + " job timed out after " + unit.toMillis(timeout) + " ms")),
+                timeout, unit) : null;
+
+        result.whenComplete((value, error) -> {
+            unfinished.remove(result);
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (error == null) {
+                jobMetrics.completed.increment();
+            } else if (error instanceof CancellationException) {
+                jobMetrics.cancelled.increment();
+                task.cancel(true);
+            } else if (error instanceof TimeoutException) {
+                jobMetrics.timedOut.increment();
+                task.cancel(true);
+            } else {
+                jobMetrics.failed.increment();
+            }
+        });
+        return result;
+    }
+
+    /** Runs one job on its worker thread, once a permit is free. */
+    private <T> void run(Callable<T> job, CompletableFuture<T> result, JobMetrics jobMetrics, long submittedAt) {
+        boolean acquired = false;
+        try {
+            if (permits != null) {
+                permits.acquire();
+                acquired = true;
+            }
+            if (result.isDone()) {
+                return; // Cancelled or timed out while waiting
+            }
+            long startedAt = System.nanoTime();
+            jobMetrics.waitNanos.add(startedAt - submittedAt);
+            running.incrementAndGet();
+            try {
+                result.complete(job.call());
+            } finally {
+                running.decrementAndGet();
+                long runNanos = System.nanoTime() - startedAt;
+                jobMetrics.runNanos.add(runNanos);
+                jobMetrics.maxRunNanos.accumulate(runNanos);
+            }
+        } catch (InterruptedException e) {
+            // Cancelled: the future is already complete
+            result.completeExceptionally(e);
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+        }
+    }
+
+    // --- Status ---
+
+    /** Returns true if jobs run on virtual threads (Java 21+), false if on the fallback pool. */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /** Returns the number of jobs running right now. */
+    public int getRunningJobs() {
+        return running.get();
+    }
+
+    /** Returns live metrics per job kind, in no particular order. */
+    public Map<String, JobMetrics> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * Stops accepting jobs and cancels every job that has not finished: running jobs are
+     * interrupted, and waiting ones never start. Their futures fail with a
+     * {@link CancellationException}, so no caller blocked in {@code join()} is left hanging.
+     */
+    @Override
+    public void close() {
+        executor.shutdown(); // No new jobs from here on
+        // Cancelling interrupts running jobs; the fallback pool would otherwise drop the jobs
+        // still in its queue without ever completing their futures
+        for (CompletableFuture<?> result : unfinished) {
+            result.cancel(true);
+        }
+        executor.shutdownNow();
+    }
+
+    /** Counts and timings of one kind of job, updated as jobs finish. */
+    public static final class JobMetrics {
+        private final String kind;
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();   // Submission until start, for jobs that started
+        private final LongAdder runNanos = new LongAdder();    // Start until end
+        private final LongAccumulator maxRunNanos = new LongAccumulator(Math::max, 0);
+
+        private JobMetrics(String kind) {
+            this.kind = kind;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public long getSubmitted() {
+            return submitted.sum();
+        }
+
+        public long getCompleted() {
+            return completed.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public long getCancelled() {
+            return cancelled.sum();
+        }
+
+        public long getTimedOut() {
+            return timedOut.sum();
+        }
+
+        /** Total time jobs spent waiting for a free slot, in milliseconds. */
+        public double getTotalWaitMillis() {
+            return waitNanos.sum() / 1e6;
+        }
+
+        /** Total time jobs spent running, in milliseconds. */
+        public double getTotalRunMillis() {
+            return runNanos.sum() / 1e6;
+        }
+
+        /** Longest time a single job ran, in milliseconds. */
+        public double getMaxRunMillis() {
+            return maxRunNanos.get() / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%s: %d submitted, %d completed, %d failed, %d cancelled, %d timed out, run %.1f ms (max %.3f ms), wait %.1f ms",
+                    kind, getSubmitted(), getCompleted(), getFailed(), getCancelled(), getTimedOut(),
+                    getTotalRunMillis(), getMaxRunMillis(), getTotalWaitMillis());
+        }
+    }
+
+    // --- Setup ---
+
+    private static ScheduledExecutorService createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "morse-service-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true); // Timers of jobs that finish in time do not pile up
+        return timer;
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null; // Before Java 21
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        if (NEW_VIRTUAL_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null; // e.g. preview feature not enabled on Java 19/20
+        }
+    }
+}
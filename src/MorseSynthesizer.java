@@ -0,0 +1,160 @@
+import java.util.Objects;
+
+/**
+ * Synthesizes keyed Morse tones.
+ *
+ * A tone is a sine wave from a phase-accumulator oscillator reading a shared wavetable, so
+ * no sample needs a {@code Math.sin} call. Its start and end are shaped with a raised-cosine
+ * rise and fall (also a lookup table) instead of being switched on and off at full
+ * amplitude, which is what causes the "key clicks" heard with hard keying: the splatter of
+ * a hard edge spreads over a wide band, while a raised-cosine edge keeps the spectrum close
+ * to the tone frequency.
+ *
+ * Instances are immutable settings (frequency, amplitude, sample rate and rise time) and
+ * are compared by value, so they can key caches such as {@link MorseWaveforms}. Output is
+ * 16-bit signed little-endian mono, like {@link MorseAudioPlayer} plays.
+ */
+public final class MorseSynthesizer {
+
+    // --- Defaults (what MorseAudioPlayer has always used) ---
+    public static final int DEFAULT_FREQUENCY_HZ = 700;      // A common choice for Morse tones
+    public static final double DEFAULT_AMPLITUDE = 0.7;      // 70% of the 16-bit range to avoid clipping
+    public static final float DEFAULT_SAMPLE_RATE = 44100;   // Standard audio sample rate
+    public static final double DEFAULT_RISE_TIME_MS = 5;     // Usual for a click-free CW keying envelope
+
+    /** The default settings. */
+    public static final MorseSynthesizer DEFAULT = new MorseSynthesizer(
+            DEFAULT_FREQUENCY_HZ, DEFAULT_AMPLITUDE, DEFAULT_SAMPLE_RATE, DEFAULT_RISE_TIME_MS);
+
+    // --- Wavetable ---
+    // One period of a sine; the top TABLE_BITS bits of the 32-bit phase pick an entry, and the
+    // rest interpolate linearly to the next one (an error far below one 16-bit step).
+    private static final int TABLE_BITS = 10;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    private static final int FRACTION_BITS = 32 - TABLE_BITS;
+    private static final float FRACTION_SCALE = 1f / (1 << FRACTION_BITS);
+    private static final float[] SINE = new float[TABLE_SIZE + 1]; // Plus a copy of entry 0, for interpolation
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            SINE[i] = (float) Math.sin(2.0 * Math.PI * i / TABLE_SIZE);
+        }
+    }
+
+    private final int frequencyHz;
+    private final double amplitude;
+    private final float sampleRate;
+    private final double riseTimeMs;
+    private final int phaseIncrement;  // 2^32 * frequency / sample rate
+    private final float[] rise;        // Raised-cosine gain for each sample of the rise, from ~0 to ~1
+
+    /**
+     * Creates synthesizer settings.
+     *
+     * @param frequencyHz The tone frequency in Hz, below half the sample rate.
+     * @param amplitude   The peak level as a fraction of full scale, from 0 to 1.
+     * @param sampleRate  The sample rate in samples per second.
+     * @param riseTimeMs  The duration of the rise (and of the fall) of each tone; 0 for hard keying.
+     *                    Tones too short for a full rise and fall get a shorter one.
+     */
+    public MorseSynthesizer(int frequencyHz, double amplitude, float sampleRate, double riseTimeMs) {
+        if (sampleRate <= 0 || frequencyHz <= 0 || frequencyHz >= sampleRate / 2) {
+            throw new IllegalArgumentException("Frequency must be between 0 and half the sample rate");
+        }
+        if (!(amplitude >= 0 && amplitude <= 1) || !(riseTimeMs >= 0)) {
+            throw new IllegalArgumentException("Amplitude must be between 0 and 1 and the rise time not negative");
+        }
+        this.frequencyHz = frequencyHz;
+        this.amplitude = amplitude;
+        this.sampleRate = sampleRate;
+        this.riseTimeMs = riseTimeMs;
+        this.phaseIncrement = (int) Math.round(frequencyHz / (double) sampleRate * 4294967296.0);
+        this.rise = new float[(int) (riseTimeMs * sampleRate / 1000)];
+        for (int i = 0; i < rise.length; i++) {
+            // Sampled at the middle of each step, so the rise and fall are symmetric
+            rise[i] = (float) (0.5 - 0.5 * Math.cos(Math.PI * (i + 0.5) / rise.length));
+        }
+    }
+
+    public int getFrequencyHz() {
+        return frequencyHz;
+    }
+
+    public double getAmplitude() {
+        return amplitude;
+    }
+
+    public float getSampleRate() {
+        return sampleRate;
+    }
+
+    public double getRiseTimeMs() {
+        return riseTimeMs;
+    }
+
+    /**
+     * Synthesizes one keyed tone, starting at phase zero, with its rise and fall.
+     *
+     * @param samples The length of the tone in samples.
+     * @return The tone as 16-bit signed little-endian samples.
+     */
+    public byte[] tone(int samples) {
+        byte[] buffer = new byte[samples * 2];
+        renderTone(buffer, 0, 0, samples, samples);
+        return buffer;
+    }
+
+    /**
+     * Writes part of a keyed tone into a buffer, so long tones can be rendered block by block.
+     *
+     * @param buffer    The destination, as 16-bit signed little-endian samples.
+     * @param offset    The byte offset in {@code buffer} to start writing at.
+     * @param toneStart The first sample of the tone to render (the phase and envelope follow from it).
+     * @param count     The number of samples to render.
+     * @param length    The full length of the tone in samples (where the fall ends).
+     */
+    public void renderTone(byte[] buffer, int offset, int toneStart, int count, int length) {
+        int ramp = Math.min(rise.length, length / 2);
+        // Stretch the rise table over shorter ramps rather than cutting it off
+        long rampStep = ramp == 0 ? 0 : ((long) rise.length << 16) / ramp;
+        int phase = phaseIncrement * toneStart;       // Wraps around, as phases should
+        float scale = (float) (Short.MAX_VALUE * amplitude);
+        int end = toneStart + count;
+        for (int i = toneStart, out = offset; i < end; i++, out += 2) {
+            int index = phase >>> FRACTION_BITS;
+            float fraction = (phase & ((1 << FRACTION_BITS) - 1)) * FRACTION_SCALE;
+            float value = SINE[index] + (SINE[index + 1] - SINE[index]) * fraction;
+            int fromEdge = Math.min(i, length - 1 - i);
+            if (fromEdge < ramp) {
+                value *= rise[(int) ((fromEdge * rampStep) >>> 16)];
+            }
+            int sample = (int) (value * scale);
+            buffer[out] = (byte) sample;
+            buffer[out + 1] = (byte) (sample >> 8);
+            phase += phaseIncrement;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MorseSynthesizer)) {
+            return false;
+        }
+        MorseSynthesizer other = (MorseSynthesizer) o;
+        return frequencyHz == other.frequencyHz
+                && Double.compare(amplitude, other.amplitude) == 0
+                && Float.compare(sampleRate, other.sampleRate) == 0
+                && Double.compare(riseTimeMs, other.riseTimeMs) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(frequencyHz, amplitude, sampleRate, riseTimeMs);
+    }
+
+    @Override
+    public String toString() {
+        return "MorseSynthesizer[" + frequencyHz + " Hz, amplitude " + amplitude + ", "
+                + sampleRate + " Hz sampling, " + riseTimeMs + " ms rise]";
+    }
+}
@@ -0,0 +1,349 @@
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.UndoableEdit;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compact storage for the text of a Swing document, meant for multi-megabyte translation
+ * output: {@code new PlainDocument(new MorseTextContent())}.
+ *
+ * The text is kept in chunks of a few thousand characters, each stored as compactly as its
+ * characters allow:
+ * <ul>
+ *   <li>Morse code (only '.', '-', ' ' and '/') at 2 bits per character, four to a byte;</li>
+ *   <li>other Latin-1 text at one byte per character;</li>
+ *   <li>anything else as plain chars.</li>
+ * </ul>
+ * So a 50 MB Morse result takes about 12.5 MB, where the default {@code GapContent} would
+ * need 100 MB plus its gap. An edit only re-encodes the chunks it touches.
+ *
+ * Like every {@link AbstractDocument.Content} it starts out holding the document's implied
+ * final newline. Edits are not undoable (they return no {@link UndoableEdit}), which suits
+ * an output pane. It relies on the document's locking: any number of readers, or one writer.
+ */
+public class MorseTextContent implements AbstractDocument.Content {
+
+    // --- Chunking ---
+    private static final int CHUNK_CHARS = 8192;   // Chunk length aimed for when cutting text up
+    private static final int MAX_CHUNK_CHARS = 2 * CHUNK_CHARS;
+    private static final int MIN_CHUNK_CHARS = CHUNK_CHARS / 4; // Shorter chunks merge with a neighbour
+
+    // --- Packed Morse: 2 bits per character ---
+    private static final String MORSE_SYMBOLS = ".- /";
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int[] ends = new int[16];  // ends[i]: offset just past chunk i
+    private int length;
+    private final List<WeakReference<Mark>> marks = new ArrayList<>();
+
+    public MorseTextContent() {
+        chunks.add(Chunk.encode(new char[] {'\n'}, 0, 1));
+        length = 1;
+        updateEnds(0);
+    }
+
+    // --- AbstractDocument.Content ---
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if (where < 0 || where >= length) {
+            throw new BadLocationException("Invalid insert", where);
+        }
+        if (str.isEmpty()) {
+            return null;
+        }
+        int index = chunkAt(where);
+        int chunkStart = start(index);
+        Chunk chunk = chunks.get(index);
+        char[] text = new char[chunk.length + str.length()];
+        chunk.decode(0, where - chunkStart, text, 0);
+        str.getChars(0, str.length(), text, where - chunkStart);
+        chunk.decode(where - chunkStart, chunk.length - (where - chunkStart), text, where - chunkStart + str.length());
+        replaceChunks(index, index + 1, text);
+        length += str.length();
+        updateMarksForInsert(where, str.length());
+        return null;
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where < 0 || nitems < 0 || where + nitems >= length) {
+            throw new BadLocationException("Invalid remove", where + nitems);
+        }
+        if (nitems == 0) {
+            return null;
+        }
+        int first = chunkAt(where);
+        int last = chunkAt(where + nitems);  // Holds the first character kept after the removal
+        int firstStart = start(first);
+        int lastStart = start(last);
+        Chunk head = chunks.get(first);
+        Chunk tail = chunks.get(last);
+        int kept = where - firstStart;
+        int resume = where + nitems - lastStart;
+        char[] text = new char[kept + tail.length - resume];
+        head.decode(0, kept, text, 0);
+        tail.decode(resume, tail.length - resume, text, kept);
+        replaceChunks(first, last + 1, text);
+        length -= nitems;
+        updateMarksForRemove(where, nitems);
+        return null;
+    }
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        char[] text = new char[checkRange(where, len)];
+        copy(where, len, text);
+        return new String(text);
+    }
+
+    @Override
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        checkRange(where, len);
+        if (txt.isPartialReturn() && len > 0) {
+            // Only a chunk stored as chars can be handed out without copying
+            int index = chunkAt(where);
+            Chunk chunk = chunks.get(index);
+            if (chunk.chars != null) {
+                int offset = where - start(index);
+                txt.array = chunk.chars;
+                txt.offset = offset;
+                txt.count = Math.min(len, chunk.length - offset);
+                return;
+            }
+        }
+        char[] text = new char[len];
+        copy(where, len, text);
+        txt.array = text;
+        txt.offset = 0;
+        txt.count = len;
+    }
+
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        if (offset < 0 || offset > length) {
+            throw new BadLocationException("Invalid position", offset);
+        }
+        Mark mark = new Mark(offset);
+        synchronized (marks) {
+            marks.add(new WeakReference<>(mark));
+        }
+        return mark;
+    }
+
+    /** Returns the bytes the text takes up in its chunks (for tests and diagnostics). */
+    long storedBytes() {
+        long bytes = 0;
+        for (Chunk chunk : chunks) {
+            bytes += chunk.chars != null ? 2L * chunk.chars.length : chunk.bytes.length;
+        }
+        return bytes;
+    }
+
+    // --- Chunks ---
+
+    private int checkRange(int where, int len) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > length) {
+            throw new BadLocationException("Invalid range", where + len);
+        }
+        return len;
+    }
+
+    /** Copies {@code len} characters from {@code where} on into {@code dst}. */
+    private void copy(int where, int len, char[] dst) {
+        int index = chunkAt(where);
+        int offset = where - start(index);
+        int copied = 0;
+        while (copied < len) {
+            Chunk chunk = chunks.get(index++);
+            int count = Math.min(len - copied, chunk.length - offset);
+            chunk.decode(offset, count, dst, copied);
+            copied += count;
+            offset = 0;
+        }
+    }
+
+    private int start(int index) {
+        return index == 0 ? 0 : ends[index - 1];
+    }
+
+    /** Returns the index of the chunk holding the character at {@code offset}. */
+    private int chunkAt(int offset) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ends[middle] <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Replaces chunks {@code from} (inclusive) to {@code to} (exclusive) with chunks holding
+     * {@code text}, taking in a short neighbour so edits do not leave slivers behind.
+     */
+    private void replaceChunks(int from, int to, char[] text) {
+        if (text.length < MIN_CHUNK_CHARS && (from > 0 || to < chunks.size())) {
+            // Merge with the previous chunk, or the next one at the very start
+            Chunk neighbour = chunks.get(from > 0 ? from - 1 : to);
+            char[] merged = new char[text.length + neighbour.length];
+            if (from > 0) {
+                neighbour.decode(0, neighbour.length, merged, 0);
+                System.arraycopy(text, 0, merged, neighbour.length, text.length);
+                from--;
+            } else {
+                System.arraycopy(text, 0, merged, 0, text.length);
+                neighbour.decode(0, neighbour.length, merged, text.length);
+                to++;
+            }
+            text = merged;
+        }
+        List<Chunk> replacement = new ArrayList<>();
+        if (text.length <= MAX_CHUNK_CHARS) {
+            replacement.add(Chunk.encode(text, 0, text.length));
+        } else {
+            int pieces = (text.length + CHUNK_CHARS - 1) / CHUNK_CHARS;
+            for (int i = 0; i < pieces; i++) {
+                int start = (int) ((long) i * text.length / pieces);
+                int end = (int) ((long) (i + 1) * text.length / pieces);
+                replacement.add(Chunk.encode(text, start, end - start));
+            }
+        }
+        List<Chunk> range = chunks.subList(from, to);
+        range.clear();
+        range.addAll(replacement);
+        updateEnds(from);
+    }
+
+    private void updateEnds(int from) {
+        if (ends.length < chunks.size()) {
+            ends = Arrays.copyOf(ends, Math.max(chunks.size(), 2 * ends.length));
+        }
+        int end = start(from);
+        for (int i = from; i < chunks.size(); i++) {
+            end += chunks.get(i).length;
+            ends[i] = end;
+        }
+    }
+
+    /**
+     * A piece of the text. Exactly one of the arrays is used: {@code bytes} holds packed Morse
+     * or Latin-1 ({@code packed} tells which), {@code chars} anything else.
+     */
+    private static final class Chunk {
+        final int length;
+        final boolean packed;
+        final byte[] bytes;
+        final char[] chars;
+
+        private Chunk(int length, boolean packed, byte[] bytes, char[] chars) {
+            this.length = length;
+            this.packed = packed;
+            this.bytes = bytes;
+            this.chars = chars;
+        }
+
+        /** Stores {@code count} characters of {@code text} in the most compact form that fits them. */
+        static Chunk encode(char[] text, int start, int count) {
+            boolean morse = true;
+            boolean latin1 = true;
+            for (int i = start; i < start + count && latin1; i++) {
+                char c = text[i];
+                morse &= MORSE_SYMBOLS.indexOf(c) >= 0;
+                latin1 = c <= 0xFF;
+            }
+            if (morse) {
+                byte[] packed = new byte[(count + 3) / 4];
+                for (int i = 0; i < count; i++) {
+                    packed[i >> 2] |= MORSE_SYMBOLS.indexOf(text[start + i]) << ((i & 3) << 1);
+                }
+                return new Chunk(count, true, packed, null);
+            }
+            if (latin1) {
+                byte[] bytes = new byte[count];
+                for (int i = 0; i < count; i++) {
+                    bytes[i] = (byte) text[start + i];
+                }
+                return new Chunk(count, false, bytes, null);
+            }
+            return new Chunk(count, false, null, Arrays.copyOfRange(text, start, start + count));
+        }
+
+        /** Copies {@code count} characters from {@code offset} on into {@code dst} at {@code at}. */
+        void decode(int offset, int count, char[] dst, int at) {
+            if (chars != null) {
+                System.arraycopy(chars, offset, dst, at, count);
+            } else if (packed) {
+                for (int i = offset; i < offset + count; i++) {
+                    dst[at++] = MORSE_SYMBOLS.charAt((bytes[i >> 2] >> ((i & 3) << 1)) & 3);
+                }
+            } else {
+                for (int i = offset; i < offset + count; i++) {
+                    dst[at++] = (char) (bytes[i] & 0xFF);
+                }
+            }
+        }
+    }
+
+    // --- Positions ---
+
+    /** A position that follows edits; dropped from the list once nothing refers to it. */
+    private static final class Mark implements Position {
+        volatile int offset;
+
+        Mark(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public int getOffset() {
+            return offset;
+        }
+    }
+
+    /** Moves positions at or after an insertion forward (Swing's bias), except one at 0. */
+    private void updateMarksForInsert(int where, int count) {
+        int from = where == 0 ? 1 : where; // Like the JDK's contents: offset 0 stays at the start
+        synchronized (marks) {
+            for (Iterator<WeakReference<Mark>> it = marks.iterator(); it.hasNext(); ) {
+                Mark mark = it.next().get();
+                if (mark == null) {
+                    it.remove();
+                } else if (mark.offset >= from) {
+                    mark.offset += count;
+                }
+            }
+        }
+    }
+
+    /** Moves positions after a removal; ones inside it collapse to its start. */
+    private void updateMarksForRemove(int where, int count) {
+        synchronized (marks) {
+            for (Iterator<WeakReference<Mark>> it = marks.iterator(); it.hasNext(); ) {
+                Mark mark = it.next().get();
+                if (mark == null) {
+                    it.remove();
+                } else if (mark.offset >= where + count) {
+                    mark.offset -= count;
+                } else if (mark.offset > where) {
+                    mark.offset = where;
+                }
+            }
+        }
+    }
+}
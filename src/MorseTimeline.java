@@ -0,0 +1,454 @@
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The timing of a Morse message as a plain array of key-down and key-up durations, in samples.
+ *
+ * Step 0 is the first key-down, and steps alternate from there: even steps are tones (a
+ * dot or a dash), odd steps are silences, with the gaps between elements, characters and
+ * words merged into one step. It is the single source of timing for everything that sends
+ * Morse: {@link MorsePcmStream} turns it into audio (and so playback, WAV rendering and the
+ * mixer), {@link #key(Key)} drives a hardware key or GPIO pin in real time, and the step
+ * and character positions are what playback reports to listeners such as the GUI.
+ *
+ * A timeline is built in a single pass from Morse code or from plain text, with no
+ * intermediate parsing: see {@link #fromMorseCode} and {@link #fromText}. Durations follow
+ * {@link Timing}: standard PARIS timing by default, optionally with Farnsworth spacing
+ * (characters sent fast with longer gaps between them) and weighting (longer or shorter
+ * tones, taken from or given to the gaps after them, so the overall speed stays the same).
+ *
+ * Characters are counted the way the decoder outputs them: every Morse character is one,
+ * and every word gap is one more (the space between the words).
+ */
+public final class MorseTimeline {
+
+    private final int[] durations;  // Samples of each step; even steps key down, odd steps key up
+    private final int[] stepChars;  // Character each step belongs to (for silences: the one before it)
+    private final long[] stepStarts; // Sample at which each step starts, plus the total at the end
+    private final long[] charStarts; // Sample at which each character starts
+    private final int ditSamples;
+    private final Timing timing;
+    private final float sampleRate;
+
+    private MorseTimeline(Builder builder) {
+        builder.finish();
+        this.durations = Arrays.copyOf(builder.durations, builder.size);
+        this.stepChars = Arrays.copyOf(builder.stepChars, builder.size);
+        this.timing = builder.timing;
+        this.sampleRate = builder.sampleRate;
+        this.ditSamples = builder.ditSamples;
+        this.stepStarts = new long[durations.length + 1];
+        long total = 0;
+        for (int i = 0; i < durations.length; i++) {
+            stepStarts[i] = total;
+            total += durations[i];
+        }
+        stepStarts[durations.length] = total;
+        this.charStarts = new long[builder.chars];
+        for (int i = 0; i < charStarts.length; i++) {
+            // A character may start inside a merged silence (a word gap does)
+            charStarts[i] = stepStarts[builder.charSteps[i]] + samplesFor(builder.charOffsetsMs[i], sampleRate);
+        }
+    }
+
+    // --- Building ---
+
+    /**
+     * Builds the timeline of Morse code. Characters are separated by whitespace and words by
+     * '/' (with or without spaces around it), as {@link MorseCodeTranslator#lettersToMorseCode}
+     * writes them. Any other symbol inside a character is not sent, but the character still
+     * counts.
+     *
+     * @param morseCode  The Morse code (e.g. "... --- ...").
+     * @param timing     The durations of elements and gaps.
+     * @param sampleRate The sample rate the durations are counted in.
+     */
+    public static MorseTimeline fromMorseCode(CharSequence morseCode, Timing timing, float sampleRate) {
+        Builder builder = new Builder(timing, sampleRate);
+        if (morseCode != null) {
+            builder.append(morseCode, 0, morseCode.length());
+        }
+        return new MorseTimeline(builder);
+    }
+
+    /**
+     * Builds the timeline of plain text. The text is encoded piece by piece straight into the
+     * timeline, so no Morse code String for the whole message is ever built.
+     *
+     * @param text       The text to send.
+     * @param alphabet   The alphabet to encode it with.
+     * @param timing     The durations of elements and gaps.
+     * @param sampleRate The sample rate the durations are counted in.
+     */
+    public static MorseTimeline fromText(CharSequence text, MorseAlphabet alphabet, Timing timing, float sampleRate) {
+        Builder builder = new Builder(timing, sampleRate);
+        MorseEncoder encoder = new MorseEncoder(alphabet);
+        StringBuilder piece = new StringBuilder();
+        for (int start = 0; start < text.length(); start += TEXT_PIECE_CHARS) {
+            encoder.encode(text, start, Math.min(text.length(), start + TEXT_PIECE_CHARS), piece);
+            builder.append(piece, 0, piece.length());
+            piece.setLength(0);
+        }
+        encoder.finish(piece);
+        builder.append(piece, 0, piece.length());
+        return new MorseTimeline(builder);
+    }
+
+    private static final int TEXT_PIECE_CHARS = 4096; // Text encoded at a time by fromText
+
+    // --- Steps ---
+
+    /** Number of steps; every tone is followed by a silence, so this is even. */
+    public int stepCount() {
+        return durations.length;
+    }
+
+    /** Duration of a step in samples. */
+    public int duration(int step) {
+        return durations[step];
+    }
+
+    /** True if the key is down during a step (a tone); false for a silence. */
+    public boolean isKeyDown(int step) {
+        return (step & 1) == 0;
+    }
+
+    /** The symbol a step sends: '.', '-', or ' ' for a silence. */
+    public char symbolOf(int step) {
+        if (!isKeyDown(step)) {
+            return ' ';
+        }
+        return durations[step] == ditSamples ? '.' : '-';
+    }
+
+    /** The character a step belongs to; a silence belongs to the character before it (-1 if none). */
+    public int charIndexOf(int step) {
+        return stepChars[step];
+    }
+
+    /** Sample at which a step starts; {@code stepStart(stepCount())} is the length. */
+    public long stepStart(int step) {
+        return stepStarts[step];
+    }
+
+    /** Returns the step playing at a sample position (or {@link #stepCount()} at the end). */
+    public int stepAt(long sample) {
+        int index = Arrays.binarySearch(stepStarts, sample);
+        if (index < 0) {
+            return -index - 2; // Inside the step before the insertion point
+        }
+        // Zero-length steps share their start with the next one; skip to the last of them
+        while (index < durations.length && stepStarts[index + 1] == sample) {
+            index++;
+        }
+        return index;
+    }
+
+    /** Length of the whole message in samples. */
+    public long length() {
+        return stepStarts[durations.length];
+    }
+
+    /** Number of characters, including one per word gap. */
+    public int characterCount() {
+        return charStarts.length;
+    }
+
+    /** Sample at which a character (or word gap) starts. */
+    public long characterStart(int charIndex) {
+        return charStarts[charIndex];
+    }
+
+    /** Returns a copy of the durations of all steps, in samples. */
+    public int[] toArray() {
+        return durations.clone();
+    }
+
+    public Timing getTiming() {
+        return timing;
+    }
+
+    public float getSampleRate() {
+        return sampleRate;
+    }
+
+    // --- Keying ---
+
+    /** Something that can be keyed: a transmitter, a relay, a GPIO pin, a light. */
+    public interface Key {
+        /** Called with true when the key goes down (tone on) and false when it goes up. */
+        void setKeyDown(boolean down);
+    }
+
+    /**
+     * Keys the timeline in real time on the calling thread: the key goes down and up at
+     * each step's scheduled time, measured from the start, so delays in the key itself do
+     * not add up over the message. The key is always left up.
+     *
+     * @param key The key to drive.
+     * @throws InterruptedException If the thread is interrupted; the key is released first.
+     */
+    public void key(Key key) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            for (int step = 0; step < durations.length; step++) {
+                if (durations[step] == 0) {
+                    continue;
+                }
+                key.setKeyDown(isKeyDown(step));
+                long end = start + (long) (stepStarts[step + 1] * 1e9 / sampleRate);
+                long remaining;
+                while ((remaining = end - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(remaining);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException("Keying interrupted");
+                    }
+                }
+            }
+        } finally {
+            key.setKeyDown(false);
+        }
+    }
+
+    /**
+     * Number of samples covering a duration. Tones and silences of the same duration always
+     * get the same length, and durations are cut to whole samples the way they always were.
+     */
+    static int samplesFor(double durationMs, float sampleRate) {
+        return durationMs <= 0 ? 0 : (int) (durationMs * sampleRate / 1000);
+    }
+
+    // --- Timing ---
+
+    /**
+     * How long elements and gaps last. Immutable; compared by value.
+     *
+     * With a unit u (the length of a dot), a spacing unit f and a weight w:
+     * <pre>
+     *   dot (1 + w) u, dash (3 + w) u, gap between elements (1 - w) u,
+     *   gap between characters 3 f - w u, gap between words 7 f - w u
+     * </pre>
+     * Standard timing has f = u and w = 0. A longer spacing unit gives Farnsworth timing;
+     * a positive weight makes tones heavier, a negative one lighter.
+     */
+    public static final class Timing {
+
+        private final double unitMs;
+        private final double spacingUnitMs;
+        private final double weight;
+
+        /** Standard timing with the given unit. */
+        public Timing(double unitMs) {
+            this(unitMs, unitMs, 0);
+        }
+
+        /**
+         * @param unitMs        The length of a dot, in milliseconds.
+         * @param spacingUnitMs The unit the gaps between characters and words are counted in;
+         *                      at least {@code unitMs}, longer for Farnsworth spacing.
+         * @param weight        Units added to every tone and taken from the gap after it,
+         *                      between -1 and 1 (exclusive); 0 for standard weighting.
+         */
+        public Timing(double unitMs, double spacingUnitMs, double weight) {
+            if (!(unitMs > 0) || !(spacingUnitMs >= unitMs) || !(weight > -1 && weight < 1)) {
+                throw new IllegalArgumentException(
+                        "Unit must be positive, spacing unit at least the unit, weight between -1 and 1");
+            }
+            this.unitMs = unitMs;
+            this.spacingUnitMs = spacingUnitMs;
+            this.weight = weight;
+        }
+
+        /**
+         * Timing for a character speed and an overall (Farnsworth) speed in words per minute,
+         * using the ARRL formula: characters are sent at {@code wpm}, and the gaps between
+         * characters and words are stretched until "PARIS " takes as long as at {@code effectiveWpm}.
+         *
+         * @param wpm          The character speed (1 to 1200).
+         * @param effectiveWpm The overall speed, at most {@code wpm}.
+         * @param weight       See {@link #Timing(double, double, double)}.
+         */
+        public static Timing ofWpm(int wpm, int effectiveWpm, double weight) {
+            if (wpm < 1 || wpm > 1200 || effectiveWpm < 1 || effectiveWpm > wpm) {
+                throw new IllegalArgumentException("Speed must be between 1 and 1200 WPM, effective speed at most that");
+            }
+            double unitMs = 1200.0 / wpm;
+            // Total delay per word spread over the 19 spacing units of "PARIS "
+            double delayMs = (60.0 * wpm - 37.2 * effectiveWpm) / ((double) effectiveWpm * wpm) * 1000;
+            return new Timing(unitMs, Math.max(unitMs, delayMs / 19), weight);
+        }
+
+        public double getUnitMs() {
+            return unitMs;
+        }
+
+        public double getSpacingUnitMs() {
+            return spacingUnitMs;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        double ditMs() {
+            return (1 + weight) * unitMs;
+        }
+
+        double dahMs() {
+            return (3 + weight) * unitMs;
+        }
+
+        double elementGapMs() {
+            return (1 - weight) * unitMs;
+        }
+
+        /** What a character gap adds to the element gap after the last tone. */
+        double characterGapExtraMs() {
+            return 3 * spacingUnitMs - unitMs;
+        }
+
+        /** What a word gap adds to the element gap after the last tone. */
+        double wordGapExtraMs() {
+            return 7 * spacingUnitMs - unitMs;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Timing)) {
+                return false;
+            }
+            Timing other = (Timing) o;
+            return Double.compare(unitMs, other.unitMs) == 0
+                    && Double.compare(spacingUnitMs, other.spacingUnitMs) == 0
+                    && Double.compare(weight, other.weight) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(unitMs, spacingUnitMs, weight);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "Timing[unit %.2f ms, spacing unit %.2f ms, weight %.2f]",
+                    unitMs, spacingUnitMs, weight);
+        }
+    }
+
+    /**
+     * Scans Morse code into steps, one character at a time, merging the gaps after a tone
+     * into one silence, and records which character each step belongs to.
+     */
+    private static final class Builder {
+        private static final int NO_GAP = 0;
+        private static final int CHARACTER_GAP = 1;
+        private static final int WORD_GAP = 2;
+
+        final Timing timing;
+        final float sampleRate;
+        final int ditSamples;
+        private final int dahSamples;
+        private final double elementGapMs;
+
+        int[] durations = new int[64];
+        int[] stepChars = new int[64];
+        int size;
+        int[] charSteps = new int[64];         // Step in which each character starts...
+        double[] charOffsetsMs = new double[64]; // ...and how far into that step
+        int chars;
+
+        private double silenceMs = -1;  // Length of the open silence after the last tone; -1 if none
+        private int silenceChar;        // The character that silence follows
+        private boolean inCharacter;
+        private int gap = NO_GAP;       // Strongest gap seen since the last character
+
+        Builder(Timing timing, float sampleRate) {
+            this.timing = timing;
+            this.sampleRate = sampleRate;
+            this.ditSamples = samplesFor(timing.ditMs(), sampleRate);
+            this.dahSamples = samplesFor(timing.dahMs(), sampleRate);
+            this.elementGapMs = timing.elementGapMs();
+        }
+
+        void append(CharSequence morse, int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = morse.charAt(i);
+                if (c == '/') {
+                    inCharacter = false;
+                    gap = WORD_GAP;
+                } else if (c <= ' ') {
+                    inCharacter = false;
+                    gap = Math.max(gap, CHARACTER_GAP);
+                } else {
+                    if (!inCharacter) {
+                        startCharacter();
+                    }
+                    if (c == '.') {
+                        tone(ditSamples);
+                    } else if (c == '-') {
+                        tone(dahSamples);
+                    }
+                }
+            }
+        }
+
+        /** Starts a character, after the gap that separates it from the previous one. */
+        private void startCharacter() {
+            if (chars > 0 && silenceMs >= 0) {
+                if (gap == WORD_GAP) {
+                    character(); // The space between the words, right after the element gap
+                    silenceMs += timing.wordGapExtraMs();
+                } else {
+                    silenceMs += timing.characterGapExtraMs();
+                }
+            } else if (chars > 0 && gap == WORD_GAP) {
+                character(); // A word gap after characters that sent nothing
+            }
+            character();
+            inCharacter = true;
+            gap = NO_GAP;
+        }
+
+        private void character() {
+            if (chars == charSteps.length) {
+                charSteps = Arrays.copyOf(charSteps, chars * 2);
+                charOffsetsMs = Arrays.copyOf(charOffsetsMs, chars * 2);
+            }
+            // While a silence is open, the character starts inside it; it is the next step either way
+            charSteps[chars] = size;
+            charOffsetsMs[chars] = Math.max(0, silenceMs);
+            chars++;
+        }
+
+        private void tone(int samples) {
+            closeSilence();
+            add(samples, chars - 1);
+            silenceMs = elementGapMs; // Every tone is followed by at least the element gap
+            silenceChar = chars - 1;
+        }
+
+        /** Ends the open silence, so the next step can be a tone. */
+        private void closeSilence() {
+            if (silenceMs >= 0) {
+                add(samplesFor(silenceMs, sampleRate), silenceChar);
+                silenceMs = -1;
+            }
+        }
+
+        /** Ends the message with the element gap after its last tone. */
+        void finish() {
+            closeSilence();
+        }
+
+        private void add(int samples, int charIndex) {
+            if (size == durations.length) {
+                durations = Arrays.copyOf(durations, size * 2);
+                stepChars = Arrays.copyOf(stepChars, size * 2);
+            }
+            stepChars[size] = charIndex;
+            durations[size++] = samples;
+        }
+    }
+}
@@ -0,0 +1,524 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decodes damaged Morse code: where {@link MorseDecoder} turns any unknown sequence into
+ * '?', this decoder finds the most likely text the sender meant, and its runners-up.
+ *
+ * Morse received over the air loses and gains elements, and characters run together when
+ * a gap between them is missed. The decoder walks the alphabet's code tree (see
+ * {@link MorseDecoder}) with a set of hypotheses, each a position in the tree plus the text
+ * decoded so far and its cost, and for every input symbol tries each reading of it:
+ * <ul>
+ *   <li>as sent (free);</li>
+ *   <li>a dot that should have been a dash, or the other way round ({@link Costs#getSubstitution()});</li>
+ *   <li>an element that was not sent at all ({@link Costs#getExtraElement()});</li>
+ *   <li>an element lost just before it ({@link Costs#getDroppedElement()});</li>
+ *   <li>a character gap lost just before it, so a character ends there ({@link Costs#getMissingGap()});</li>
+ *   <li>a gap inside a character, or a word gap that was only a character gap ({@link Costs#getExtraGap()}).</li>
+ * </ul>
+ * Hypotheses that reach the same tree position with the same text are merged, keeping the
+ * cheaper one (the Viterbi step), and only the cheapest {@code beamWidth} survive each
+ * symbol. So the work per symbol is bounded, and decoding is linear in the input length
+ * and can run on a stream: feed it with {@link #accept}, and ask for the best readings so
+ * far with {@link #candidates(int)} at any point.
+ *
+ * With a dictionary, every word that is not in it costs {@link Costs#getUnknownWord()}, and
+ * is charged as soon as the word stops being the start of any dictionary word, so the beam
+ * is not spent on hopeless readings.
+ *
+ * Like the other decoders it is not thread-safe.
+ */
+public class MorseTolerantDecoder {
+
+    /** Beam width used by {@link #decode(String, int)}: plenty for a few errors per word. */
+    public static final int DEFAULT_BEAM_WIDTH = 64;
+
+    private static final int ROOT = 1; // Heap-ordered tree: children of n are 2n (dot) and 2n + 1 (dash)
+
+    // What the input symbols are read as
+    private static final int ELEMENT = 0;
+    private static final int CHARACTER_GAP = 1;
+    private static final int WORD_GAP = 2;
+    private static final int NOISE = 3;
+
+    private final String[] symbols;      // Symbol at each tree node, or null
+    private final String[] spaced;       // The same with a word space in front
+    private final boolean[] alive;       // Whether a node or any node below it holds a symbol
+    private final Costs costs;
+    private final Set<String> words;     // Dictionary words, or null
+    private final Set<String> prefixes;  // Every start of a dictionary word, or null
+    private final int beamWidth;
+
+    // --- Search State ---
+    private Hypothesis[] beam;           // The surviving hypotheses, beamSize of them
+    private int beamSize;
+    private Hypothesis[] next;           // Hypotheses for the next symbol, nextSize of them...
+    private int nextSize;
+    private final Hypothesis[] table;    // ...also in this open-addressing table, to merge duplicates
+    private final int[] slots;           // Slot in the table of each of next
+
+    /**
+     * Creates a decoder for the ITU alphabet with the default costs and no dictionary.
+     */
+    public MorseTolerantDecoder() {
+        this(MorseAlphabet.ITU, Costs.DEFAULT, null, DEFAULT_BEAM_WIDTH);
+    }
+
+    /**
+     * Creates a decoder.
+     *
+     * @param alphabet   The alphabet the code was sent in.
+     * @param costs      What each kind of error costs.
+     * @param dictionary The words the text is likely to contain (any case), or null for none.
+     * @param beamWidth  How many hypotheses to keep after each symbol; at least 1. The work
+     *                   per symbol grows linearly with it.
+     */
+    public MorseTolerantDecoder(MorseAlphabet alphabet, Costs costs, Collection<String> dictionary, int beamWidth) {
+        if (beamWidth < 1) {
+            throw new IllegalArgumentException("Beam width must be at least 1: " + beamWidth);
+        }
+        char[] letters = alphabet.decodeChars();
+        String[] tokens = alphabet.decodeStrings();
+        this.costs = costs;
+        this.beamWidth = beamWidth;
+        this.symbols = new String[letters.length];
+        this.spaced = new String[letters.length];
+        this.alive = new boolean[letters.length];
+        for (int node = letters.length - 1; node >= ROOT; node--) {
+            symbols[node] = letters[node] != 0 ? String.valueOf(letters[node]) : tokens != null ? tokens[node] : null;
+            spaced[node] = symbols[node] == null ? null : " " + symbols[node];
+            boolean below = 2 * node + 1 < letters.length && (alive[2 * node] || alive[2 * node + 1]);
+            alive[node] = below || symbols[node] != null;
+        }
+        // Each hypothesis and its dropped-element readings lead to at most 4 new ones each
+        int maxNext = beamWidth * 3 * 4;
+        this.beam = new Hypothesis[maxNext];
+        this.next = new Hypothesis[maxNext];
+        this.slots = new int[maxNext];
+        this.table = new Hypothesis[Integer.highestOneBit(maxNext) * 4];
+        if (dictionary == null) {
+            this.words = null;
+            this.prefixes = null;
+        } else {
+            this.words = new HashSet<>();
+            this.prefixes = new HashSet<>();
+            for (String word : dictionary) {
+                String upper = word.toUpperCase(Locale.ROOT);
+                words.add(upper);
+                for (int i = 0; i <= upper.length(); i++) {
+                    prefixes.add(upper.substring(0, i));
+                }
+            }
+        }
+        reset();
+    }
+
+    /**
+     * Decodes a whole message with the default costs, ITU alphabet and no dictionary.
+     *
+     * @param code          The Morse code, with characters separated by spaces and words by '/'.
+     * @param maxCandidates How many readings to return at most.
+     * @return The readings, cheapest first.
+     */
+    public static List<Candidate> decode(String code, int maxCandidates) {
+        MorseTolerantDecoder decoder = new MorseTolerantDecoder();
+        decoder.accept(code, 0, code.length());
+        return decoder.candidates(maxCandidates);
+    }
+
+    // --- Input ---
+
+    /**
+     * Reads {@code code[start, end)}. Dots and dashes are elements, whitespace separates
+     * characters and '/' separates words; anything else is read as an element that should
+     * not be there. A message can be fed in any number of pieces.
+     */
+    public void accept(CharSequence code, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = code.charAt(i);
+            if (c == '.' || c == '-') {
+                read(ELEMENT, c == '-' ? 1 : 0);
+            } else if (c == '/') {
+                read(WORD_GAP, 0);
+            } else if (c <= ' ') {
+                read(CHARACTER_GAP, 0);
+            } else {
+                read(NOISE, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns the best readings of everything read so far, as if the message ended here.
+     * The decoder is not changed, so more code can be fed afterwards.
+     *
+     * @param maxCandidates How many readings to return at most.
+     * @return The readings, cheapest first; distinct texts only.
+     */
+    public List<Candidate> candidates(int maxCandidates) {
+        Map<String, Double> best = new HashMap<>();
+        for (int i = 0; i < beamSize; i++) {
+            Hypothesis h = beam[i];
+            addEnding(best, h);
+            for (int bit = 0; bit <= 1; bit++) {
+                Hypothesis dropped = child(h, bit, costs.droppedElement);
+                if (dropped != null) {
+                    addEnding(best, dropped);
+                }
+            }
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : best.entrySet()) {
+            candidates.add(new Candidate(entry.getKey(), entry.getValue()));
+        }
+        Collections.sort(candidates, BY_COST);
+        return candidates.size() > maxCandidates ? candidates.subList(0, maxCandidates) : candidates;
+    }
+
+    /** Forgets everything read so far. */
+    public void reset() {
+        beam[0] = new Hypothesis(ROOT, null, 0, "", false, 0);
+        beamSize = 1;
+    }
+
+    // --- Search ---
+
+    /** Reads one input symbol: every hypothesis is extended by every reading of it. */
+    private void read(int kind, int bit) {
+        for (int i = 0; i < beamSize; i++) {
+            Hypothesis h = beam[i];
+            extend(h, kind, bit);
+            if (kind != NOISE) {
+                // An element may have been lost just before this symbol
+                Hypothesis dropped = child(h, 0, costs.droppedElement);
+                if (dropped != null) {
+                    extend(dropped, kind, bit);
+                }
+                dropped = child(h, 1, costs.droppedElement);
+                if (dropped != null) {
+                    extend(dropped, kind, bit);
+                }
+            }
+        }
+        select();
+    }
+
+    private void extend(Hypothesis h, int kind, int bit) {
+        switch (kind) {
+            case ELEMENT: {
+                offer(child(h, bit, 0));                                // As sent
+                offer(child(h, 1 - bit, costs.substitution));           // Dot and dash swapped
+                offer(h.plus(costs.extraElement));                      // Not sent at all
+                if (h.node != ROOT) {
+                    Hypothesis ended = finishSymbol(h);
+                    if (ended != null) {
+                        offer(child(ended, bit, costs.missingGap));     // A character ended before it
+                    }
+                }
+                break;
+            }
+            case CHARACTER_GAP: {
+                if (h.node == ROOT) {
+                    offer(h);                                           // Repeated gaps are one gap
+                    break;
+                }
+                offer(finishSymbol(h));
+                offer(h.plus(costs.extraGap));                          // A gap inside a character
+                break;
+            }
+            case WORD_GAP: {
+                Hypothesis ended = h.node == ROOT ? h : finishSymbol(h);
+                if (ended != null) {
+                    offer(endWord(ended));
+                    if (h.node != ROOT) {
+                        offer(ended.plus(costs.extraGap));              // Only a character gap
+                    }
+                }
+                if (h.node != ROOT) {
+                    offer(h.plus(costs.extraGap));                      // A gap inside a character
+                }
+                break;
+            }
+            default:
+                offer(h.plus(costs.extraElement));                      // Not Morse at all
+        }
+    }
+
+    /** Adds a hypothesis for the next symbol, merging it with one for the same (node, text). */
+    private void offer(Hypothesis h) {
+        if (h == null) {
+            return;
+        }
+        int mask = table.length - 1;
+        for (int slot = h.hashCode() & mask; ; slot = (slot + 1) & mask) {
+            Hypothesis other = table[slot];
+            if (other == null) {
+                table[slot] = h;
+                slots[nextSize] = slot;
+                next[nextSize++] = h;
+                return;
+            }
+            if (other.equals(h)) {
+                if (h.cost < other.cost) {
+                    table[slot] = h;
+                    for (int i = nextSize - 1; ; i--) {
+                        if (next[i] == other) {
+                            next[i] = h;
+                            return;
+                        }
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    /** Keeps the cheapest {@code beamWidth} of the next hypotheses as the new beam. */
+    private void select() {
+        for (int i = 0; i < nextSize; i++) {
+            table[slots[i]] = null;
+        }
+        if (nextSize > beamWidth) {
+            Arrays.sort(next, 0, nextSize, BY_HYPOTHESIS_COST);
+        }
+        Hypothesis[] old = beam;
+        beam = next;
+        beamSize = Math.min(nextSize, beamWidth);
+        next = old;
+        Arrays.fill(next, 0, nextSize, null);
+        nextSize = 0;
+    }
+
+    /** Adds the reading where the message ends after a hypothesis to {@code best}. */
+    private void addEnding(Map<String, Double> best, Hypothesis h) {
+        Hypothesis end = finishSymbol(h);
+        if (end == null) {
+            // A symbol that cannot be completed: read all of it as noise
+            end = h.plus(depth(h.node) * costs.extraElement);
+        }
+        end = endWord(end);
+        String text = Text.toString(end.text).trim();
+        Double cost = best.get(text);
+        if (cost == null || end.cost < cost) {
+            best.put(text, end.cost);
+        }
+    }
+
+    /** The hypothesis one element further down the tree, or null if no symbol lies that way. */
+    private Hypothesis child(Hypothesis h, int bit, double cost) {
+        int child = 2 * h.node + bit;
+        if (child >= alive.length || !alive[child]) {
+            return null;
+        }
+        return new Hypothesis(child, h.text, h.hash, h.word, h.penalized, h.cost + cost);
+    }
+
+    /** Emits the symbol at a hypothesis's node and returns to the root, or null if there is none. */
+    private Hypothesis finishSymbol(Hypothesis h) {
+        String symbol = symbols[h.node];
+        if (symbol == null) {
+            return null;
+        }
+        // The word is only spelled out while it can still become a dictionary word, so it
+        // never grows longer than the longest one and the work per symbol stays bounded
+        String word = words == null || h.penalized ? "" : (h.word == null ? "" : h.word) + symbol;
+        boolean penalize = words != null && !h.penalized && !prefixes.contains(word);
+        Text text = new Text(h.text, h.word == null ? spaced[h.node] : symbol);
+        return new Hypothesis(ROOT, text, hash(h.hash, text.piece), penalize ? "" : word, h.penalized || penalize,
+                h.cost + (penalize ? costs.unknownWord : 0));
+    }
+
+    /** Ends the current word: the dictionary is checked, and the next symbol starts a new word. */
+    private Hypothesis endWord(Hypothesis h) {
+        if (h.text == null || h.word == null) {
+            return h; // Nothing decoded yet, or the word has already ended
+        }
+        boolean penalize = words != null && !h.penalized && !words.contains(h.word);
+        return new Hypothesis(h.node, h.text, hash(h.hash, " "), null, false,
+                h.cost + (penalize ? costs.unknownWord : 0));
+    }
+
+    private static int depth(int node) {
+        return 31 - Integer.numberOfLeadingZeros(node);
+    }
+
+    private static long hash(long hash, String piece) {
+        for (int i = 0; i < piece.length(); i++) {
+            hash = hash * 1_000_003 + piece.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * One reading of the input so far. The text is shared with the hypotheses it came from;
+     * {@code hash} identifies it (with the pending word break) for merging.
+     */
+    private static final class Hypothesis {
+        final int node;          // Position in the code tree; ROOT between symbols
+        final Text text;         // Decoded text, or null if none yet
+        final long hash;         // Hash of the text, including a word break not yet written
+        final String word;       // The current word so far ("" once penalized); null right after a word gap
+        final boolean penalized; // Whether the current word was already charged as unknown
+        final double cost;
+
+        Hypothesis(int node, Text text, long hash, String word, boolean penalized, double cost) {
+            this.node = node;
+            this.text = text;
+            this.hash = hash;
+            this.word = word;
+            this.penalized = penalized;
+            this.cost = cost;
+        }
+
+        Hypothesis plus(double extra) {
+            return new Hypothesis(node, text, hash, word, penalized, cost + extra);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Hypothesis)) {
+                return false;
+            }
+            Hypothesis other = (Hypothesis) o;
+            return node == other.node && hash == other.hash && penalized == other.penalized
+                    && (word == null ? other.word == null : other.word != null);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash * 31 + node);
+        }
+    }
+
+    /** Decoded text as a chain of pieces, so hypotheses share everything but their last piece. */
+    private static final class Text {
+        final Text previous;
+        final String piece;
+        final int length;
+
+        Text(Text previous, String piece) {
+            this.previous = previous;
+            this.piece = piece;
+            this.length = (previous == null ? 0 : previous.length) + piece.length();
+        }
+
+        static String toString(Text text) {
+            if (text == null) {
+                return "";
+            }
+            char[] chars = new char[text.length];
+            for (Text t = text; t != null; t = t.previous) {
+                t.piece.getChars(0, t.piece.length(), chars, t.length - t.piece.length());
+            }
+            return new String(chars);
+        }
+    }
+
+    private static final Comparator<Hypothesis> BY_HYPOTHESIS_COST = (a, b) -> Double.compare(a.cost, b.cost);
+
+    // --- Results ---
+
+    private static final Comparator<Candidate> BY_COST = (a, b) -> {
+        int order = Double.compare(a.cost, b.cost);
+        return order != 0 ? order : a.text.compareTo(b.text);
+    };
+
+    /** One reading of the input, with its cost: the sum of the costs of the errors it assumes. */
+    public static final class Candidate {
+        private final String text;
+        private final double cost;
+
+        Candidate(String text, double cost) {
+            this.text = text;
+            this.cost = cost;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        /** The total cost of the errors this reading assumes; 0 if it assumes none. */
+        public double getCost() {
+            return cost;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s (%.2f)", text, cost);
+        }
+    }
+
+    /**
+     * What each kind of error costs; think of a cost as how unlikely the error is. Immutable.
+     * A reading's score is the sum of the costs of the errors it assumes.
+     */
+    public static final class Costs {
+
+        /** Costs for radio-derived input: a swapped element is the likeliest error, a split character the least. */
+        public static final Costs DEFAULT = new Costs(1.0, 1.2, 1.2, 1.0, 1.5, 2.0);
+
+        private final double substitution;
+        private final double extraElement;
+        private final double droppedElement;
+        private final double missingGap;
+        private final double extraGap;
+        private final double unknownWord;
+
+        /**
+         * @param substitution   A dot read as a dash or a dash as a dot.
+         * @param extraElement   An element in the input that was not sent.
+         * @param droppedElement An element that was sent but is missing from the input.
+         * @param missingGap     A gap between characters that is missing, so they ran together.
+         * @param extraGap       A gap that was not sent: inside a character, or a word gap
+         *                       where there was only a character gap.
+         * @param unknownWord    A word that is not in the dictionary (only with a dictionary).
+         */
+        public Costs(double substitution, double extraElement, double droppedElement,
+                     double missingGap, double extraGap, double unknownWord) {
+            if (!(substitution > 0 && extraElement > 0 && droppedElement > 0 && missingGap > 0 && extraGap > 0
+                    && unknownWord >= 0)) {
+                throw new IllegalArgumentException("Edit costs must be positive");
+            }
+            this.substitution = substitution;
+            this.extraElement = extraElement;
+            this.droppedElement = droppedElement;
+            this.missingGap = missingGap;
+            this.extraGap = extraGap;
+            this.unknownWord = unknownWord;
+        }
+
+        public double getSubstitution() {
+            return substitution;
+        }
+
+        public double getExtraElement() {
+            return extraElement;
+        }
+
+        public double getDroppedElement() {
+            return droppedElement;
+        }
+
+        public double getMissingGap() {
+            return missingGap;
+        }
+
+        public double getExtraGap() {
+            return extraGap;
+        }
+
+        public double getUnknownWord() {
+            return unknownWord;
+        }
+    }
+}
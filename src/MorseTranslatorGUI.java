@@ -26,16 +26,20 @@ public class MorseTranslatorGUI extends JFrame {
 
     // --- UI Components ---
     private JTextArea inputText;
-    private JTextArea outputText;
+    private MorseOutputView outputText; // Virtualized: handles multi-megabyte results
     private JButton encodeButton;
     private JButton decodeButton;
     private JButton playButton;
     private JButton clearButton;
+    private JCheckBox liveCheckBox;
 
     // --- Audio Player Instance ---
     private MorseAudioPlayer audioPlayer;
     private static final int MORSE_UNIT_DURATION_MS = 60; 
 
+    // --- Live Translation (keeps the output following the input, off the EDT) ---
+    private MorseLiveTranslator liveTranslator;
+
     public MorseTranslatorGUI() {
     
         audioPlayer = new MorseAudioPlayer(MORSE_UNIT_DURATION_MS);
@@ -97,6 +101,12 @@ public class MorseTranslatorGUI extends JFrame {
         decodeButton = new JButton("DECODE");
         playButton = new JButton("PLAY MORSE");
         clearButton = new JButton("CLEAR");
+        liveCheckBox = new JCheckBox("LIVE", true);
+        liveCheckBox.setToolTipText("Keep translating while you type");
+        liveCheckBox.setBackground(DARK_BACKGROUND);
+        liveCheckBox.setForeground(TEXT_COLOR);
+        liveCheckBox.setFont(new Font("Arial", Font.BOLD, 15));
+        liveCheckBox.setFocusPainted(false);
 
         setupButton(encodeButton, ENCODE_BUTTON_COLOR);
         setupButton(decodeButton, DECODE_BUTTON_COLOR);
@@ -107,6 +117,7 @@ public class MorseTranslatorGUI extends JFrame {
         buttonPanel.add(decodeButton);
         buttonPanel.add(playButton);
         buttonPanel.add(clearButton);
+        buttonPanel.add(liveCheckBox);
         
         gbc.gridx = 0;
         gbc.gridy = 2;
@@ -128,9 +139,8 @@ public class MorseTranslatorGUI extends JFrame {
         outputLabel.setForeground(TEXT_COLOR);
         outputPanel.add(outputLabel, BorderLayout.NORTH);
 
-        outputText = new JTextArea(10, 50);
-        setupTextArea(outputText, "Translated signals will appear here...");
-        outputText.setEditable(false);
+        outputText = new MorseOutputView();
+        setupOutputView(outputText, "Translated signals will appear here...");
         JScrollPane outputScrollPane = new JScrollPane(outputText);
         outputPanel.add(outputScrollPane, BorderLayout.CENTER);
 
@@ -142,40 +152,56 @@ public class MorseTranslatorGUI extends JFrame {
         add(outputPanel, gbc);
 
         // --- 6. Action Listeners ---
+        // Translations run on the shared MorseService; with LIVE on, edits are followed as they happen
+        liveTranslator = new MorseLiveTranslator(inputText.getDocument(), outputText.getDocument(), MorseService.getDefault());
+
         encodeButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                String text = inputText.getText();
-                // Avoid translating placeholder text if it's still present
-                if (text.equals("Enter your galactic transmission here...")) {
-                    text = "";
-                }
-                String morse = MorseCodeTranslator.lettersToMorseCode(text);
-                outputText.setText(morse);
+                startTranslation(MorseLiveTranslator.Direction.ENCODE);
             }
         });
 
         decodeButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                String morse = inputText.getText();
-                // Avoid translating placeholder text if it's still present
-                if (morse.equals("Enter your galactic transmission here...")) {
-                    morse = "";
+                startTranslation(MorseLiveTranslator.Direction.DECODE);
+            }
+        });
+
+        liveCheckBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                liveTranslator.setLive(liveCheckBox.isSelected());
+            }
+        });
+
+        // The placeholder is not a message: stop following the input when it comes back,
+        // and pick up again in live mode once the user starts typing
+        inputText.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusGained(FocusEvent e) {
+                if (liveCheckBox.isSelected() && !liveTranslator.isStarted() && inputText.getText().isEmpty()) {
+                    liveTranslator.start(liveTranslator.getDirection());
+                }
+            }
+
+            @Override
+            public void focusLost(FocusEvent e) {
+                if (inputText.getText().equals("Enter your galactic transmission here...")) {
+                    liveTranslator.stop();
                 }
-                String text = MorseCodeTranslator.morseCodeToLetters(morse);
-                outputText.setText(text);
             }
         });
 
-        // IMPORTANT: Playback on a separate thread to prevent GUI freeze!
+        // IMPORTANT: Playback runs off the EDT to prevent GUI freeze!
         playButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 final String morseToPlay = outputText.getText(); // Get Morse from output area
 
-                // Check for placeholder text or empty output before playing
-                if (morseToPlay.isEmpty() || morseToPlay.equals("Translated signals will appear here...")) {
+                // Check for empty output (the placeholder is not part of the text) before playing
+                if (morseToPlay.isEmpty()) {
                     JOptionPane.showMessageDialog(MorseTranslatorGUI.this,
                                                   "Please translate some text to Morse code first!",
                                                   "No Morse Code to Play",
@@ -183,50 +209,58 @@ public class MorseTranslatorGUI extends JFrame {
                     return; // Stop if no valid Morse is present
                 }
 
-                // Create and start a new thread for audio playback
-                new Thread(() -> {
-                    // Disable buttons on the Event Dispatch Thread (EDT) while playing
-                    SwingUtilities.invokeLater(() -> {
-                        encodeButton.setEnabled(false);
-                        decodeButton.setEnabled(false);
-                        playButton.setEnabled(false);
-                        clearButton.setEnabled(false);
-                    });
-
-                    try {
-                        audioPlayer.playMorseCode(morseToPlay); // Call the audio player method
-                    } catch (Exception ex) {
-                        // Show an error message on the EDT if something goes wrong during playback
+                // Disable the buttons while playing; playback runs on the shared MorseService
+                setButtonsEnabled(false);
+                MorseService.getDefault().play(audioPlayer, morseToPlay).whenComplete((ignored, error) ->
                         SwingUtilities.invokeLater(() -> {
-                            JOptionPane.showMessageDialog(MorseTranslatorGUI.this,
-                                                          "Error during audio playback: " + ex.getMessage(),
-                                                          "Audio Error",
-                                                          JOptionPane.ERROR_MESSAGE);
-                        });
-                    } finally {
-                        // Re-enable buttons on the EDT after playback is complete or an error occurs
-                        SwingUtilities.invokeLater(() -> {
-                            encodeButton.setEnabled(true);
-                            decodeButton.setEnabled(true);
-                            playButton.setEnabled(true);
-                            clearButton.setEnabled(true);
-                        });
-                    }
-                }).start(); // This starts the new thread
+                            if (error != null) {
+                                // Show an error message if something went wrong during playback
+                                JOptionPane.showMessageDialog(MorseTranslatorGUI.this,
+                                                              "Error during audio playback: " + error.getMessage(),
+                                                              "Audio Error",
+                                                              JOptionPane.ERROR_MESSAGE);
+                            }
+                            // Re-enable buttons after playback is complete or an error occurs
+                            setButtonsEnabled(true);
+                        }));
             }
         });
 
         clearButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                liveTranslator.stop(); // Do not translate the placeholder
                 inputText.setText("Enter your galactic transmission here..."); // Reset input placeholder
                 inputText.setForeground(TEXT_COLOR.darker().darker()); // Dim placeholder
-                outputText.setText("Translated signals will appear here..."); // Reset output placeholder
-                outputText.setForeground(TEXT_COLOR.darker().darker()); // Dim placeholder
+                outputText.setText(""); // Shows the output placeholder
             }
         });
     }
 
+    /**
+     * Translates the input in the given direction, off the EDT, and keeps following it while
+     * LIVE is on. Call on the EDT.
+     */
+    private void startTranslation(MorseLiveTranslator.Direction direction) {
+        // Avoid translating placeholder text if it's still present
+        if (inputText.getText().equals("Enter your galactic transmission here...")) {
+            liveTranslator.stop();
+            outputText.setText("");
+            return;
+        }
+        liveTranslator.start(direction);
+    }
+
+    /**
+     * Enables or disables all action buttons (e.g. while audio is playing). Call on the EDT.
+     */
+    private void setButtonsEnabled(boolean enabled) {
+        encodeButton.setEnabled(enabled);
+        decodeButton.setEnabled(enabled);
+        playButton.setEnabled(enabled);
+        clearButton.setEnabled(enabled);
+    }
+
     /**
      * Helper method to apply common styling and placeholder behavior to JTextAreas.
      */
@@ -261,6 +295,23 @@ public class MorseTranslatorGUI extends JFrame {
         });
     }
 
+    /**
+     * Helper method to style the output view like the text areas. Its placeholder is drawn
+     * (dimmed) while it is empty, so it never needs replacing.
+     */
+    private void setupOutputView(MorseOutputView view, String placeholder) {
+        Font font = new Font("Consolas", Font.PLAIN, 15); // Same as the text areas
+        if (!"Consolas".equals(font.getFamily())) {
+            font = new Font(Font.MONOSPACED, Font.PLAIN, 15); // The grid needs a monospaced font
+        }
+        view.setFont(font);
+        view.setBackground(TEXT_AREA_BACKGROUND);
+        view.setForeground(TEXT_COLOR);
+        view.setSelectionColor(BORDER_COLOR);
+        view.setBorder(new EmptyBorder(8, 8, 8, 8)); // Inner padding
+        view.setPlaceholder(placeholder);
+    }
+
     /**
      * Helper method to apply common styling and hover effect to JButtons.
      */
@@ -0,0 +1,150 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Precomputed PCM waveforms for Morse playback.
+ * The dit and dah tones only depend on the timing (unit duration and weighting, see
+ * {@link MorseTimeline.Timing}) and the {@link MorseSynthesizer} settings (frequency,
+ * amplitude, sample rate, rise time), so they are synthesized once per combination and then
+ * reused for every symbol of every message. Playing or rendering a symbol becomes a plain
+ * buffer copy.
+ *
+ * Waveforms are 16-bit signed little-endian mono samples, like {@link MorseAudioPlayer} plays.
+ * Instances are shared through a small LRU cache (see {@link #get(MorseTimeline.Timing, MorseSynthesizer)}).
+ */
+public final class MorseWaveforms {
+
+    // Number of (timing, synthesizer settings) combinations kept in memory at once.
+    private static final int MAX_CACHED = 16;
+    static final int BYTES_PER_SAMPLE = 2;
+
+    // Access-ordered map, so the least recently used waveforms are evicted first.
+    private static final Map<Key, MorseWaveforms> CACHE = new LinkedHashMap<Key, MorseWaveforms>(MAX_CACHED, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, MorseWaveforms> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private final MorseTimeline.Timing timing;
+    private final MorseSynthesizer synthesizer;
+    private final byte[] dit;      // 1 unit of tone (plus the weight)
+    private final byte[] dah;      // 3 units of tone (plus the weight)
+
+    private MorseWaveforms(MorseTimeline.Timing timing, MorseSynthesizer synthesizer) {
+        this.timing = timing;
+        this.synthesizer = synthesizer;
+        // The same lengths the timeline gives dit and dah steps
+        this.dit = synthesizer.tone(MorseTimeline.samplesFor(timing.ditMs(), synthesizer.getSampleRate()));
+        this.dah = synthesizer.tone(MorseTimeline.samplesFor(timing.dahMs(), synthesizer.getSampleRate()));
+    }
+
+    /**
+     * Returns the waveforms for the given settings, with the default amplitude and rise time.
+     *
+     * @param unitDurationMs The duration of one Morse unit in milliseconds.
+     * @param frequencyHz    The tone frequency in Hz.
+     * @param sampleRate     The sample rate in samples per second.
+     * @return The shared waveforms for these settings.
+     */
+    public static MorseWaveforms get(int unitDurationMs, int frequencyHz, float sampleRate) {
+        return get(unitDurationMs, new MorseSynthesizer(frequencyHz, MorseSynthesizer.DEFAULT_AMPLITUDE,
+                sampleRate, MorseSynthesizer.DEFAULT_RISE_TIME_MS));
+    }
+
+    /**
+     * Returns the waveforms for standard timing, synthesizing them on first use.
+     *
+     * @param unitDurationMs The duration of one Morse unit in milliseconds.
+     * @param synthesizer    The tone settings.
+     * @return The shared waveforms for these settings.
+     */
+    public static MorseWaveforms get(int unitDurationMs, MorseSynthesizer synthesizer) {
+        return get(new MorseTimeline.Timing(unitDurationMs), synthesizer);
+    }
+
+    /**
+     * Returns the waveforms for the given timing, synthesizing them on first use.
+     *
+     * @param timing      The element and gap durations.
+     * @param synthesizer The tone settings.
+     * @return The shared waveforms for these settings.
+     */
+    public static MorseWaveforms get(MorseTimeline.Timing timing, MorseSynthesizer synthesizer) {
+        Key key = new Key(timing, synthesizer);
+        synchronized (CACHE) {
+            MorseWaveforms waveforms = CACHE.get(key);
+            if (waveforms == null) {
+                waveforms = new MorseWaveforms(timing, synthesizer);
+                CACHE.put(key, waveforms);
+            }
+            return waveforms;
+        }
+    }
+
+    /** The tone for a dot (1 unit, plus the weight). Shared array: callers must not modify it. */
+    byte[] dit() {
+        return dit;
+    }
+
+    /** The tone for a dash (3 units, plus the weight). Shared array: callers must not modify it. */
+    byte[] dah() {
+        return dah;
+    }
+
+    /** The unit duration, rounded to whole milliseconds. */
+    public int getUnitDurationMs() {
+        return (int) Math.round(timing.getUnitMs());
+    }
+
+    public MorseTimeline.Timing getTiming() {
+        return timing;
+    }
+
+    public MorseSynthesizer getSynthesizer() {
+        return synthesizer;
+    }
+
+    public int getFrequencyHz() {
+        return synthesizer.getFrequencyHz();
+    }
+
+    public float getSampleRate() {
+        return synthesizer.getSampleRate();
+    }
+
+    /**
+     * Number of bytes of audio covering the given duration.
+     * Uses the same rounding as the tone synthesis, so a tone and a silence of the same
+     * duration always have the same length.
+     */
+    int bytesFor(int durationMs) {
+        return MorseTimeline.samplesFor(durationMs, synthesizer.getSampleRate()) * BYTES_PER_SAMPLE;
+    }
+
+    /** Cache key: the settings a set of waveforms was synthesized for. */
+    private static final class Key {
+        private final MorseTimeline.Timing timing;
+        private final MorseSynthesizer synthesizer;
+
+        Key(MorseTimeline.Timing timing, MorseSynthesizer synthesizer) {
+            this.timing = timing;
+            this.synthesizer = synthesizer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return timing.equals(other.timing) && synthesizer.equals(other.synthesizer);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(timing, synthesizer);
+        }
+    }
+}
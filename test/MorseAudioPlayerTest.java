@@ -0,0 +1,605 @@
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the audio side of the translator.
+ * None of these tests need a sound device: they only check the PCM data
+ * that would be sent to one.
+ */
+public class MorseAudioPlayerTest {
+
+    // --- Tests for the precomputed waveforms ---
+
+    @Test
+    void testWaveforms_AreCachedPerSettings() {
+        // The same settings must return the same (already synthesized) waveforms
+        MorseWaveforms first = MorseWaveforms.get(60, 700, 44100);
+        assertSame(first, MorseWaveforms.get(60, 700, 44100), "Waveforms were not reused");
+        assertNotSame(first, MorseWaveforms.get(40, 700, 44100), "Different speeds shared waveforms");
+    }
+
+    @Test
+    void testWaveforms_ToneLengthsAndSamples() {
+        // 60 ms at 44.1 kHz is 2646 samples of 2 bytes; a dah lasts three times as long
+        MorseWaveforms waveforms = MorseWaveforms.get(60, 700, 44100);
+        assertEquals(2646 * 2, waveforms.dit().length, "Dit length is wrong");
+        assertEquals(3 * 2646 * 2, waveforms.dah().length, "Dah length is wrong");
+
+        // Past the 5 ms rise, sample 1000 must be the 70% sine value, stored little-endian
+        short expected = (short) (Short.MAX_VALUE * Math.sin(2.0 * Math.PI * 700 * 1000 / 44100f) * 0.7);
+        assertEquals(expected, sampleAt(waveforms.dit(), 1000), 2, "Tone sample is wrong");
+        // The tone fades in and out instead of starting and stopping at full level
+        assertEquals(0, sampleAt(waveforms.dit(), 0), 50, "Tone does not start near zero");
+        assertEquals(0, sampleAt(waveforms.dit(), 2645), 50, "Tone does not end near zero");
+    }
+
+    @Test
+    void testSynthesizer_RaisedCosineReducesKeyClicks() {
+        // The splatter of a hard-keyed dit 825 Hz away from the tone (a sidelobe peak) must drop by at least 20 dB
+        byte[] hard = new MorseSynthesizer(700, 0.7, 44100, 0).tone(2646);
+        byte[] shaped = new MorseSynthesizer(700, 0.7, 44100, 5).tone(2646);
+        double hardSplatter = goertzelPower(hard, 1525) / goertzelPower(hard, 700);
+        double shapedSplatter = goertzelPower(shaped, 1525) / goertzelPower(shaped, 700);
+        assertTrue(shapedSplatter < hardSplatter / 100,
+                "Key clicks not reduced: " + shapedSplatter + " vs " + hardSplatter);
+
+        // Settings are values: equal settings share the same cached waveforms
+        MorseSynthesizer settings = new MorseSynthesizer(600, 0.5, 22050, 4);
+        assertEquals(new MorseSynthesizer(600, 0.5, 22050, 4), settings, "Equal settings are not equal");
+        assertSame(MorseWaveforms.get(30, settings), MorseWaveforms.get(30, new MorseSynthesizer(600, 0.5, 22050, 4)),
+                "Waveforms were not reused");
+        assertEquals(22050f, MorseWaveforms.get(30, settings).getSampleRate(), "Sample rate not applied");
+    }
+
+    // --- Tests for the continuous PCM stream ---
+
+    @Test
+    void testPcmStream_LengthFollowsMorseTiming() {
+        // "S O" = 3 dits + 3 dahs, 1 unit after each element, plus 2 more units between characters
+        // = 3 * 2 + 3 * 4 + 2 = 20 units of 2646 samples each
+        MorseWaveforms waveforms = MorseWaveforms.get(60, 700, 44100);
+        MorsePcmStream pcm = new MorsePcmStream("... ---", waveforms);
+        assertEquals(20L * 2646 * 2, pcm.length(), "PCM stream length is wrong");
+    }
+
+    @Test
+    void testPcmStream_ContainsTonesAndZeroSilence() {
+        // "." / "-" = dit, 1 unit, then 6 more units for the word gap, dah, 1 unit
+        MorseWaveforms waveforms = MorseWaveforms.get(60, 700, 44100);
+        byte[] pcm = readAll(new MorsePcmStream(". / -", waveforms), 1000);
+        int unit = waveforms.dit().length;
+
+        assertArrayEquals(waveforms.dit(), Arrays.copyOfRange(pcm, 0, unit), "Dit tone is wrong");
+        assertTrue(isSilent(pcm, unit, 8 * unit), "Gap after the dit is not silent");
+        assertArrayEquals(waveforms.dah(), Arrays.copyOfRange(pcm, 8 * unit, 11 * unit), "Dah tone is wrong");
+        assertTrue(isSilent(pcm, 11 * unit, 12 * unit), "Gap after the dah is not silent");
+        assertEquals(12 * unit, pcm.length, "PCM stream has the wrong length");
+    }
+
+    @Test
+    void testPcmStream_EmptyForBlankMorse() {
+        MorseWaveforms waveforms = MorseWaveforms.get(60, 700, 44100);
+        assertEquals(0, new MorsePcmStream("  /  ", waveforms).length(), "Blank Morse produced audio");
+    }
+
+    // --- Tests for the keying timeline ---
+
+    @Test
+    void testTimeline_FromTextMatchesMorseCode() {
+        MorseTimeline.Timing timing = new MorseTimeline.Timing(60);
+        MorseTimeline fromText = MorseTimeline.fromText("SOS, hi there", MorseAlphabet.ITU, timing, 44100);
+        MorseTimeline fromMorse = MorseTimeline.fromMorseCode(
+                MorseCodeTranslator.lettersToMorseCode("SOS, hi there"), timing, 44100);
+        assertArrayEquals(fromMorse.toArray(), fromText.toArray(), "Text and Morse gave different timelines");
+        assertEquals(fromMorse.characterCount(), fromText.characterCount(), "Characters counted differently");
+        // "S": dit, gap, dit, gap, dit, then the character gap (3 units at 60 ms)
+        assertEquals(2646, fromText.duration(0), "Dit is not one unit");
+        assertEquals(2646, fromText.duration(1), "Element gap is not one unit");
+        assertEquals(3 * 2646, fromText.duration(5), "Character gap is not three units");
+        assertTrue(fromText.isKeyDown(6) && !fromText.isKeyDown(7), "Steps do not alternate");
+    }
+
+    @Test
+    void testTimeline_FarnsworthAndWeightingKeepTheOverallSpeed() {
+        // "PARIS " is the standard word: from one P to the next takes 1/wpm minutes
+        double standard = wordMs(MorseTimeline.Timing.ofWpm(20, 20, 0));
+        double farnsworth = wordMs(MorseTimeline.Timing.ofWpm(20, 10, 0));
+        double weighted = wordMs(MorseTimeline.Timing.ofWpm(20, 10, 0.3));
+        assertEquals(3000, standard, 1, "20 WPM word is not 3 seconds");
+        assertEquals(6000, farnsworth, 1, "Farnsworth 10 WPM word is not 6 seconds");
+        assertEquals(farnsworth, weighted, 1, "Weighting changed the speed");
+        assertEquals(new MorseTimeline.Timing(60), MorseTimeline.Timing.ofWpm(20, 20, 0), "20 WPM is not a 60 ms unit");
+
+        MorseTimeline.Timing slow = MorseTimeline.Timing.ofWpm(20, 10, 0);
+        MorseTimeline paris = MorseTimeline.fromText("PARIS", MorseAlphabet.ITU, slow, 44100);
+        assertEquals(2646, paris.duration(0), "Farnsworth changed the character speed");
+        assertTrue(paris.duration(7) > 3 * 2646, "Farnsworth did not stretch the character gap");
+        MorseTimeline heavy = MorseTimeline.fromText("PARIS", MorseAlphabet.ITU, MorseTimeline.Timing.ofWpm(20, 10, 0.3), 44100);
+        assertEquals(3439, heavy.duration(0), "Weight was not added to the dit");
+        assertEquals(1852, heavy.duration(1), "Weight was not taken from the gap");
+        assertThrows(IllegalArgumentException.class, () -> MorseTimeline.Timing.ofWpm(10, 20, 0),
+                "Effective speed above the character speed was accepted");
+    }
+
+    @Test
+    void testTimeline_DrivesWeightedAudioAndAKey() throws IOException, InterruptedException {
+        MorseTimeline.Timing timing = new MorseTimeline.Timing(5, 5, 0.2);
+        MorseSynthesizer synthesizer = new MorseSynthesizer(700, 0.7, 44100, 1);
+        MorseTimeline timeline = MorseTimeline.fromMorseCode(".- / -", timing, 44100);
+        byte[] pcm = readAll(new MorsePcmStream(timeline, MorseWaveforms.get(timing, synthesizer)));
+        assertEquals(2 * timeline.length(), pcm.length, "Stream does not follow the timeline");
+        assertTrue(isSilent(pcm, (int) (2 * timeline.stepStart(1)), (int) (2 * timeline.stepStart(2))),
+                "Element gap is not silent");
+        assertThrows(IllegalArgumentException.class,
+                () -> new MorsePcmStream(timeline, MorseWaveforms.get(5, synthesizer)), "Mismatched tones were accepted");
+
+        List<Boolean> edges = new CopyOnWriteArrayList<>();
+        long start = System.nanoTime();
+        timeline.key(edges::add);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(Arrays.asList(true, false, true, false, true, false, false), edges,
+                "Key was not keyed once per element and released");
+        assertTrue(elapsedMs >= timeline.length() * 1000 / 44100, "Keying ran ahead of the timeline");
+    }
+
+    // --- Tests for offline rendering ---
+
+    @Test
+    void testRenderMorseCode_MatchesPlaybackStream() {
+        // The rendered buffer must hold exactly what playback would send to the line
+        MorseAudioPlayer player = new MorseAudioPlayer(60);
+        ByteBuffer rendered = player.renderMorseCode("... --- ...");
+        byte[] expected = readAll(new MorsePcmStream("... --- ...", MorseWaveforms.get(60, 700, 44100)), 4096);
+
+        byte[] actual = new byte[rendered.remaining()];
+        rendered.get(actual);
+        assertArrayEquals(expected, actual, "Rendered PCM differs from the playback stream");
+    }
+
+    @Test
+    void testRenderToWav_ProducesReadableWaveFile() throws IOException, UnsupportedAudioFileException {
+        // The WAV must parse back to the player's format and contain the same samples
+        MorseAudioPlayer player = new MorseAudioPlayer(60);
+        ByteArrayOutputStream wav = new ByteArrayOutputStream();
+        player.renderToWav(".- / -...", wav);
+
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(new ByteArrayInputStream(wav.toByteArray()))) {
+            AudioFormat format = in.getFormat();
+            assertEquals(44100f, format.getSampleRate(), "Sample rate is wrong");
+            assertEquals(16, format.getSampleSizeInBits(), "Sample size is wrong");
+            assertEquals(1, format.getChannels(), "Channel count is wrong");
+            assertFalse(format.isBigEndian(), "Byte order is wrong");
+
+            ByteArrayOutputStream samples = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                samples.write(buffer, 0, read);
+            }
+            ByteBuffer expected = player.renderMorseCode(".- / -...");
+            assertArrayEquals(expected.array(), samples.toByteArray(), "WAV samples differ from the rendered PCM");
+        }
+    }
+
+    @Test
+    void testRenderMorseCode_CachedRendersAreSharedAndReadOnly() {
+        MorseAudioPlayer player = new MorseAudioPlayer(40);
+        ByteBuffer uncached = player.renderMorseCode("-.-. --.-");
+        MorseCache<String, ByteBuffer> cache = player.enableRenderCache(8 << 20, 0, TimeUnit.SECONDS);
+
+        ByteBuffer first = player.renderMorseCode("-.-. --.-");
+        ByteBuffer second = player.renderMorseCode("-.-. --.-");
+        assertEquals(uncached, first, "Cached render differs from a fresh one");
+        assertEquals(first, second, "Second render differs");
+        assertTrue(second.isReadOnly(), "Cached samples can be modified");
+        assertEquals(1, cache.getMissCount(), "First render not counted as a miss");
+        assertEquals(1, cache.getHitCount(), "Second render not served from the cache");
+    }
+
+    // --- Tests for mixing many voices ---
+
+    @Test
+    void testMixer_SingleVoiceMatchesPlayer() throws IOException {
+        // 20 WPM is a 60 ms unit; at gain 0.7 the voice must sound like the player, 100 ms late
+        String morse = "-.-. --.-";
+        MorseMixer mixer = new MorseMixer().addVoice(morse, 700, 20, 100, 0.7);
+        byte[] mixed = readAll(mixer.openStream());
+        byte[] played = new MorseAudioPlayer(60).renderMorseCode(morse).array();
+
+        assertEquals(4410 * 2 + played.length, mixed.length, "Mix has the wrong length");
+        assertTrue(isSilent(mixed, 0, 4410 * 2), "Voice started before its offset");
+        for (int i = 0; i < played.length / 2; i++) {
+            assertEquals(sampleAt(played, i), sampleAt(mixed, 4410 + i), 1, "Sample " + i + " differs");
+        }
+
+        // Speeds are not rounded to whole milliseconds per unit: "-.-. --.-" and its final
+        // element gap are 28 units of 1200/35 ms
+        long expected = Math.round(28 * 1200.0 / 35 * 44.1);
+        long length = new MorseMixer().addVoice(morse, 700, 35, 0, 1).getLengthInSamples();
+        assertEquals(expected, length, 28, "35 WPM plays at the wrong speed"); // Steps are whole samples
+    }
+
+    @Test
+    void testMixer_LimitsPileUpWithoutWrapping() throws IOException {
+        // 64 identical voices in phase sum to ~45x full scale: the limiter must keep every
+        // sample in range with the sign of the tone (a wrapped sample flips sign)
+        String morse = MorseCodeTranslator.lettersToMorseCode("CQ TEST");
+        MorseMixer mixer = new MorseMixer();
+        for (int i = 0; i < 64; i++) {
+            mixer.addVoice(morse, 700, 25, 0, 0.7);
+        }
+        byte[] single = readAll(new MorseMixer().addVoice(morse, 700, 25, 0, 0.7).openStream());
+        byte[] mixed = readAll(mixer.openStream());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            byte[] parallel = readAll(mixer.openStream(pool));
+            assertEquals(mixed.length, parallel.length, "Parallel mix has the wrong length");
+            for (int i = 0; i < mixed.length / 2; i++) {
+                assertEquals(sampleAt(mixed, i), sampleAt(parallel, i), 1, "Parallel mix differs at sample " + i);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        int loud = 0;
+        for (int i = 0; i < single.length / 2; i++) {
+            int tone = sampleAt(single, i);
+            if (Math.abs(tone) > 1000) {
+                assertEquals(Integer.signum(tone), Integer.signum(sampleAt(mixed, i)), "Sample " + i + " wrapped around");
+            }
+            loud = Math.max(loud, Math.abs(sampleAt(mixed, i)));
+        }
+        assertTrue(loud > 30000, "Mix is far quieter than full scale: " + loud);
+
+        // The limiter acts from the onset on: 40 voices at full scale never reach the clamp
+        MorseMixer loudest = new MorseMixer();
+        for (int i = 0; i < 40; i++) {
+            loudest.addVoice(morse, 700, 25, 0, 1.0);
+        }
+        byte[] limited = readAll(loudest.openStream());
+        for (int i = 0; i < limited.length / 2; i++) {
+            assertTrue(Math.abs(sampleAt(limited, i)) < Short.MAX_VALUE, "Sample " + i + " was clamped");
+        }
+    }
+
+    // --- Tests for controlled playback ---
+
+    @Test
+    void testPlayback_ReportsSymbolsWhenHeard() throws InterruptedException {
+        // "S O / A": 4 characters (the word gap counts as one), 32 units of 10 ms
+        MorseWaveforms waveforms = MorseWaveforms.get(10, 700, 44100);
+        MorsePcmStream pcm = new MorsePcmStream("... --- / .-", waveforms);
+        assertEquals(4, pcm.characterCount(), "Characters counted wrongly");
+        assertEquals(26L * waveforms.bytesFor(10), pcm.characterStart(3), "Last character starts at the wrong place");
+
+        SimulatedLine line = new SimulatedLine();
+        List<MorsePlayback.SymbolEvent> tones = new CopyOnWriteArrayList<>();
+        AtomicBoolean early = new AtomicBoolean();
+        MorsePlayback[] session = new MorsePlayback[1];
+        session[0] = new MorsePlayback(pcm, line.proxy, waveforms.bytesFor(20), waveforms.bytesFor(1000), event -> {
+            // An event must not arrive before the line has played up to it
+            if (event.getPositionMicros() > session[0].getPositionMicros()) {
+                early.set(true);
+            }
+            if (event.isTone()) {
+                tones.add(event);
+            }
+        });
+        Thread thread = new Thread(session[0]::run);
+        thread.start();
+
+        assertTrue(session[0].await(5, TimeUnit.SECONDS), "Playback did not finish");
+        assertEquals(MorsePlayback.State.FINISHED, session[0].getState(), "Wrong final state");
+        assertFalse(early.get(), "Event delivered before the audio reached it");
+        StringBuilder symbols = new StringBuilder();
+        for (MorsePlayback.SymbolEvent event : tones) {
+            symbols.append(event.getSymbol()).append(event.getCharIndex());
+        }
+        assertEquals(".0.0.0-1-1-1.3-3", symbols.toString(), "Wrong symbols or characters reported");
+        assertEquals(20_000, tones.get(1).getPositionMicros(), "Second dit at the wrong time");
+        assertFalse(line.open, "Line not closed");
+        assertTrue(line.drained, "Line not drained before it was closed, so the device's tail is cut off");
+    }
+
+    @Test
+    void testPlayback_PausesSeeksAndStops() throws InterruptedException {
+        MorseWaveforms waveforms = MorseWaveforms.get(10, 700, 44100);
+        MorsePcmStream pcm = new MorsePcmStream(MorseCodeTranslator.lettersToMorseCode("PARIS PARIS PARIS"), waveforms);
+        SimulatedLine line = new SimulatedLine();
+        BlockingQueue<MorsePlayback.SymbolEvent> tones = new LinkedBlockingQueue<>();
+        MorsePlayback playback = new MorsePlayback(pcm, line.proxy, waveforms.bytesFor(20), waveforms.bytesFor(1000),
+                event -> {
+                    if (event.isTone()) {
+                        tones.add(event);
+                    }
+                });
+        new Thread(playback::run).start();
+        assertNotNull(tones.poll(2, TimeUnit.SECONDS), "Playback did not start");
+
+        playback.pause();
+        Thread.sleep(50);
+        long pausedAt = playback.getPositionMicros();
+        Thread.sleep(100);
+        assertEquals(MorsePlayback.State.PAUSED, playback.getState(), "Not paused");
+        assertEquals(pausedAt, playback.getPositionMicros(), "Audio kept playing while paused");
+
+        // Jump to the second "PARIS" (character 6) and carry on from there
+        tones.clear();
+        playback.seek(6);
+        playback.resume();
+        MorsePlayback.SymbolEvent next = tones.poll(2, TimeUnit.SECONDS);
+        assertNotNull(next, "Playback did not resume");
+        assertEquals(6, next.getCharIndex(), "Seek went to the wrong character");
+        assertEquals(pcm.characterStart(6) * 1_000_000 / waveforms.bytesFor(1000), next.getPositionMicros(),
+                "First symbol after the seek at the wrong position");
+
+        playback.stop();
+        assertTrue(playback.await(1, TimeUnit.SECONDS), "Stop took longer than a buffer");
+        assertEquals(MorsePlayback.State.STOPPED, playback.getState(), "Wrong final state");
+        assertFalse(line.drained, "A stopped line was drained instead of flushed");
+        assertFalse(line.open, "Line not closed");
+    }
+
+    // --- Tests for decoding audio back into text ---
+
+    @Test
+    void testAudioDecoder_RoundTripsRenderedMessage() {
+        // Rendering a message and decoding the audio must give back the original text
+        String text = "THE QUICK BROWN FOX 0123";
+        String morse = MorseCodeTranslator.lettersToMorseCode(text);
+        ByteBuffer pcm = new MorseAudioPlayer(60).renderMorseCode(morse);
+        assertEquals(text, MorseAudioDecoder.decode(pcm.array()), "Audio did not decode to the original text");
+    }
+
+    @Test
+    void testAudioDecoder_AdaptsToSpeedAndChunking() {
+        // A much faster sender than the initial guess, fed in odd-sized pieces
+        String morse = MorseCodeTranslator.lettersToMorseCode("SOS PARIS");
+        byte[] pcm = new MorseAudioPlayer(25).renderMorseCode(morse).array();
+
+        MorseAudioDecoder decoder = new MorseAudioDecoder();
+        for (int offset = 0; offset < pcm.length; offset += 999) {
+            decoder.accept(pcm, offset, Math.min(999, pcm.length - offset));
+        }
+        decoder.finish();
+        assertEquals(morse, decoder.getMorse(), "Decoded Morse code is wrong");
+        assertEquals("SOS PARIS", decoder.getText(), "Decoded text is wrong");
+        assertEquals(25, decoder.getUnitMs(), 5, "Speed estimate did not converge");
+    }
+
+    // --- Tests for decoding manual keying ---
+
+    @Test
+    void testKeyerDecoder_FollowsJitteredHumanKeying() {
+        // A human sender: heavy dashes, 10% jitter on every mark and gap, speeding up from 15 to 30 WPM
+        String text = "CQ CQ DE W1AW THE QUICK BROWN FOX JUMPS OVER THE LAZY DOG 73";
+        String morse = MorseCodeTranslator.lettersToMorseCode(text);
+        Random random = new Random(42);
+        MorseKeyerDecoder decoder = new MorseKeyerDecoder();
+        long time = 1_000_000;
+        for (int i = 0; i < morse.length(); i++) {
+            char symbol = morse.charAt(i);
+            double unitMicros = 1200 / (15 + 15.0 * i / morse.length()) * 1000;
+            if (symbol == '.' || symbol == '-') {
+                decoder.key(time, true);
+                time += jittered(unitMicros * (symbol == '.' ? 1 : 3.5), random);
+                decoder.key(time, false);
+                time += jittered(unitMicros, random);
+            } else if (symbol == '/') {
+                time += jittered(6 * unitMicros, random); // " / " is one word gap
+                i++;
+            } else {
+                time += jittered(2 * unitMicros, random);
+            }
+        }
+        decoder.finish();
+        assertEquals(text, decoder.getText(), "Jittered keying decoded wrongly");
+        assertEquals(30, decoder.getWpm(), 4, "Speed estimate did not follow the sender");
+    }
+
+    @Test
+    void testKeyerDecoder_EmitsCharactersWithoutWaitingForTheNextKey() {
+        List<String> decoded = new CopyOnWriteArrayList<>();
+        List<Long> times = new CopyOnWriteArrayList<>();
+        MorseKeyerDecoder decoder = new MorseKeyerDecoder(60, MorseAlphabet.ITU, (piece, micros) -> {
+            decoded.add(piece);
+            times.add(micros);
+        });
+        // "SOS" at 60 ms per unit, keyed from a timeline counted in microseconds
+        MorseTimeline timeline = MorseTimeline.fromMorseCode("... --- ...", new MorseTimeline.Timing(60), 1_000_000);
+        for (int step = 0; step < timeline.stepCount(); step++) {
+            decoder.key(timeline.stepStart(step), timeline.isKeyDown(step));
+        }
+        long lastKeyUp = timeline.stepStart(timeline.stepCount() - 1);
+        decoder.poll(lastKeyUp + 100_000);
+        assertEquals(Arrays.asList("S", "O"), decoded, "Final character emitted before its gap was long enough");
+        decoder.poll(lastKeyUp + 150_000);
+        assertEquals(Arrays.asList("S", "O", "S"), decoded, "Final character not emitted once its gap was long enough");
+        assertEquals(lastKeyUp + 150_000, (long) times.get(2), "Wrong timestamp for the final character");
+        decoder.finish();
+        assertEquals("SOS", decoder.getText(), "Finishing emitted the character again");
+        assertThrows(IllegalStateException.class, () -> decoder.key(lastKeyUp + 200_000, true), "Key accepted after finish");
+    }
+
+    @Test
+    void testKeyerDecoder_ReadsRecordedEvents() throws IOException {
+        String recording = "# PARIS keyed by hand\n"
+                + "0 down\n 70000 up\n130000 DOWN\n300000 up\n360000 1\n540000 0\n590000 1\n640000 0\n"
+                + "840000 down\n900000 up\n960000 down\n1140000 up\n\n"
+                + "1340000 down\n1400000 up\n1460000 down\n1640000 up\n1690000 down\n1750000 up\n"
+                + "1940000 down\n2000000 up\n2060000 down\n2120000 up\n"
+                + "2320000 down\n2380000 up\n2440000 down\n2500000 up\n2560000 down\n2630000 up\n";
+        assertEquals("PARIS", MorseKeyerDecoder.decode(new StringReader(recording)), "Recording decoded wrongly");
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> MorseKeyerDecoder.decode(new StringReader("0 down\n10 sideways\n")), "Bad state accepted");
+        assertTrue(error.getMessage().startsWith("Line 2"), "Error does not name the line: " + error.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> MorseKeyerDecoder.decode(new StringReader("500 down\n400 up\n")), "Events going back in time accepted");
+    }
+
+    /**
+     * A SourceDataLine without a sound device: it "plays" written bytes in real time while
+     * started, so its frame position and free buffer space behave like a real line's.
+     */
+    private static final class SimulatedLine implements InvocationHandler {
+        private static final AudioFormat FORMAT = new AudioFormat(44100, 16, 1, true, false);
+        private static final double BYTES_PER_NANO = 44100 * 2 / 1e9;
+        private static final int BUFFER_SIZE = 4 * 1764;
+
+        final SourceDataLine proxy = (SourceDataLine) Proxy.newProxyInstance(
+                SourceDataLine.class.getClassLoader(), new Class<?>[] {SourceDataLine.class}, this);
+        volatile boolean open = true;
+        volatile boolean drained;       // Whether the line was drained before it was stopped
+        private long written;          // Bytes written since opened
+        private long played;           // Bytes played up to runningSince
+        private long runningSince = -1;
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "start":
+                    if (runningSince < 0) {
+                        runningSince = System.nanoTime();
+                    }
+                    return null;
+                case "stop":
+                    catchUp();
+                    runningSince = -1;
+                    return null;
+                case "flush":
+                    catchUp();
+                    written = played;
+                    return null;
+                case "write":
+                    catchUp();
+                    int length = (Integer) args[2];
+                    assertTrue(written - played + length <= BUFFER_SIZE, "Write would have blocked");
+                    written += length;
+                    return length;
+                case "available":
+                    catchUp();
+                    return (int) (BUFFER_SIZE - (written - played));
+                case "getBufferSize":
+                    return BUFFER_SIZE;
+                case "getLongFramePosition":
+                    catchUp();
+                    return played / 2;
+                case "getFormat":
+                    return FORMAT;
+                case "drain":
+                    drained = runningSince >= 0;
+                    catchUp();
+                    while (runningSince >= 0 && played < written) {
+                        sleepQuietly((long) ((written - played) / BYTES_PER_NANO / 1_000_000) + 1);
+                        catchUp();
+                    }
+                    return null;
+                case "close":
+                    open = false;
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private static void sleepQuietly(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /** Plays what the time since the last call allows; a line that runs dry just waits. */
+        private void catchUp() {
+            if (runningSince >= 0) {
+                long now = System.nanoTime();
+                played = Math.min(written, played + (long) ((now - runningSince) * BYTES_PER_NANO));
+                runningSince = now;
+            }
+        }
+    }
+
+    /** Reads a stream in reads of at most {@code chunk} bytes, to cross step boundaries. */
+    private static byte[] readAll(MorsePcmStream stream, int chunk) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[chunk];
+        int read;
+        while ((read = stream.read(buffer, 0, buffer.length)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /** A duration with 10% Gaussian jitter, as a human sender keys it. */
+    private static long jittered(double micros, Random random) {
+        return Math.max(1000, Math.round(micros * (1 + 0.1 * random.nextGaussian())));
+    }
+
+    /** Milliseconds from the first "PARIS" to the next at the given timing. */
+    private static double wordMs(MorseTimeline.Timing timing) {
+        MorseTimeline timeline = MorseTimeline.fromText("PARIS PARIS", MorseAlphabet.ITU, timing, 44100);
+        return timeline.characterStart(6) * 1000.0 / 44100;
+    }
+
+    private static short sampleAt(byte[] pcm, int sample) {
+        return (short) ((pcm[2 * sample + 1] << 8) | (pcm[2 * sample] & 0xFF));
+    }
+
+    /** Power of one frequency in a 44.1 kHz tone with silence around it, by the Goertzel algorithm. */
+    private static double goertzelPower(byte[] tone, double frequencyHz) {
+        double coefficient = 2 * Math.cos(2 * Math.PI * frequencyHz / 44100);
+        double s1 = 0;
+        double s2 = 0;
+        int samples = tone.length / 2;
+        for (int i = -samples; i < 2 * samples; i++) {
+            int sample = i >= 0 && i < samples ? sampleAt(tone, i) : 0;
+            double s0 = sample + coefficient * s1 - s2;
+            s2 = s1;
+            s1 = s0;
+        }
+        return s1 * s1 + s2 * s2 - coefficient * s1 * s2;
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3000];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isSilent(byte[] pcm, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (pcm[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,4 +1,19 @@
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -62,6 +77,23 @@ public class MorseCodeTranslatorTest {
         assertEquals(expected, MorseCodeTranslator.lettersToMorseCode(input), "Unsupported characters handling failed");
     }
 
+    @Test
+    void testLettersToMorseCode_MultiLetterUpperCase() {
+        // 'ß' upper-cases to "SS", so it must be encoded as two separate Morse characters
+        String input = "Straße";
+        String expected = "... - .-. .- ... ... .";
+        assertEquals(expected, MorseCodeTranslator.lettersToMorseCode(input), "Multi-letter upper-case folding failed");
+    }
+
+    @Test
+    void testLettersToMorseCode_RepeatedSpacesAndUnknowns() {
+        // Runs of spaces and unknown characters between words collapse into a single separator,
+        // and nothing is emitted for leading or trailing ones
+        String input = "  SOS  # \t SOS #  ";
+        String expected = "... --- ... / ... --- ...";
+        assertEquals(expected, MorseCodeTranslator.lettersToMorseCode(input), "Repeated separators handling failed");
+    }
+
     // --- Tests for morseCodeToLetters method ---
 
     @Test
@@ -127,4 +159,477 @@ public class MorseCodeTranslatorTest {
         String expected = "HELLO";
         assertEquals(expected, MorseCodeTranslator.morseCodeToLetters(input), "Multiple spaces within Morse char failed");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testMorseCodeToLetters_OverlongAndMalformedSymbols() {
+        // Symbols longer than any code, or containing other characters, decode to '?'
+        String input = "... ........ .x- ...";
+        String expected = "S??S";
+        assertEquals(expected, MorseCodeTranslator.morseCodeToLetters(input), "Overlong or malformed symbols handling failed");
+    }
+
+    @Test
+    void testMorseCodeToLetters_SlashWithoutSpaces() {
+        // A bare '/' separates words just like " / "
+        String input = "...//---\t/...";
+        String expected = "S O S";
+        assertEquals(expected, MorseCodeTranslator.morseCodeToLetters(input), "Separator without spaces handling failed");
+    }
+
+    // --- Tests for the streaming encode/decode methods ---
+
+    @Test
+    void testStreamingEncode_MatchesStringMethodForAnyChunking() throws IOException {
+        // Separators and unknown characters fall on chunk boundaries for some of the chunk sizes
+        String input = "  Hello,  World! é# Straße  SOS 42 ";
+        String expected = MorseCodeTranslator.lettersToMorseCode(input);
+        for (int chunkSize = 1; chunkSize <= 8; chunkSize++) {
+            StringWriter out = new StringWriter();
+            MorseCodeTranslator.encode(new ChunkedReader(input, chunkSize), out);
+            assertEquals(expected, out.toString(), "Streaming encode failed for chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    void testStreamingDecode_MatchesStringMethodForAnyChunking() throws IOException {
+        // Symbols, separators and the '?' rule are cut at every possible position
+        String input = " .... . .-.. .-.. --- / / .-- --- .-. .-.. -.. ...-.-.. / --. ........ ";
+        String expected = MorseCodeTranslator.morseCodeToLetters(input);
+        for (int chunkSize = 1; chunkSize <= 8; chunkSize++) {
+            StringWriter out = new StringWriter();
+            MorseCodeTranslator.decode(new ChunkedReader(input, chunkSize), out);
+            assertEquals(expected, out.toString(), "Streaming decode failed for chunk size " + chunkSize);
+        }
+    }
+
+    // --- Tests for the batch file mode ---
+
+    @Test
+    void testBatchFileMode_MatchesStringMethods(@TempDir Path dir) throws IOException {
+        // Encode a file, decode the result, and compare both steps with the String methods
+        String text = "  Hello World, this is R2-D2!  é  SOS ";
+        Path input = dir.resolve("in.txt");
+        Path morse = dir.resolve("out.morse");
+        Path decoded = dir.resolve("back.txt");
+        Files.write(input, text.getBytes(StandardCharsets.UTF_8));
+
+        MorseFileTranslator.encodeFile(input, morse);
+        String morseText = new String(Files.readAllBytes(morse), StandardCharsets.US_ASCII);
+        assertEquals(MorseCodeTranslator.lettersToMorseCode(text), morseText, "Batch encode failed");
+
+        MorseFileTranslator.decodeFile(morse, decoded);
+        String decodedText = new String(Files.readAllBytes(decoded), StandardCharsets.US_ASCII);
+        assertEquals(MorseCodeTranslator.morseCodeToLetters(morseText), decodedText, "Batch decode failed");
+    }
+
+    // --- Tests for the byte buffer codec ---
+
+    @Test
+    void testByteCodec_MatchesStringMethodsWithTinyBuffers() {
+        // Feed the input a few bytes at a time into a 3-byte output buffer, so both sides
+        // of every call are cut in the middle of codes, letters and separators
+        String text = "  Hello World, this is R2-D2!  SOS ";
+        String morse = MorseCodeTranslator.lettersToMorseCode(text) + " / ........ .-x / / ...";
+        MorseByteCodec codec = new MorseByteCodec(StandardCharsets.US_ASCII);
+
+        assertEquals(MorseCodeTranslator.lettersToMorseCode(text), translateBytes(codec, text, true),
+                "Byte codec encode failed");
+        codec.reset();
+        assertEquals(MorseCodeTranslator.morseCodeToLetters(morse), translateBytes(codec, morse, false),
+                "Byte codec decode failed");
+    }
+
+    @Test
+    void testByteCodec_Latin1AndAsciiModes() {
+        // Latin-1 maps 'ß' like the String method does; ASCII ignores every byte above 0x7F
+        String text = "Straße";
+        assertEquals(MorseCodeTranslator.lettersToMorseCode(text),
+                translateBytes(new MorseByteCodec(StandardCharsets.ISO_8859_1), text, true), "Latin-1 encode failed");
+        assertEquals(MorseCodeTranslator.lettersToMorseCode("Strae"),
+                translateBytes(new MorseByteCodec(StandardCharsets.US_ASCII), text, true), "ASCII encode failed");
+        assertThrows(IllegalArgumentException.class, () -> new MorseByteCodec(StandardCharsets.UTF_8),
+                "Multi-byte charsets should be rejected");
+    }
+
+    // --- Tests for the parallel translation methods ---
+
+    @Test
+    void testParallelTranslation_MatchesSequentialMethods() {
+        // Build inputs above the parallel threshold with separators, unknowns and '?' symbols
+        // scattered around, so chunk boundaries land next to every kind of content
+        Random random = new Random(2024);
+        String[] words = {"Hello", "WORLD", "  ", "é#", "SOS,", "r2d2", "?"};
+        String[] symbols = {".-", "...", "---", " ", " / ", "/", "........", "x", "\t"};
+        StringBuilder text = new StringBuilder();
+        StringBuilder morse = new StringBuilder();
+        while (text.length() < MorseCodeTranslator.PARALLEL_THRESHOLD + 1000) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        while (morse.length() < MorseCodeTranslator.PARALLEL_THRESHOLD + 1000) {
+            morse.append(symbols[random.nextInt(symbols.length)]).append(random.nextInt(3) == 0 ? " " : "");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(MorseCodeTranslator.lettersToMorseCode(text.toString()),
+                    MorseCodeTranslator.lettersToMorseCode(text.toString(), pool), "Parallel encode failed");
+            assertEquals(MorseCodeTranslator.morseCodeToLetters(morse.toString()),
+                    MorseCodeTranslator.morseCodeToLetters(morse.toString(), pool), "Parallel decode failed");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // --- Tests for the translation cache ---
+
+    @Test
+    void testCachingTranslator_CountsHitsAndStaysWithinItsLimit() throws InterruptedException {
+        CachingMorseTranslator translator = new CachingMorseTranslator(64 * 1024);
+        for (int round = 0; round < 3; round++) {
+            assertEquals("... --- ...", translator.lettersToMorseCode("SOS"), "Cached encode failed");
+            assertEquals("SOS", translator.morseCodeToLetters("... --- ..."), "Cached decode failed");
+        }
+        assertEquals(2, translator.getEncodeCache().getHitCount(), "Repeated encodes not served from the cache");
+        assertEquals(1, translator.getDecodeCache().getMissCount(), "Decode misses not counted");
+
+        // Null and empty input behave like the uncached methods and never reach the cache
+        assertEquals("", translator.lettersToMorseCode(null), "Null text not handled like the uncached method");
+        assertEquals("", translator.morseCodeToLetters(null), "Null code not handled like the uncached method");
+        assertEquals("", translator.morseCodeToLetters(""), "Empty code not handled like the uncached method");
+        assertEquals(1, translator.getDecodeCache().getMissCount(), "Null or empty input went to the cache");
+
+        // Many threads with far more distinct phrases than fit: the weight limit still holds
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int seed = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    String phrase = "CALL " + ((i * 31 + seed) % 3000);
+                    assertEquals(MorseCodeTranslator.lettersToMorseCode(phrase), translator.lettersToMorseCode(phrase));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        MorseCache<String, String> cache = translator.getEncodeCache();
+        assertTrue(cache.getWeight() <= 32 * 1024, "Cache grew past its limit: " + cache);
+        assertTrue(cache.getEvictionCount() > 0, "Nothing was evicted: " + cache);
+
+        // Entries expire after their time to live
+        CachingMorseTranslator shortLived = new CachingMorseTranslator(MorseAlphabet.ITU, 64 * 1024, 1, TimeUnit.MILLISECONDS);
+        shortLived.lettersToMorseCode("QRZ");
+        Thread.sleep(10);
+        shortLived.lettersToMorseCode("QRZ");
+        assertEquals(1, shortLived.getEncodeCache().getExpirationCount(), "Entry did not expire");
+        assertEquals(0, shortLived.getEncodeCache().getHitCount(), "Expired entry was served");
+    }
+
+    // --- Tests for the metrics ---
+
+    @Test
+    void testMetrics_RecordCallsAndEstimatePercentiles() {
+        // Calls are recorded the same way whether or not -Dmorse.metrics=true enabled the hooks
+        MorseMetrics metrics = MorseMetrics.get();
+        long calls = metrics.getDecodeCalls();
+        long unknown = metrics.getUnknownSymbols();
+        MorseDecoder decoder = new MorseDecoder();
+        StringBuilder text = new StringBuilder();
+        decoder.decode("... ........ ---", text);
+        decoder.finish(text);
+        MorseMetrics.startDecode().end(16, text.length(), decoder.unknownCount());
+        assertEquals(calls + 1, metrics.getDecodeCalls(), "Call not counted");
+        assertEquals(unknown + 1, metrics.getUnknownSymbols(), "Unknown symbol not counted");
+
+        // Every percentile lands within 25% of the exact value
+        MorseMetrics.Histogram histogram = new MorseMetrics.Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100_000, histogram.max(), "Wrong maximum");
+        for (double fraction : new double[] {0.5, 0.9, 0.99}) {
+            double exact = fraction * 100_000;
+            long estimate = histogram.percentile(fraction);
+            assertTrue(estimate >= exact && estimate <= exact * 1.25,
+                    "Percentile " + fraction + " estimated as " + estimate);
+        }
+    }
+
+    // --- Tests for alternative alphabets ---
+
+    @Test
+    void testAlphabets_BuiltInAlphabetsRoundTrip() throws IOException {
+        assertEquals(".--. .-. .. .-- . -", MorseCodeTranslator.lettersToMorseCode("привет", MorseAlphabet.CYRILLIC),
+                "Cyrillic encode failed");
+        assertEquals("ПРИВЕТ МИР", MorseCodeTranslator.morseCodeToLetters(".--. .-. .. .-- . - / -- .. .-.",
+                MorseAlphabet.CYRILLIC), "Cyrillic decode failed");
+        assertEquals("ΑΒΓ", MorseCodeTranslator.morseCodeToLetters(".- -... --.", MorseAlphabet.GREEK),
+                "Greek decode failed");
+
+        // A prosign is one symbol, also when a chunk boundary falls inside it
+        String text = "CQ <SK> <sk>";
+        String expected = "-.-. --.- / ...-.- / ...-.-";
+        assertEquals(expected, MorseCodeTranslator.lettersToMorseCode(text, MorseAlphabet.PROSIGNS),
+                "Prosign encode failed");
+        for (int chunkSize = 1; chunkSize <= 4; chunkSize++) {
+            StringWriter out = new StringWriter();
+            MorseCodeTranslator.encode(new ChunkedReader(text, chunkSize), out, MorseAlphabet.PROSIGNS);
+            assertEquals(expected, out.toString(), "Streaming prosign encode failed for chunk size " + chunkSize);
+        }
+        assertEquals("CQ <SK>", MorseCodeTranslator.morseCodeToLetters("-.-. --.- / ...-.-", MorseAlphabet.PROSIGNS),
+                "Prosign decode failed");
+        // An unfinished token is encoded as its separate characters ('<' itself has no code)
+        assertEquals("-.-. --.- / ...", MorseCodeTranslator.lettersToMorseCode("CQ <S", MorseAlphabet.PROSIGNS),
+                "Unfinished prosign encode failed");
+    }
+
+    @Test
+    void testAlphabets_ParseCustomDefinition() throws IOException {
+        MorseAlphabet alphabet = MorseAlphabet.parse("Custom",
+                new StringReader("# test alphabet\nA .-\nZ --.. # last letter\n<BT> -...-\n"));
+        assertEquals("Custom", alphabet.getName(), "Name not kept");
+        assertEquals(3, alphabet.getCodes().size(), "Wrong number of symbols");
+        assertEquals(".- -...- --..", MorseCodeTranslator.lettersToMorseCode("a<BT>zB", alphabet),
+                "Custom encode failed");
+        assertEquals("A<BT>?", MorseCodeTranslator.morseCodeToLetters(".- -...- -...", alphabet),
+                "Custom decode failed");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> MorseAlphabet.parse("Bad", new StringReader("A .-\nB -x-\n")), "Invalid code accepted");
+        assertThrows(IllegalArgumentException.class,
+                () -> MorseAlphabet.parse("Bad", new StringReader("A .-\nA -\n")), "Duplicate symbol accepted");
+        assertThrows(IllegalArgumentException.class, () -> MorseAlphabet.forName("Klingon"), "Unknown alphabet accepted");
+    }
+
+    // --- Tests for the binary form ---
+
+    @Test
+    void testBinaryForm_RoundTripsAndIsOverFourTimesSmaller() {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(9);
+        String[] words = {"CQ", "DE", "R2D2", "SOS", "PARIS", "73", "QRZ?", "HELLO,", "WORLD."};
+        while (text.length() < 20_000) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        String morse = MorseCodeTranslator.lettersToMorseCode(text.toString());
+
+        byte[] binary = MorseBinary.fromMorseCode(morse);
+        assertEquals(morse, MorseBinary.toMorseCode(binary), "Text form did not survive the round trip");
+        assertEquals(MorseCodeTranslator.morseCodeToLetters(morse), MorseBinary.toText(binary), "Binary decode differs");
+        assertArrayEquals(binary, MorseBinary.fromText(text.toString()), "Encoding text directly differs");
+        assertTrue(binary.length * 4 < morse.length(), "Not over 4x smaller: " + binary.length + " vs " + morse.length());
+
+        // Loose spacing comes back in the canonical form, and decodes the same
+        String loose = "  / ...   ---\t/ / ...  ";
+        assertEquals("... --- / ...", MorseBinary.toMorseCode(MorseBinary.fromMorseCode(loose)), "Spacing not normalized");
+        assertEquals(MorseCodeTranslator.morseCodeToLetters(loose), MorseBinary.toText(MorseBinary.fromMorseCode(loose)),
+                "Normalized spacing decodes differently");
+        assertThrows(IllegalArgumentException.class, () -> MorseBinary.fromMorseCode(".- x"), "Non-Morse input accepted");
+
+        // Packing reads every blank as a letter gap, while the text decoder only splits at spaces
+        String lines = ".- -...\n-.-. -..";
+        assertEquals("A?D", MorseCodeTranslator.morseCodeToLetters(lines), "Line break inside a symbol not unknown");
+        assertEquals(".- -... -.-. -..", MorseBinary.toMorseCode(MorseBinary.fromMorseCode(lines)), "Line break not a gap");
+        assertEquals("ABCD", MorseBinary.toText(MorseBinary.fromMorseCode(lines)), "Packed line break not a gap");
+        assertThrows(IllegalArgumentException.class, () -> MorseBinary.toText(new byte[] {1, 2, 3}), "Garbage accepted");
+    }
+
+    @Test
+    void testBinaryForm_HeaderCarriesAlphabetAndTiming(@TempDir Path dir) throws IOException {
+        MorseAlphabet custom = MorseAlphabet.parse("Custom", new StringReader("A .-\n<BT> -...-\nÆ .-.-\n"));
+        MorseBinary.Header header = new MorseBinary.Header(custom, 25, 18, 600);
+        byte[] binary = MorseBinary.fromText("A<BT>Æ AA", header);
+        assertEquals("A<BT>Æ AA", MorseBinary.toText(binary), "Custom alphabet not carried along");
+
+        try (MorseBinary.Reader reader = new MorseBinary.Reader(new java.io.ByteArrayInputStream(binary))) {
+            MorseBinary.Header read = reader.getHeader();
+            assertEquals("Custom", read.getAlphabet().getName(), "Alphabet name lost");
+            assertEquals(25, read.getWpm(), "Speed lost");
+            assertEquals(18, read.getEffectiveWpm(), "Effective speed lost");
+            assertEquals(600, read.getFrequencyHz(), "Frequency lost");
+        }
+
+        // Files are streamed through the same writer and reader
+        String morse = MorseCodeTranslator.lettersToMorseCode("Hello World, this is R2-D2!");
+        Path input = dir.resolve("in.morse");
+        Path packed = dir.resolve("in.mrsb");
+        Path unpacked = dir.resolve("back.morse");
+        Files.write(input, morse.getBytes(StandardCharsets.US_ASCII));
+        MorseFileTranslator.packFile(input, packed);
+        MorseFileTranslator.unpackFile(packed, unpacked);
+        assertEquals(morse, new String(Files.readAllBytes(unpacked), StandardCharsets.US_ASCII), "File round trip failed");
+    }
+
+    // --- Tests for tolerant decoding ---
+
+    @Test
+    void testTolerantDecoding_RepairsCommonErrors() {
+        // Clean code costs nothing and reads like the plain decoder
+        String clean = ".... . .-.. .-.. --- / .-- --- .-. .-.. -..";
+        assertEquals("HELLO WORLD (0.00)", MorseTolerantDecoder.decode(clean, 1).get(0).toString(), "Clean code misread");
+        assertEquals("HELLO WORLD", MorseCodeTranslator.morseCodeToLettersTolerant(clean), "Clean code misread");
+
+        // A merged character gap, and stray symbols that are not Morse at all
+        assertAmongTopFive("SOS", "...--- ...", "Missing gap not repaired");
+        assertEquals("SOS (1.20)", MorseTolerantDecoder.decode("... --x- ...", 1).get(0).toString(), "Noise not skipped");
+        assertEquals("PARIS", MorseCodeTranslator.morseCodeToLettersTolerant(".--. .- .-. ..x ..."), "Noise not skipped");
+
+        List<MorseTolerantDecoder.Candidate> candidates = MorseTolerantDecoder.decode("... ---- ...", 5);
+        assertEquals(5, candidates.size(), "Wrong number of candidates");
+        for (int i = 1; i < candidates.size(); i++) {
+            assertTrue(candidates.get(i - 1).getCost() <= candidates.get(i).getCost(), "Not ranked: " + candidates);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new MorseTolerantDecoder.Costs(1, 1, 0, 1, 1, 1),
+                "Free edits accepted");
+    }
+
+    @Test
+    void testTolerantDecoding_DictionaryPicksRealWords() {
+        String morse = ".... . .-.. .-. --- / .-- --- .-. .-.. -.."; // HELRO WORLD: one dot for a dash
+        assertEquals("HELRO WORLD", MorseCodeTranslator.morseCodeToLettersTolerant(morse), "Valid code changed");
+
+        MorseTolerantDecoder decoder = new MorseTolerantDecoder(MorseAlphabet.ITU, MorseTolerantDecoder.Costs.DEFAULT,
+                Arrays.asList("hello", "world"), MorseTolerantDecoder.DEFAULT_BEAM_WIDTH);
+        decoder.accept(morse, 0, morse.length());
+        List<MorseTolerantDecoder.Candidate> candidates = decoder.candidates(2);
+        assertEquals("HELLO WORLD", candidates.get(0).getText(), "Dictionary word not preferred: " + candidates);
+        assertEquals(1.2, candidates.get(0).getCost(), 1e-9, "A substitution plus the extra element");
+        assertEquals("HELRO WORLD", candidates.get(1).getText(), "Literal reading not the runner-up: " + candidates);
+        assertEquals(2.0, candidates.get(1).getCost(), 1e-9, "One unknown word");
+
+        // A lost element that still leaves valid code is only found with a dictionary
+        MorseTolerantDecoder sos = new MorseTolerantDecoder(MorseAlphabet.ITU, MorseTolerantDecoder.Costs.DEFAULT,
+                Arrays.asList("SOS"), 8);
+        sos.accept("... -- ...", 0, 10);
+        assertEquals("SOS", sos.candidates(1).get(0).getText(), "Dropped dash not restored");
+    }
+
+    @Test
+    void testTolerantDecoding_StreamsInPieces() {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 5_000) {
+            text.append("THE QUICK BROWN FOX JUMPS OVER THE LAZY DOG ");
+        }
+        String morse = MorseCodeTranslator.lettersToMorseCode(text.toString());
+        StringBuilder noisy = new StringBuilder(morse);
+        Random random = new Random(3);
+        for (int i = 0; i < 20; i++) {
+            int at = random.nextInt(noisy.length());
+            char c = noisy.charAt(at);
+            noisy.setCharAt(at, c == '.' ? '-' : c == '-' ? '.' : c);
+        }
+
+        MorseTolerantDecoder whole = new MorseTolerantDecoder();
+        whole.accept(noisy, 0, noisy.length());
+        MorseTolerantDecoder pieces = new MorseTolerantDecoder();
+        for (int i = 0; i < noisy.length(); i += 7) {
+            pieces.accept(noisy, i, Math.min(noisy.length(), i + 7));
+        }
+        String best = whole.candidates(1).get(0).getText();
+        assertEquals(best, pieces.candidates(1).get(0).getText(), "Piecewise decoding differs");
+        assertEquals(text.toString().trim().length(), best.length(), 20, "More than one character lost or gained per error");
+
+        // A narrow beam still decodes clean code exactly
+        MorseTolerantDecoder narrow = new MorseTolerantDecoder(MorseAlphabet.ITU, MorseTolerantDecoder.Costs.DEFAULT,
+                null, 1);
+        narrow.accept(morse, 0, morse.length());
+        assertEquals(text.toString().trim(), narrow.candidates(1).get(0).getText(), "Narrow beam misread clean code");
+    }
+
+    @Test
+    void testTolerantDecoding_TimeGrowsLinearlyWithInput() {
+        // No word gaps, as in much radio copy: the current word never ends, so any per-word
+        // cost that grows with the word's length would show up here as quadratic time
+        for (List<String> dictionary : Arrays.asList(null, Arrays.asList("THE", "QUICK", "BROWN", "FOX"))) {
+            decodeMillis(5_000, dictionary); // Warm-up
+            long small = Math.min(decodeMillis(5_000, dictionary), decodeMillis(5_000, dictionary));
+            long large = decodeMillis(50_000, dictionary);
+            assertTrue(large <= 20 * Math.max(small, 5), "10x the input took " + large + " ms instead of ~10x "
+                    + small + " ms, dictionary " + dictionary);
+        }
+
+        // Merged characters can be beyond repair: "...---..." needs two missing gaps to be
+        // SOS, which costs more than the many one-error readings
+        List<MorseTolerantDecoder.Candidate> merged = MorseTolerantDecoder.decode("...---...", 5);
+        assertEquals("3B (1.00)", merged.get(0).toString(), "Cheapest reading of merged SOS changed");
+        for (MorseTolerantDecoder.Candidate candidate : merged) {
+            assertNotEquals("SOS", candidate.getText(), "Two missing gaps now rank in the top five: " + merged);
+        }
+    }
+
+    /** Decodes {@code chars} letters without word gaps with a narrow beam; returns the time taken. */
+    private static long decodeMillis(int chars, List<String> dictionary) {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < chars) {
+            text.append("THEQUICKBROWNFOX");
+        }
+        String morse = MorseCodeTranslator.lettersToMorseCode(text.toString());
+        MorseTolerantDecoder decoder = new MorseTolerantDecoder(MorseAlphabet.ITU, MorseTolerantDecoder.Costs.DEFAULT,
+                dictionary, 8);
+        long start = System.nanoTime();
+        decoder.accept(morse, 0, morse.length());
+        assertEquals(text.toString(), decoder.candidates(1).get(0).getText(), "Clean code misread");
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /** Asserts that {@code expected} is one of the five cheapest readings, not necessarily the first. */
+    private static void assertAmongTopFive(String expected, String morse, String message) {
+        List<MorseTolerantDecoder.Candidate> candidates = MorseTolerantDecoder.decode(morse, 5);
+        boolean found = false;
+        for (MorseTolerantDecoder.Candidate candidate : candidates) {
+            found |= candidate.getText().equals(expected);
+        }
+        assertTrue(found, message + ": " + candidates);
+    }
+
+    /** Runs Latin-1 bytes through the codec in 5-byte pieces with a 3-byte output buffer. */
+    private static String translateBytes(MorseByteCodec codec, String input, boolean encode) {
+        byte[] bytes = input.getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer src = ByteBuffer.wrap(bytes);
+        ByteBuffer dst = ByteBuffer.allocate(3);
+        StringBuilder out = new StringBuilder();
+        for (int end = 0; end < bytes.length; ) {
+            end = Math.min(bytes.length, end + 5);
+            src.limit(end);
+            while ((encode ? codec.encode(src, dst) : codec.decode(src, dst)).isOverflow()) {
+                drainInto(dst, out);
+            }
+        }
+        while (codec.flush(dst).isOverflow()) {
+            drainInto(dst, out);
+        }
+        drainInto(dst, out);
+        return out.toString();
+    }
+
+    private static void drainInto(ByteBuffer dst, StringBuilder out) {
+        dst.flip();
+        out.append(StandardCharsets.US_ASCII.decode(dst));
+        dst.clear();
+    }
+
+    /**
+     * A Reader that never returns more than a fixed number of chars per read,
+     * so tests can control where the chunk boundaries fall.
+     */
+    private static class ChunkedReader extends Reader {
+        private final Reader delegate;
+        private final int chunkSize;
+
+        ChunkedReader(String text, int chunkSize) {
+            this.delegate = new StringReader(text);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return delegate.read(buffer, offset, Math.min(length, chunkSize));
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
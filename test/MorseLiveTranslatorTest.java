@@ -0,0 +1,196 @@
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Position;
+import java.awt.FontMetrics;
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for live translation and the output pane it feeds. Nothing is shown on screen, so
+ * they run headless; edits are made on the event dispatch thread like typing would be.
+ */
+public class MorseLiveTranslatorTest {
+
+    // --- Tests for incremental translation ---
+
+    @Test
+    void testLiveEncode_FollowsRandomEditsExactly() throws Exception {
+        // Whatever is typed, pasted or deleted, the output must equal a full translation
+        Document input = new PlainDocument();
+        Document output = new PlainDocument(new MorseTextContent()); // As in the GUI
+        MorseLiveTranslator live = new MorseLiveTranslator(input, output, MorseService.getDefault());
+        Random random = new Random(42);
+        onEdt(() -> {
+            input.insertString(0, randomText(random, 50_000, "abc xyz 123 ?!#  "), null);
+            live.start(MorseLiveTranslator.Direction.ENCODE);
+        });
+        awaitIdle(live);
+        assertEquals(MorseCodeTranslator.lettersToMorseCode(text(input)), text(output), "Initial translation wrong");
+
+        for (int round = 0; round < 30; round++) {
+            onEdt(() -> applyRandomEdits(input, random, "hello world  #?"));
+            awaitIdle(live);
+            assertEquals(MorseCodeTranslator.lettersToMorseCode(text(input)), text(output),
+                    "Output diverged after edit round " + round);
+        }
+    }
+
+    @Test
+    void testLiveDecode_RetranslatesOnlyTheEditedRegion() throws Exception {
+        String morse = MorseCodeTranslator.lettersToMorseCode(randomText(new Random(7), 200_000, "SOS PARIS 73 QRZ? "));
+        Document input = new PlainDocument();
+        Document output = new PlainDocument();
+        MorseLiveTranslator live = new MorseLiveTranslator(input, output, MorseService.getDefault());
+        onEdt(() -> {
+            input.insertString(0, morse, null);
+            live.start(MorseLiveTranslator.Direction.DECODE);
+        });
+        awaitIdle(live);
+        assertEquals(MorseCodeTranslator.morseCodeToLetters(morse), text(output), "Initial translation wrong");
+
+        // Typing a word separator in the middle splits one word; only a few segments are redone
+        onEdt(() -> input.insertString(input.getLength() / 2 - 1, " / ", null));
+        awaitIdle(live);
+        assertEquals(MorseCodeTranslator.morseCodeToLetters(text(input)), text(output), "Edit not translated");
+        assertTrue(live.getLastTranslatedChars() < 20_000,
+                "Too much retranslated for one edit: " + live.getLastTranslatedChars());
+
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            onEdt(() -> applyRandomEdits(input, random, ".- -.. / ..--.. / "));
+            awaitIdle(live);
+            assertEquals(MorseCodeTranslator.morseCodeToLetters(text(input)), text(output),
+                    "Output diverged after edit round " + round);
+        }
+    }
+
+    // --- Tests for the output pane ---
+
+    @Test
+    void testTextContent_MatchesPlainDocumentUnderRandomEdits() throws Exception {
+        Document expected = new PlainDocument();
+        MorseTextContent content = new MorseTextContent();
+        Document actual = new PlainDocument(content);
+        Random random = new Random(5);
+        // Mostly Morse (packed), with some Latin-1 and other characters mixed in
+        String alphabet = ".- /.- /.- /ABC?éЖ";
+        for (int round = 0; round < 400; round++) {
+            int length = expected.getLength();
+            if (length == 0 || random.nextInt(3) > 0) {
+                int position = random.nextInt(length + 1);
+                String text = randomText(random, 1 + random.nextInt(random.nextInt(10) == 0 ? 40_000 : 20),
+                        alphabet.substring(0, random.nextInt(4) == 0 ? alphabet.length() : 4));
+                expected.insertString(position, text, null);
+                actual.insertString(position, text, null);
+            } else {
+                int position = random.nextInt(length);
+                int count = random.nextInt(Math.min(length - position, random.nextBoolean() ? 30 : 50_000) + 1);
+                expected.remove(position, count);
+                actual.remove(position, count);
+            }
+        }
+        assertEquals(expected.getText(0, expected.getLength()), actual.getText(0, actual.getLength()),
+                "Content diverged from a plain document");
+
+        // Positions follow edits like the JDK's do
+        Position start = actual.createPosition(0);
+        Position middle = actual.createPosition(10);
+        actual.insertString(0, "...", null);
+        actual.remove(5, 3);
+        assertEquals(0, start.getOffset(), "Position at the start moved");
+        assertEquals(10, middle.getOffset(), "Position did not follow the edits");
+    }
+
+    @Test
+    void testTextContent_StoresMorseAtTwoBitsPerChar() throws Exception {
+        MorseTextContent content = new MorseTextContent();
+        Document document = new PlainDocument(content);
+        String morse = MorseCodeTranslator.lettersToMorseCode(randomText(new Random(3), 200_000, "PARIS SOS 73 "));
+        document.insertString(0, morse, null);
+        assertEquals(morse, document.getText(0, document.getLength()), "Stored Morse read back wrong");
+        assertTrue(content.storedBytes() < morse.length() / 4 + 20_000,
+                "Morse not packed: " + content.storedBytes() + " bytes for " + morse.length() + " chars");
+    }
+
+    @Test
+    void testOutputView_LaysTextOutOnAGrid() throws Exception {
+        onEdt(() -> {
+            MorseOutputView view = new MorseOutputView();
+            view.setText(MorseCodeTranslator.lettersToMorseCode("THE QUICK BROWN FOX JUMPS OVER THE LAZY DOG"));
+            view.setSize(400, 100);
+            int columns = view.getColumns();
+            int length = view.getDocument().getLength();
+            assertEquals((length + columns - 1) / columns, view.getRowCount(), "Rows do not cover the text");
+
+            // The start of the second row, and past the end of the text
+            FontMetrics metrics = view.getFontMetrics(view.getFont());
+            assertEquals(columns, view.offsetAt(new Point(0, metrics.getHeight() + 1)), "Wrong offset for a row start");
+            assertEquals(length, view.offsetAt(new Point(0, 1_000_000)), "Offset not clamped to the text");
+
+            view.select(4, 10);
+            assertEquals(view.getText().substring(4, 10), view.getSelectedText(), "Wrong selected text");
+            view.setText("");
+            assertEquals("", view.getSelectedText(), "Selection outlived the text");
+        });
+    }
+
+    /** Makes a few edits in a row, as fast typing or pasting would. */
+    private static void applyRandomEdits(Document input, Random random, String alphabet) throws BadLocationException {
+        for (int edit = 0; edit < 1 + random.nextInt(5); edit++) {
+            int position = random.nextInt(input.getLength() + 1);
+            if (random.nextBoolean() && position < input.getLength()) {
+                input.remove(position, Math.min(input.getLength() - position, 1 + random.nextInt(random.nextInt(10) == 0 ? 9000 : 5)));
+            } else {
+                input.insertString(position, randomText(random, 1 + random.nextInt(random.nextInt(10) == 0 ? 9000 : 5), alphabet), null);
+            }
+        }
+    }
+
+    private static String randomText(Random random, int length, String alphabet) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    private static String text(Document document) throws Exception {
+        String[] text = new String[1];
+        onEdt(() -> text[0] = document.getText(0, document.getLength()));
+        return text[0];
+    }
+
+    private static void awaitIdle(MorseLiveTranslator live) throws Exception {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        AtomicBoolean idle = new AtomicBoolean();
+        while (!idle.get()) {
+            assertTrue(System.nanoTime() < deadline, "Live translation did not settle");
+            Thread.sleep(20);
+            SwingUtilities.invokeAndWait(() -> idle.set(live.isIdle()));
+        }
+    }
+
+    private interface EdtAction {
+        void run() throws Exception;
+    }
+
+    private static void onEdt(EdtAction action) throws Exception {
+        Exception[] failure = new Exception[1];
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the translation server and its load client, run against localhost.
+ */
+public class MorseServerTest {
+
+    // --- Tests for the line protocol ---
+
+    @Test
+    void testServer_AnswersRequestsSplitAcrossPackets() throws IOException, InterruptedException {
+        try (MorseServer server = startServer();
+             Socket socket = new Socket("localhost", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+
+            // Requests are cut mid-symbol and mid-word, and mix \n, \r\n and blank lines
+            String[] pieces = {"E Hello, Wo", "rld\r\n\nd .... .. / - .", "... .-.\nX what\n", "e SOS"};
+            for (String piece : pieces) {
+                out.write(piece.getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                Thread.sleep(20);
+            }
+            socket.shutdownOutput(); // The last line has no '\n'
+
+            assertEquals(MorseCodeTranslator.lettersToMorseCode("Hello, World"), in.readLine(), "Encode reply wrong");
+            assertEquals("HI THR", in.readLine(), "Decode reply wrong");
+            assertEquals("ERR unknown command", in.readLine(), "Unknown command not rejected");
+            assertEquals("... --- ...", in.readLine(), "Unterminated last line not answered");
+            assertNull(in.readLine(), "Connection not closed after the last reply");
+            assertEquals(3, server.getRequestCount(), "Wrong request count");
+        }
+    }
+
+    @Test
+    void testServer_StreamsLargeRequestWithBackpressure() throws Exception {
+        // A request far larger than the server's buffers, sent while nobody reads the replies yet
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 2_000_000) {
+            text.append("The quick brown fox jumps over the lazy dog 1234567890 ");
+        }
+        String expected = MorseCodeTranslator.lettersToMorseCode(text.toString());
+
+        try (MorseServer server = startServer();
+             Socket socket = new Socket("localhost", server.getPort())) {
+            AtomicReference<IOException> failure = new AtomicReference<>();
+            Thread writer = new Thread(() -> {
+                try {
+                    OutputStream out = socket.getOutputStream();
+                    out.write(("E " + text + "\n").getBytes(StandardCharsets.US_ASCII));
+                    socket.shutdownOutput();
+                } catch (IOException e) {
+                    failure.set(e);
+                }
+            });
+            writer.start();
+            Thread.sleep(200); // Let both socket buffers fill up
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            assertEquals(expected, in.readLine(), "Large request translated wrongly");
+            writer.join();
+            assertNull(failure.get(), "Sending the request failed");
+        }
+    }
+
+    @Test
+    void testServer_AnswersReplyThatExactlyFillsTheOutputBuffer() throws IOException {
+        // "I" and 4095 "E"s encode to 2 + 4095 * 2 = 8192 bytes, one whole output buffer, so
+        // the line end has to wait for the buffer to be sent after all input is used up
+        StringBuilder text = new StringBuilder("I");
+        for (int i = 0; i < 4095; i++) {
+            text.append('E');
+        }
+        String expected = MorseCodeTranslator.lettersToMorseCode(text.toString());
+        assertEquals(8 * 1024, expected.length(), "Reply does not fill the buffer exactly");
+
+        try (MorseServer server = startServer();
+             Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("E " + text + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            assertEquals(expected, in.readLine(), "Reply wrong or never finished");
+
+            // The event loop is still serving: a second request on the same connection is answered
+            out.write("D ... --- ...\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertEquals("SOS", in.readLine(), "Connection not served after the full-buffer reply");
+        }
+    }
+
+    // --- Tests for the load client ---
+
+    @Test
+    void testLoadClient_ReportsVerifiedRequests() throws IOException {
+        try (MorseServer server = startServer()) {
+            MorseLoadClient.Result result = MorseLoadClient.run(
+                    new InetSocketAddress("localhost", server.getPort()), 200, 10, 80);
+            assertEquals(2000, result.getRequests(), "Not every request was answered");
+            assertEquals(0, result.getErrors(), "Some replies were wrong");
+            assertTrue(result.getP50Millis() <= result.getP99Millis(), "Percentiles out of order");
+            assertTrue(result.getRequestsPerSecond() > 0, "No throughput reported");
+        }
+    }
+
+    /** Starts a server with two event loops on a free port. */
+    private static MorseServer startServer() throws IOException {
+        MorseServer server = new MorseServer(new InetSocketAddress("localhost", 0), 2);
+        server.start();
+        return server;
+    }
+}
@@ -0,0 +1,129 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the concurrent job service.
+ */
+public class MorseServiceTest {
+
+    // --- Tests for submission and limits ---
+
+    @Test
+    void testService_RunsManyJobsWithinTheConcurrencyLimit() throws Exception {
+        try (MorseService service = new MorseService(4)) {
+            // Many small translations, all submitted at once
+            List<CompletableFuture<String>> encoded = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                encoded.add(service.encode("SOS " + i));
+            }
+            for (int i = 0; i < encoded.size(); i++) {
+                assertEquals(MorseCodeTranslator.lettersToMorseCode("SOS " + i), encoded.get(i).get(),
+                        "Wrong translation for message " + i);
+            }
+            assertEquals(20_000, service.getMetrics().get("encode").getCompleted(), "Completed jobs not counted");
+
+            // Slow jobs never run more than four at a time
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<CompletableFuture<Integer>> slow = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                slow.add(service.submit("slow", () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(5);
+                    return running.decrementAndGet();
+                }));
+            }
+            CompletableFuture.allOf(slow.toArray(new CompletableFuture<?>[0])).get();
+            assertEquals(4, maxRunning.get(), "Concurrency limit not respected");
+        }
+    }
+
+    // --- Tests for cancellation, timeouts and failures ---
+
+    @Test
+    void testService_CancelsTimesOutAndReportsFailures() throws Exception {
+        try (MorseService service = new MorseService(2)) {
+            // A timed-out job fails its future and is interrupted
+            CountDownLatch started = new CountDownLatch(1);
+            AtomicBoolean interrupted = new AtomicBoolean();
+            CompletableFuture<String> late = service.submit("sleep", () -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+                return "done";
+            }, 50, TimeUnit.MILLISECONDS);
+            ExecutionException timeout = assertThrows(ExecutionException.class, late::get, "Timeout not applied");
+            assertTrue(timeout.getCause() instanceof TimeoutException, "Wrong timeout exception");
+            assertTrue(started.await(1, TimeUnit.SECONDS), "Job never started");
+
+            // Cancelling a running job interrupts it
+            CountDownLatch running = new CountDownLatch(1);
+            CompletableFuture<Void> playback = service.submit("sleep", () -> {
+                running.countDown();
+                Thread.sleep(10_000);
+                return null;
+            });
+            assertTrue(running.await(1, TimeUnit.SECONDS), "Job never started");
+            assertTrue(playback.cancel(true), "Job could not be cancelled");
+
+            // Exceptions thrown by a job fail its future
+            CompletableFuture<String> broken = service.submit("broken", () -> {
+                throw new IllegalStateException("no audio line");
+            });
+            ExecutionException failure = assertThrows(ExecutionException.class, broken::get, "Failure not reported");
+            assertEquals("no audio line", failure.getCause().getMessage(), "Wrong failure reported");
+
+            MorseService.JobMetrics sleep = service.getMetrics().get("sleep");
+            assertEquals(1, sleep.getTimedOut(), "Timeout not counted");
+            assertEquals(1, sleep.getCancelled(), "Cancellation not counted");
+            assertEquals(1, service.getMetrics().get("broken").getFailed(), "Failure not counted");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (!interrupted.get() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(interrupted.get(), "Timed-out job was not interrupted");
+        }
+    }
+
+    @Test
+    void testService_CloseCancelsUnfinishedJobs() throws Exception {
+        MorseService service = new MorseService(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture<Void> busy = service.submit("sleep", () -> {
+            running.countDown();
+            Thread.sleep(10_000);
+            return null;
+        });
+        List<CompletableFuture<String>> waiting = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waiting.add(service.encode("SOS"));
+        }
+        assertTrue(running.await(1, TimeUnit.SECONDS), "Job never started");
+
+        service.close();
+        // Jobs that never started must not leave their callers waiting forever
+        for (CompletableFuture<String> future : waiting) {
+            assertThrows(CancellationException.class, () -> future.get(1, TimeUnit.SECONDS), "Waiting job not cancelled");
+        }
+        assertThrows(CancellationException.class, () -> busy.get(1, TimeUnit.SECONDS), "Running job not cancelled");
+        assertEquals(3, service.getMetrics().get("encode").getCancelled(), "Cancellations not counted");
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> service.encode("SOS").get(),
+                "Job accepted after close");
+        assertTrue(rejected.getCause() instanceof RejectedExecutionException, "Wrong rejection");
+    }
+}